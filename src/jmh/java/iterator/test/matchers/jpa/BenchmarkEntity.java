@@ -0,0 +1,66 @@
+package iterator.test.matchers.jpa;
+
+import java.util.Date;
+import java.util.List;
+import javax.persistence.Column;
+import javax.persistence.DiscriminatorColumn;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.JoinColumn;
+import javax.persistence.Lob;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderColumn;
+import javax.persistence.PrimaryKeyJoinColumn;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+@MappedSuperclass
+@Entity(name = "benchmark")
+@Table(name = "benchmarks")
+@DiscriminatorColumn(name = "kind")
+@PrimaryKeyJoinColumn(name = "benchmark_id")
+@Inheritance(strategy = InheritanceType.JOINED)
+@EntityListeners({String.class, Integer.class})
+public class BenchmarkEntity {
+
+  @GeneratedValue(strategy = GenerationType.SEQUENCE)
+  private Long id;
+
+  @Column(name = "name", length = 512, nullable = false)
+  private String name;
+
+  @Lob private String body;
+
+  @Enumerated(EnumType.STRING)
+  private Kind kind;
+
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date created;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "parent_id")
+  private BenchmarkEntity parent;
+
+  @OneToMany(mappedBy = "parent")
+  @OrderColumn(name = "position")
+  private List<BenchmarkEntity> children;
+
+  @ManyToMany(fetch = FetchType.EAGER)
+  private List<BenchmarkEntity> related;
+
+  public enum Kind {
+    FAST,
+    SLOW
+  }
+}
@@ -0,0 +1,244 @@
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.persistence.Column;
+import javax.persistence.DiscriminatorColumn;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderColumn;
+import javax.persistence.PrimaryKeyJoinColumn;
+import javax.persistence.Table;
+import javax.persistence.TemporalType;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction, evaluation and mismatch description cost of each {@link JpaMatchers} factory
+ * against a class whose metadata is already resolved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JpaMatchersBenchmark {
+
+  private static final Map<String, Supplier<Matcher<Class<BenchmarkEntity>>>> MATCHING =
+      new HashMap<>();
+
+  private static final Map<String, Supplier<Matcher<Class<BenchmarkEntity>>>> MISMATCHING =
+      new HashMap<>();
+
+  /** The classes mismatched by fixtures that every annotated class would match. */
+  private static final Map<String, Class<?>> MISMATCHING_ITEMS = new HashMap<>();
+
+  static {
+    MATCHING.put(
+        "column",
+        () ->
+            JpaMatchers.hasColumnAnnotation(
+                "name",
+                AnnotationMap.from(Column.class)
+                    .set("name", "name")
+                    .set("length", 512)
+                    .set("nullable", false)));
+    MISMATCHING.put(
+        "column",
+        () ->
+            JpaMatchers.hasColumnAnnotation(
+                "name", AnnotationMap.from(Column.class).set("name", "other")));
+    MATCHING.put(
+        "discriminatorColumn",
+        () ->
+            JpaMatchers.hasDiscriminatorColumnAnnotation(
+                AnnotationMap.from(DiscriminatorColumn.class).set("name", "kind")));
+    MISMATCHING.put(
+        "discriminatorColumn",
+        () ->
+            JpaMatchers.hasDiscriminatorColumnAnnotation(
+                AnnotationMap.from(DiscriminatorColumn.class).set("name", "type")));
+    MATCHING.put(
+        "entity",
+        () ->
+            JpaMatchers.hasEntityAnnotation(
+                AnnotationMap.from(Entity.class).set("name", "benchmark")));
+    MISMATCHING.put(
+        "entity",
+        () ->
+            JpaMatchers.hasEntityAnnotation(AnnotationMap.from(Entity.class).set("name", "other")));
+    MATCHING.put(
+        "entityListeners",
+        () ->
+            JpaMatchers.hasEntityListenersAnnotation(new Class<?>[] {String.class, Integer.class}));
+    MISMATCHING.put(
+        "entityListeners",
+        () -> JpaMatchers.hasEntityListenersAnnotation(new Class<?>[] {String.class}));
+    MATCHING.put("enumerated", () -> JpaMatchers.hasEnumeratedAnnotation("kind", EnumType.STRING));
+    MISMATCHING.put(
+        "enumerated", () -> JpaMatchers.hasEnumeratedAnnotation("kind", EnumType.ORDINAL));
+    MATCHING.put(
+        "generatedValue",
+        () ->
+            JpaMatchers.hasGeneratedValueAnnotation(
+                "id",
+                AnnotationMap.from(GeneratedValue.class).set("strategy", GenerationType.SEQUENCE)));
+    MISMATCHING.put(
+        "generatedValue",
+        () ->
+            JpaMatchers.hasGeneratedValueAnnotation(
+                "id",
+                AnnotationMap.from(GeneratedValue.class).set("strategy", GenerationType.IDENTITY)));
+    MATCHING.put(
+        "inheritance",
+        () ->
+            JpaMatchers.hasInheritanceAnnotation(
+                AnnotationMap.from(Inheritance.class).set("strategy", InheritanceType.JOINED)));
+    MISMATCHING.put(
+        "inheritance",
+        () ->
+            JpaMatchers.hasInheritanceAnnotation(
+                AnnotationMap.from(Inheritance.class)
+                    .set("strategy", InheritanceType.SINGLE_TABLE)));
+    MATCHING.put(
+        "joinColumn",
+        () ->
+            JpaMatchers.hasJoinColumnAnnotation(
+                "parent", AnnotationMap.from(JoinColumn.class).set("name", "parent_id")));
+    MISMATCHING.put(
+        "joinColumn",
+        () ->
+            JpaMatchers.hasJoinColumnAnnotation(
+                "parent", AnnotationMap.from(JoinColumn.class).set("name", "other_id")));
+    MATCHING.put("lob", () -> JpaMatchers.hasLobAnnotation("body"));
+    MISMATCHING.put("lob", () -> JpaMatchers.hasLobAnnotation("name"));
+    MATCHING.put(
+        "manyToMany",
+        () ->
+            JpaMatchers.hasManyToManyAnnotation(
+                "related", AnnotationMap.from(ManyToMany.class).set("fetch", FetchType.EAGER)));
+    MISMATCHING.put("manyToMany", () -> JpaMatchers.hasManyToManyAnnotation("related"));
+    MATCHING.put(
+        "manyToOne",
+        () ->
+            JpaMatchers.hasManyToOneAnnotation(
+                "parent", AnnotationMap.from(ManyToOne.class).set("fetch", FetchType.LAZY)));
+    MISMATCHING.put("manyToOne", () -> JpaMatchers.hasManyToOneAnnotation("parent"));
+    MATCHING.put("mappedSuperclass", JpaMatchers::hasMappedSuperclassAnnotation);
+    MISMATCHING.put("mappedSuperclass", JpaMatchers::hasMappedSuperclassAnnotation);
+    MISMATCHING_ITEMS.put("mappedSuperclass", BenchmarkEntity.Kind.class);
+    MATCHING.put(
+        "oneToMany",
+        () ->
+            JpaMatchers.hasOneToManyAnnotation(
+                "children", AnnotationMap.from(OneToMany.class).set("mappedBy", "parent")));
+    MISMATCHING.put("oneToMany", () -> JpaMatchers.hasOneToManyAnnotation("children"));
+    MATCHING.put(
+        "orderColumn",
+        () ->
+            JpaMatchers.hasOrderColumnAnnotation(
+                "children", AnnotationMap.from(OrderColumn.class).set("name", "position")));
+    MISMATCHING.put("orderColumn", () -> JpaMatchers.hasOrderColumnAnnotation("children"));
+    MATCHING.put(
+        "primaryKeyJoinColumn",
+        () ->
+            JpaMatchers.hasPrimaryKeyJoinColumnAnnotation(
+                AnnotationMap.from(PrimaryKeyJoinColumn.class).set("name", "benchmark_id")));
+    MISMATCHING.put("primaryKeyJoinColumn", JpaMatchers::hasPrimaryKeyJoinColumnAnnotation);
+    MATCHING.put(
+        "table",
+        () ->
+            JpaMatchers.hasTableAnnotation(
+                AnnotationMap.from(Table.class).set("name", "benchmarks")));
+    MISMATCHING.put("table", JpaMatchers::hasTableAnnotation);
+    MATCHING.put(
+        "temporal", () -> JpaMatchers.hasTemporalAnnotation("created", TemporalType.TIMESTAMP));
+    MISMATCHING.put(
+        "temporal", () -> JpaMatchers.hasTemporalAnnotation("created", TemporalType.DATE));
+  }
+
+  @Param({
+    "column",
+    "discriminatorColumn",
+    "entity",
+    "entityListeners",
+    "enumerated",
+    "generatedValue",
+    "inheritance",
+    "joinColumn",
+    "lob",
+    "manyToMany",
+    "manyToOne",
+    "mappedSuperclass",
+    "oneToMany",
+    "orderColumn",
+    "primaryKeyJoinColumn",
+    "table",
+    "temporal"
+  })
+  public String factory;
+
+  private Supplier<Matcher<Class<BenchmarkEntity>>> matching;
+
+  private Matcher<Class<BenchmarkEntity>> matcher;
+
+  private Matcher<Class<BenchmarkEntity>> mismatcher;
+
+  private Class<?> mismatched;
+
+  @Setup
+  public void setUp() {
+    matching = MATCHING.get(factory);
+    matcher = matching.get();
+    mismatcher = MISMATCHING.get(factory).get();
+    mismatched = MISMATCHING_ITEMS.getOrDefault(factory, BenchmarkEntity.class);
+    if (!matcher.matches(BenchmarkEntity.class)) {
+      throw new IllegalStateException(factory + " does not match the benchmark entity");
+    }
+    if (mismatcher.matches(mismatched)) {
+      throw new IllegalStateException(factory + " mismatching fixture matches " + mismatched);
+    }
+  }
+
+  @Benchmark
+  public boolean construct() {
+    return matching.get().matches(BenchmarkEntity.class);
+  }
+
+  @Benchmark
+  public boolean evaluate() {
+    return matcher.matches(BenchmarkEntity.class);
+  }
+
+  @Benchmark
+  public String describeMismatch() {
+    Description description = new StringDescription();
+    mismatcher.describeMismatch(mismatched, description);
+    return description.toString();
+  }
+}
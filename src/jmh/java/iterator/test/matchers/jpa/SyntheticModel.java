@@ -0,0 +1,147 @@
+package iterator.test.matchers.jpa;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/** Generates and compiles a domain model of a given number of entities and fields per entity. */
+final class SyntheticModel {
+
+  static final String PACKAGE = "iterator.test.matchers.jpa.synthetic";
+
+  private final Path classes;
+
+  private final int entityCount;
+
+  private final int fieldCount;
+
+  SyntheticModel(int entityCount, int fieldCount) {
+    this.entityCount = entityCount;
+    this.fieldCount = fieldCount;
+    try {
+      Path sources = Files.createTempDirectory("synthetic-sources");
+      this.classes = Files.createTempDirectory("synthetic-classes");
+      Path packageDirectory = Files.createDirectories(sources.resolve(PACKAGE.replace('.', '/')));
+      List<Path> files = new ArrayList<>();
+      for (int i = 0; i < entityCount; i++) {
+        Path file = packageDirectory.resolve(entityName(i) + ".java");
+        Files.write(file, source(i).getBytes("UTF-8"));
+        files.add(file);
+      }
+      compile(files);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  Path getClasses() {
+    return classes;
+  }
+
+  int getEntityCount() {
+    return entityCount;
+  }
+
+  int getFieldCount() {
+    return fieldCount;
+  }
+
+  /** A loader of its own means every class, and so all of its metadata, is seen for the first time. */
+  ClassLoader newClassLoader() {
+    try {
+      return new URLClassLoader(
+          new URL[] {classes.toUri().toURL()}, SyntheticModel.class.getClassLoader());
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  List<Class<?>> load(ClassLoader classLoader) {
+    List<Class<?>> types = new ArrayList<>(entityCount);
+    for (int i = 0; i < entityCount; i++) {
+      try {
+        types.add(Class.forName(PACKAGE + "." + entityName(i), false, classLoader));
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return types;
+  }
+
+  static String entityName(int index) {
+    return "Entity" + index;
+  }
+
+  static String fieldName(int index) {
+    return "field" + index;
+  }
+
+  static String columnName(int index) {
+    return "column_" + index;
+  }
+
+  private String source(int index) {
+    StringBuilder source =
+        new StringBuilder("package ")
+            .append(PACKAGE)
+            .append(";\n\nimport javax.persistence.*;\n\n@Entity\n@Table(name = \"table_")
+            .append(index)
+            .append("\")\npublic class ")
+            .append(entityName(index))
+            .append(
+                " {\n  @Id @GeneratedValue(strategy = GenerationType.SEQUENCE) private Long id;\n");
+    if (index > 0) {
+      source
+          .append("  @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = \"parent_id\") private ")
+          .append(entityName(index - 1))
+          .append(" parent;\n");
+    }
+    for (int field = 0; field < fieldCount; field++) {
+      source
+          .append("  @Column(name = \"")
+          .append(columnName(field))
+          .append("\", length = ")
+          .append(64 + field)
+          .append(") private String ")
+          .append(fieldName(field))
+          .append(";\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private void compile(List<Path> files) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      List<String> options =
+          Arrays.asList(
+              "-d",
+              classes.toString(),
+              "-classpath",
+              System.getProperty("java.class.path"),
+              "-proc:none");
+      boolean compiled =
+          compiler
+              .getTask(
+                  null,
+                  fileManager,
+                  null,
+                  options,
+                  null,
+                  fileManager.getJavaFileObjectsFromPaths(files))
+              .call();
+      if (!compiled) {
+        throw new IllegalStateException("synthetic model did not compile");
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import org.hamcrest.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Verification of a generated domain model, cold (every class seen for the first time through a
+ * fresh class loader) and warm (metadata already resolved).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyntheticModelBenchmark {
+
+  @Param({"1000", "3000"})
+  public int entities;
+
+  @Param({"20", "200"})
+  public int fields;
+
+  private SyntheticModel model;
+
+  private List<Matcher<?>> rules;
+
+  private List<Class<?>> cold;
+
+  private List<Class<?>> warm;
+
+  @Setup(Level.Trial)
+  public void setUpModel() {
+    model = new SyntheticModel(entities, fields);
+    rules = new ArrayList<>();
+    rules.add(JpaMatchers.hasEntityAnnotation());
+    rules.add(
+        JpaMatchers.hasGeneratedValueAnnotation(
+            "id",
+            AnnotationMap.from(GeneratedValue.class).set("strategy", GenerationType.SEQUENCE)));
+    for (int field = 0; field < fields; field++) {
+      rules.add(
+          JpaMatchers.hasColumnAnnotation(
+              SyntheticModel.fieldName(field),
+              AnnotationMap.from(Column.class)
+                  .set("name", SyntheticModel.columnName(field))
+                  .set("length", 64 + field)));
+    }
+    warm = model.load(model.newClassLoader());
+    verify(warm);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpColdClasses() {
+    cold = model.load(model.newClassLoader());
+  }
+
+  @Benchmark
+  public int verifyCold() {
+    return verify(cold);
+  }
+
+  @Benchmark
+  public int verifyWarm() {
+    return verify(warm);
+  }
+
+  private int verify(List<Class<?>> types) {
+    int matched = 0;
+    for (Class<?> type : types) {
+      for (Matcher<?> rule : rules) {
+        if (rule.matches(type)) {
+          matched++;
+        }
+      }
+    }
+    if (matched != types.size() * rules.size()) {
+      throw new IllegalStateException("synthetic model did not match its own rules");
+    }
+    return matched;
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The attribute accessors of an annotation type as method handles, resolved once per type.
+ *
+ * <p>Each accessor is available both with its declared return type, for comparisons that avoid
+ * boxing, and adapted to return {@link Object}.
+ */
+final class AnnotationAttributes {
+
+  private static final ClassValue<AnnotationAttributes> CACHE =
+      new ClassValue<AnnotationAttributes>() {
+        @Override
+        protected AnnotationAttributes computeValue(Class<?> type) {
+          return new AnnotationAttributes(type.asSubclass(Annotation.class));
+        }
+      };
+
+  static AnnotationAttributes of(Class<? extends Annotation> annotationType) {
+    return CACHE.get(annotationType);
+  }
+
+  private final Class<? extends Annotation> annotationType;
+
+  private final Map<String, Attribute> attributes;
+
+  private AnnotationAttributes(Class<? extends Annotation> annotationType) {
+    this.annotationType = annotationType;
+    Map<String, Attribute> index = new HashMap<>();
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    for (Method method : annotationType.getDeclaredMethods()) {
+      if (method.getParameterCount() == 0) {
+        index.put(method.getName(), new Attribute(lookup, method, index.size()));
+      }
+    }
+    this.attributes = Collections.unmodifiableMap(index);
+  }
+
+  Attribute get(String name) {
+    Attribute attribute = attributes.get(name);
+    if (attribute == null) {
+      throw new IllegalArgumentException(
+          "@" + annotationType.getName() + " has no attribute named " + name);
+    }
+    return attribute;
+  }
+
+  Map<String, Attribute> getAttributes() {
+    return attributes;
+  }
+
+  int size() {
+    return attributes.size();
+  }
+
+  static final class Attribute {
+
+    private final String name;
+
+    private final int index;
+
+    private final Class<?> type;
+
+    private final Object defaultValue;
+
+    private final MethodHandle typed;
+
+    private final MethodHandle generic;
+
+    private Attribute(MethodHandles.Lookup lookup, Method method, int index) {
+      this.name = method.getName();
+      this.index = index;
+      this.type = method.getReturnType();
+      this.defaultValue = method.getDefaultValue();
+      try {
+        method.trySetAccessible();
+        MethodHandle handle = lookup.unreflect(method);
+        this.typed = handle.asType(MethodType.methodType(type, Annotation.class));
+        this.generic = handle.asType(MethodType.methodType(Object.class, Annotation.class));
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    String getName() {
+      return name;
+    }
+
+    /** The position of this attribute within its annotation type, from zero. */
+    int getIndex() {
+      return index;
+    }
+
+    Class<?> getType() {
+      return type;
+    }
+
+    Object getDefaultValue() {
+      return defaultValue;
+    }
+
+    /** A handle of type {@code (Annotation)R}, where {@code R} is the attribute's own type. */
+    MethodHandle typed() {
+      return typed;
+    }
+
+    Object get(Annotation annotation) {
+      try {
+        return generic.invokeExact(annotation);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.jpa.AnnotationAttributes.Attribute;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An annotation as recorded in a class file, holding only the attributes that were written
+ * explicitly. Enum constants and class literals are kept by name so that reading them never loads
+ * the classes they refer to.
+ */
+final class AnnotationData {
+
+  private final String typeName;
+
+  private final Map<String, Object> values;
+
+  AnnotationData(String typeName, Map<String, Object> values) {
+    this.typeName = typeName;
+    this.values = Collections.unmodifiableMap(values);
+  }
+
+  String getTypeName() {
+    return typeName;
+  }
+
+  Map<String, Object> getValues() {
+    return values;
+  }
+
+  Object get(Attribute attribute) {
+    Object value = values.get(attribute.getName());
+    return value == null ? attribute.getDefaultValue() : value;
+  }
+
+  static boolean valueMatches(Object expected, Object actual) {
+    if (expected instanceof Expectation) {
+      return ((Expectation<?>) expected).matchesAny(actual);
+    }
+    if (actual instanceof EnumConstant) {
+      return expected instanceof Enum && ((EnumConstant) actual).is((Enum<?>) expected);
+    }
+    if (actual instanceof ClassReference) {
+      return expected instanceof Class
+          && ((ClassReference) actual).getName().equals(((Class<?>) expected).getName());
+    }
+    if (actual instanceof AnnotationData) {
+      return expected instanceof Annotation
+          && ((AnnotationData) actual).matchesAnnotation((Annotation) expected);
+    }
+    if (expected instanceof Object[] && actual instanceof Object[]) {
+      Object[] expectedElements = (Object[]) expected;
+      Object[] actualElements = (Object[]) actual;
+      if (expectedElements.length != actualElements.length) {
+        return false;
+      }
+      for (int i = 0; i < expectedElements.length; i++) {
+        if (!valueMatches(expectedElements[i], actualElements[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return Objects.deepEquals(expected, actual);
+  }
+
+  private boolean matchesAnnotation(Annotation expected) {
+    if (!expected.annotationType().getName().equals(typeName)) {
+      return false;
+    }
+    for (Attribute attribute :
+        AnnotationAttributes.of(expected.annotationType()).getAttributes().values()) {
+      if (!valueMatches(attribute.get(expected), get(attribute))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "@" + typeName + values;
+  }
+
+  static String render(Object value) {
+    return value instanceof Object[]
+        ? Arrays.deepToString((Object[]) value)
+        : String.valueOf(value);
+  }
+
+  static final class EnumConstant {
+
+    private final String typeName;
+
+    private final String name;
+
+    EnumConstant(String typeName, String name) {
+      this.typeName = typeName;
+      this.name = name;
+    }
+
+    String getTypeName() {
+      return typeName;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    boolean is(Enum<?> constant) {
+      return constant.name().equals(name)
+          && constant.getDeclaringClass().getName().equals(typeName);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof EnumConstant)) {
+        return false;
+      }
+      EnumConstant other = (EnumConstant) obj;
+      return typeName.equals(other.typeName) && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(typeName, name);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  static final class ClassReference {
+
+    private final String name;
+
+    ClassReference(String name) {
+      this.name = name;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ClassReference && name.equals(((ClassReference) obj).name);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "class " + name;
+    }
+  }
+}
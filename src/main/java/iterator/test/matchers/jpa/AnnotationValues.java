@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.jpa.AnnotationAttributes.Attribute;
+import java.lang.annotation.Annotation;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An annotation instance together with the values of its array attributes, read once.
+ *
+ * <p>Annotation proxies return a fresh copy of an array attribute on every call, so comparing one
+ * directly would allocate on each match. The copies are kept here instead, against the long lived
+ * instances held by {@link EntityMetadata}, and must never be modified or handed out.
+ */
+final class AnnotationValues {
+
+  private static final AtomicReferenceArray<Object> NO_ARRAYS = new AtomicReferenceArray<>(0);
+
+  private final Annotation annotation;
+
+  private final AtomicReferenceArray<Object> arrays;
+
+  AnnotationValues(Annotation annotation) {
+    this.annotation = annotation;
+    AnnotationAttributes attributes = AnnotationAttributes.of(annotation.annotationType());
+    boolean hasArrays = false;
+    for (Attribute attribute : attributes.getAttributes().values()) {
+      hasArrays |= attribute.getType().isArray();
+    }
+    this.arrays = hasArrays ? new AtomicReferenceArray<>(attributes.size()) : NO_ARRAYS;
+  }
+
+  Annotation getAnnotation() {
+    return annotation;
+  }
+
+  Object get(Attribute attribute) {
+    if (!attribute.getType().isArray()) {
+      return attribute.get(annotation);
+    }
+    Object value = arrays.get(attribute.getIndex());
+    if (value == null) {
+      value = attribute.get(annotation);
+      arrays.set(attribute.getIndex(), value);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.ElementCollection;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+
+/**
+ * A relationship or element collection declared by a persistent field, with its target type
+ * resolved from the explicit target or the field's generic type and its fetch type resolved
+ * including the JPA defaults.
+ */
+final class Association {
+
+  enum Kind {
+    MANY_TO_ONE(ManyToOne.class, false),
+    ONE_TO_ONE(OneToOne.class, false),
+    ONE_TO_MANY(OneToMany.class, true),
+    MANY_TO_MANY(ManyToMany.class, true),
+    ELEMENT_COLLECTION(ElementCollection.class, true);
+
+    private final Class<? extends Annotation> annotationType;
+
+    private final boolean collection;
+
+    Kind(Class<? extends Annotation> annotationType, boolean collection) {
+      this.annotationType = annotationType;
+      this.collection = collection;
+    }
+
+    Class<? extends Annotation> getAnnotationType() {
+      return annotationType;
+    }
+
+    boolean isCollection() {
+      return collection;
+    }
+  }
+
+  static List<Association> of(EntityMetadata metadata) {
+    List<Association> associations = new ArrayList<>();
+    for (Field field : metadata.getFields().values()) {
+      for (Kind kind : Kind.values()) {
+        AnnotationValues values =
+            metadata.getFieldAnnotationValues(field.getName(), kind.annotationType);
+        if (values != null) {
+          associations.add(new Association(metadata.getType(), field, kind, values));
+        }
+      }
+    }
+    return associations.isEmpty() ? Collections.emptyList() : associations;
+  }
+
+  private final Class<?> owner;
+
+  private final Field field;
+
+  private final Kind kind;
+
+  private final Annotation annotation;
+
+  private final Class<?> target;
+
+  private final FetchType fetch;
+
+  private final String mappedBy;
+
+  private Association(Class<?> owner, Field field, Kind kind, AnnotationValues values) {
+    this.owner = owner;
+    this.field = field;
+    this.kind = kind;
+    this.annotation = values.getAnnotation();
+    AnnotationAttributes attributes = AnnotationAttributes.of(kind.annotationType);
+    Class<?> explicitTarget =
+        (Class<?>)
+            values.get(
+                attributes.get(kind == Kind.ELEMENT_COLLECTION ? "targetClass" : "targetEntity"));
+    this.target = explicitTarget == void.class ? resolveTarget(owner, field, kind) : explicitTarget;
+    this.fetch = (FetchType) values.get(attributes.get("fetch"));
+    this.mappedBy =
+        attributes.getAttributes().containsKey("mappedBy")
+            ? (String) values.get(attributes.get("mappedBy"))
+            : "";
+  }
+
+  Class<?> getOwner() {
+    return owner;
+  }
+
+  Field getField() {
+    return field;
+  }
+
+  String getFieldName() {
+    return field.getName();
+  }
+
+  Kind getKind() {
+    return kind;
+  }
+
+  <A extends Annotation> A getAnnotation(Class<A> annotationType) {
+    return annotationType.cast(annotation);
+  }
+
+  /** The associated entity or element type, or {@code null} if it cannot be resolved. */
+  Class<?> getTarget() {
+    return target;
+  }
+
+  FetchType getFetch() {
+    return fetch;
+  }
+
+  boolean isEager() {
+    return fetch == FetchType.EAGER;
+  }
+
+  boolean isCollection() {
+    return kind.isCollection();
+  }
+
+  String getMappedBy() {
+    return mappedBy;
+  }
+
+  /** Whether this side maps the relationship, as opposed to naming the owner with mappedBy. */
+  boolean isOwningSide() {
+    return kind != Kind.ELEMENT_COLLECTION && mappedBy.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return owner.getSimpleName() + "." + field.getName();
+  }
+
+  private static Class<?> resolveTarget(Class<?> owner, Field field, Kind kind) {
+    Type type = resolve(field.getGenericType(), typeArguments(owner, field.getDeclaringClass()));
+    if (!kind.isCollection()) {
+      return rawType(type);
+    }
+    if (type instanceof ParameterizedType) {
+      Class<?> raw = rawType(type);
+      Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+      if (Map.class.isAssignableFrom(raw) && arguments.length == 2) {
+        return rawType(arguments[1]);
+      }
+      if (Collection.class.isAssignableFrom(raw) && arguments.length == 1) {
+        return rawType(arguments[0]);
+      }
+    }
+    return null;
+  }
+
+  private static Map<TypeVariable<?>, Type> typeArguments(Class<?> owner, Class<?> declaringClass) {
+    Map<TypeVariable<?>, Type> arguments = new HashMap<>();
+    for (Class<?> type = owner;
+        type != null && type != declaringClass;
+        type = type.getSuperclass()) {
+      Type superclass = type.getGenericSuperclass();
+      if (superclass instanceof ParameterizedType) {
+        Type[] actual = ((ParameterizedType) superclass).getActualTypeArguments();
+        TypeVariable<?>[] variables = type.getSuperclass().getTypeParameters();
+        for (int i = 0; i < variables.length; i++) {
+          arguments.put(variables[i], resolve(actual[i], arguments));
+        }
+      }
+    }
+    return arguments;
+  }
+
+  private static Type resolve(Type type, Map<TypeVariable<?>, Type> arguments) {
+    if (type instanceof TypeVariable) {
+      Type argument = arguments.get(type);
+      return argument == null ? type : argument;
+    }
+    if (type instanceof ParameterizedType) {
+      ParameterizedType parameterized = (ParameterizedType) type;
+      Type[] actual = parameterized.getActualTypeArguments();
+      Type[] resolved = new Type[actual.length];
+      for (int i = 0; i < actual.length; i++) {
+        resolved[i] = resolve(actual[i], arguments);
+      }
+      return new ResolvedType(parameterized, resolved);
+    }
+    return type;
+  }
+
+  private static Class<?> rawType(Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    }
+    if (type instanceof ParameterizedType) {
+      return rawType(((ParameterizedType) type).getRawType());
+    }
+    if (type instanceof WildcardType) {
+      return rawType(((WildcardType) type).getUpperBounds()[0]);
+    }
+    if (type instanceof TypeVariable) {
+      return rawType(((TypeVariable<?>) type).getBounds()[0]);
+    }
+    return null;
+  }
+
+  private static final class ResolvedType implements ParameterizedType {
+
+    private final ParameterizedType type;
+
+    private final Type[] arguments;
+
+    ResolvedType(ParameterizedType type, Type[] arguments) {
+      this.type = type;
+      this.arguments = arguments;
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+      return arguments.clone();
+    }
+
+    @Override
+    public Type getRawType() {
+      return type.getRawType();
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return type.getOwnerType();
+    }
+  }
+}
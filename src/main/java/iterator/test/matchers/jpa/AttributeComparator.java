@@ -0,0 +1,348 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.jpa.AnnotationAttributes.Attribute;
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Compares one attribute of an annotation against an expected value, using a comparison chosen
+ * for the attribute's type when the expectation is compiled.
+ */
+abstract class AttributeComparator {
+
+  static AttributeComparator of(Attribute attribute, Object expected) {
+    Class<?> type = attribute.getType();
+    if (type.isPrimitive()
+        && MethodType.methodType(type).wrap().returnType().isInstance(expected)) {
+      if (type == boolean.class) {
+        return new BooleanComparator(attribute, (Boolean) expected);
+      }
+      if (type == long.class) {
+        return new LongComparator(attribute, (Long) expected);
+      }
+      if (type == float.class || type == double.class) {
+        return new DoubleComparator(attribute, expected);
+      }
+      return new IntComparator(attribute, expected);
+    }
+    if ((type.isEnum() || type == Class.class) && type.isInstance(expected)) {
+      return new IdentityComparator(attribute, expected);
+    }
+    if (type.isAnnotation() && expected instanceof AnnotationMap) {
+      return new NestedComparator(attribute, Expectation.of((AnnotationMap<?>) expected));
+    }
+    if (type.isArray() && type.getComponentType().isAnnotation() && expected instanceof Object[]) {
+      Object[] elements = (Object[]) expected;
+      if (Arrays.stream(elements).allMatch(AnnotationMap.class::isInstance)) {
+        Expectation<?>[] expectations = new Expectation<?>[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+          expectations[i] = Expectation.of((AnnotationMap<?>) elements[i]);
+        }
+        return new NestedArrayComparator(attribute, expectations);
+      }
+    }
+    if (type.isArray() && !type.getComponentType().isPrimitive() && expected instanceof Object[]) {
+      return new ArrayComparator(attribute, (Object[]) expected);
+    }
+    return new ValueComparator(attribute, expected);
+  }
+
+  final Attribute attribute;
+
+  AttributeComparator(Attribute attribute) {
+    this.attribute = attribute;
+  }
+
+  abstract Object getExpected();
+
+  abstract boolean matches(Annotation annotation);
+
+  boolean matches(AnnotationValues values) {
+    return matches(values.getAnnotation());
+  }
+
+  boolean matches(AnnotationData annotation) {
+    return AnnotationData.valueMatches(getExpected(), annotation.get(attribute));
+  }
+
+  /** The attribute's typed handle with its primitive result widened to the given type. */
+  private static MethodHandle widened(Attribute attribute, Class<?> type) {
+    return attribute.typed().asType(MethodType.methodType(type, Annotation.class));
+  }
+
+  static RuntimeException rethrow(Throwable throwable) {
+    if (throwable instanceof RuntimeException) {
+      return (RuntimeException) throwable;
+    }
+    if (throwable instanceof Error) {
+      throw (Error) throwable;
+    }
+    return new IllegalStateException(throwable);
+  }
+
+  /** Compares {@code int}, {@code short}, {@code byte} and {@code char} attributes as ints. */
+  private static final class IntComparator extends AttributeComparator {
+
+    private final MethodHandle handle;
+
+    private final Object boxed;
+
+    private final int expected;
+
+    IntComparator(Attribute attribute, Object expected) {
+      super(attribute);
+      this.handle = widened(attribute, int.class);
+      this.boxed = expected;
+      this.expected =
+          expected instanceof Character ? (Character) expected : ((Number) expected).intValue();
+    }
+
+    @Override
+    Object getExpected() {
+      return boxed;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      try {
+        return (int) handle.invokeExact(annotation) == expected;
+      } catch (Throwable e) {
+        throw rethrow(e);
+      }
+    }
+  }
+
+  private static final class LongComparator extends AttributeComparator {
+
+    private final MethodHandle handle;
+
+    private final long expected;
+
+    LongComparator(Attribute attribute, long expected) {
+      super(attribute);
+      this.handle = attribute.typed();
+      this.expected = expected;
+    }
+
+    @Override
+    Object getExpected() {
+      return expected;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      try {
+        return (long) handle.invokeExact(annotation) == expected;
+      } catch (Throwable e) {
+        throw rethrow(e);
+      }
+    }
+  }
+
+  /**
+   * Compares {@code float} and {@code double} attributes as doubles, which widening keeps exact,
+   * with the semantics of {@link Double#equals(Object)} so that {@code NaN} matches itself.
+   */
+  private static final class DoubleComparator extends AttributeComparator {
+
+    private final MethodHandle handle;
+
+    private final Object boxed;
+
+    private final double expected;
+
+    DoubleComparator(Attribute attribute, Object expected) {
+      super(attribute);
+      this.handle = widened(attribute, double.class);
+      this.boxed = expected;
+      this.expected = ((Number) expected).doubleValue();
+    }
+
+    @Override
+    Object getExpected() {
+      return boxed;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      try {
+        return Double.compare((double) handle.invokeExact(annotation), expected) == 0;
+      } catch (Throwable e) {
+        throw rethrow(e);
+      }
+    }
+  }
+
+  private static final class BooleanComparator extends AttributeComparator {
+
+    private final MethodHandle handle;
+
+    private final boolean expected;
+
+    BooleanComparator(Attribute attribute, boolean expected) {
+      super(attribute);
+      this.handle = attribute.typed();
+      this.expected = expected;
+    }
+
+    @Override
+    Object getExpected() {
+      return expected;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      try {
+        return (boolean) handle.invokeExact(annotation) == expected;
+      } catch (Throwable e) {
+        throw rethrow(e);
+      }
+    }
+  }
+
+  private static final class IdentityComparator extends AttributeComparator {
+
+    private final Object expected;
+
+    IdentityComparator(Attribute attribute, Object expected) {
+      super(attribute);
+      this.expected = expected;
+    }
+
+    @Override
+    Object getExpected() {
+      return expected;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      return attribute.get(annotation) == expected;
+    }
+  }
+
+  private static final class ArrayComparator extends AttributeComparator {
+
+    private final Object[] expected;
+
+    ArrayComparator(Attribute attribute, Object[] expected) {
+      super(attribute);
+      this.expected = expected.clone();
+    }
+
+    @Override
+    Object getExpected() {
+      return expected;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      return Arrays.equals(expected, (Object[]) attribute.get(annotation));
+    }
+
+    @Override
+    boolean matches(AnnotationValues values) {
+      return Arrays.equals(expected, (Object[]) values.get(attribute));
+    }
+  }
+
+  private static final class NestedComparator extends AttributeComparator {
+
+    private final Expectation<?> expected;
+
+    NestedComparator(Attribute attribute, Expectation<?> expected) {
+      super(attribute);
+      this.expected = expected;
+    }
+
+    @Override
+    Object getExpected() {
+      return expected;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      return expected.matchesAny((Annotation) attribute.get(annotation));
+    }
+  }
+
+  private static final class NestedArrayComparator extends AttributeComparator {
+
+    private final Expectation<?>[] expected;
+
+    NestedArrayComparator(Attribute attribute, Expectation<?>[] expected) {
+      super(attribute);
+      this.expected = expected;
+    }
+
+    @Override
+    Object getExpected() {
+      return expected;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      return matches((Annotation[]) attribute.get(annotation));
+    }
+
+    @Override
+    boolean matches(AnnotationValues values) {
+      return matches((Annotation[]) values.get(attribute));
+    }
+
+    private boolean matches(Annotation[] actual) {
+      if (actual.length != expected.length) {
+        return false;
+      }
+      for (int i = 0; i < actual.length; i++) {
+        if (!expected[i].matchesAny(actual[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class ValueComparator extends AttributeComparator {
+
+    private final Object expected;
+
+    ValueComparator(Attribute attribute, Object expected) {
+      super(attribute);
+      this.expected = expected;
+    }
+
+    @Override
+    Object getExpected() {
+      return expected;
+    }
+
+    @Override
+    boolean matches(Annotation annotation) {
+      return Objects.deepEquals(expected, attribute.get(annotation));
+    }
+
+    @Override
+    boolean matches(AnnotationValues values) {
+      return Objects.deepEquals(expected, values.get(attribute));
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.persistence.AssociationOverride;
+import javax.persistence.AssociationOverrides;
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.Column;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+
+/**
+ * A dotted path such as {@code address.postcode} to an attribute reached through {@code Embedded}
+ * or {@code EmbeddedId} fields and element collections of embeddables.
+ *
+ * <p>Paths are parsed once and shared by every matcher naming them, and each path is walked once
+ * per class. The annotations found at the end of the path are those in effect for the root class:
+ * an {@link AttributeOverride} or {@link AssociationOverride} on a field along the way replaces the
+ * embeddable's own {@link Column}, {@link JoinColumn} or {@link JoinTable}, the outermost override
+ * taking precedence.
+ */
+final class AttributePath {
+
+  private static final ConcurrentMap<String, AttributePath> PATHS = new ConcurrentHashMap<>();
+
+  private static final Object NONE = new Object();
+
+  static boolean isPath(String fieldName) {
+    return fieldName.indexOf('.') >= 0;
+  }
+
+  static AttributePath compile(String path) {
+    AttributePath compiled = PATHS.get(path);
+    return compiled == null ? PATHS.computeIfAbsent(path, AttributePath::new) : compiled;
+  }
+
+  private final String path;
+
+  private final String[] segments;
+
+  private final ClassValue<Resolution> resolutions =
+      new ClassValue<Resolution>() {
+        @Override
+        protected Resolution computeValue(Class<?> type) {
+          return new Resolution(EntityMetadata.of(type));
+        }
+      };
+
+  private AttributePath(String path) {
+    this.path = path;
+    this.segments = path.split("\\.", -1);
+    for (String segment : segments) {
+      if (segment.isEmpty()) {
+        throw new IllegalArgumentException("invalid attribute path " + path);
+      }
+    }
+  }
+
+  /** Resolves the path from a class, sharing the result unless the metadata is an overlay. */
+  Resolution resolve(EntityMetadata metadata) {
+    Resolution resolution = resolutions.get(metadata.getType());
+    return resolution.owners[0] == metadata ? resolution : new Resolution(metadata);
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+  final class Resolution {
+
+    private final EntityMetadata[] owners = new EntityMetadata[segments.length];
+
+    private final String problem;
+
+    private final List<Class<?>> embeddables;
+
+    private final ConcurrentMap<Class<? extends Annotation>, Object> annotations =
+        new ConcurrentHashMap<>();
+
+    private Resolution(EntityMetadata root) {
+      EntityMetadata owner = root;
+      String found = null;
+      for (int i = 0; i < segments.length && found == null; i++) {
+        owners[i] = owner;
+        if (!owner.hasField(segments[i])) {
+          found = "has no field " + path;
+        } else if (i < segments.length - 1) {
+          Class<?> target = owner.getTargetType(segments[i]);
+          if (target == null || FetchGraph.isEntity(target)) {
+            found = "cannot navigate " + path + ", " + prefix(i + 1) + " is not embedded";
+          } else {
+            owner = EntityMetadata.of(target);
+          }
+        }
+      }
+      this.problem = found;
+      List<Class<?>> reached = new ArrayList<>(segments.length - 1);
+      for (int i = 1; i < owners.length && owners[i] != null; i++) {
+        reached.add(owners[i].getType());
+      }
+      this.embeddables = Collections.unmodifiableList(reached);
+    }
+
+    /** The embeddables the path passes through, as far as it could be followed. */
+    List<Class<?>> getEmbeddables() {
+      return embeddables;
+    }
+
+    /** Why the path does not lead to an attribute, or {@code null} if it does. */
+    String getProblem() {
+      return problem;
+    }
+
+    AnnotationValues getAnnotationValues(Class<? extends Annotation> annotationType) {
+      Object values = annotations.get(annotationType);
+      if (values == null) {
+        values = effective(annotationType);
+        annotations.putIfAbsent(annotationType, values == null ? NONE : values);
+      }
+      return values == NONE ? null : (AnnotationValues) values;
+    }
+
+    private AnnotationValues effective(Class<? extends Annotation> annotationType) {
+      for (int i = 0; i < segments.length - 1; i++) {
+        Annotation override = override(owners[i], segments[i], suffix(i + 1), annotationType);
+        if (override != null) {
+          return new AnnotationValues(override);
+        }
+      }
+      int last = segments.length - 1;
+      return owners[last].getFieldAnnotationValues(segments[last], annotationType);
+    }
+
+    private String prefix(int length) {
+      return String.join(".", Arrays.copyOfRange(segments, 0, length));
+    }
+
+    private String suffix(int from) {
+      return String.join(".", Arrays.copyOfRange(segments, from, segments.length));
+    }
+  }
+
+  private static Annotation override(
+      EntityMetadata owner,
+      String fieldName,
+      String name,
+      Class<? extends Annotation> annotationType) {
+    if (annotationType == Column.class) {
+      AttributeOverrides container = owner.getFieldAnnotation(fieldName, AttributeOverrides.class);
+      AttributeOverride[] overrides =
+          container == null
+              ? new AttributeOverride[] {
+                owner.getFieldAnnotation(fieldName, AttributeOverride.class)
+              }
+              : container.value();
+      for (AttributeOverride override : overrides) {
+        if (override != null && override.name().equals(name)) {
+          return override.column();
+        }
+      }
+    } else if (annotationType == JoinColumn.class || annotationType == JoinTable.class) {
+      AssociationOverrides container =
+          owner.getFieldAnnotation(fieldName, AssociationOverrides.class);
+      AssociationOverride[] overrides =
+          container == null
+              ? new AssociationOverride[] {
+                owner.getFieldAnnotation(fieldName, AssociationOverride.class)
+              }
+              : container.value();
+      for (AssociationOverride override : overrides) {
+        if (override != null && override.name().equals(name)) {
+          if (annotationType == JoinColumn.class && override.joinColumns().length == 1) {
+            return override.joinColumns()[0];
+          }
+          if (annotationType == JoinTable.class && override.joinColumns().length == 0) {
+            return override.joinTable();
+          }
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinColumns;
+import javax.persistence.JoinTable;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Checks that both sides of an entity's relationships agree: that {@code mappedBy} names an
+ * association of the target of the inverse kind which owns the relationship and points back, that
+ * a relationship is not owned from both sides, and that a unidirectional {@code OneToMany} says
+ * how it is mapped. Two owning sides only map the same relationship if both write the same join
+ * columns, so a read-only mirror ({@code insertable = false, updatable = false}) or a join column
+ * of a different name is an independent mapping.
+ *
+ * <p>Targets are resolved from the field's generic type by {@link Association}, and each class's
+ * associations are resolved once and shared, so checking every entity of a persistence unit
+ * resolves every class exactly once.
+ */
+final class BidirectionalAssociationMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("entity whose bidirectional associations are mapped consistently");
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    EntityMetadata metadata = EntityMetadata.of(item);
+    List<String> problems = new ArrayList<>();
+    for (Association association : metadata.getAssociations()) {
+      if (association.getKind() != Association.Kind.ELEMENT_COLLECTION
+          && metadata.isPersistent(association.getFieldName())) {
+        check(metadata, association, problems);
+      }
+    }
+    if (problems.isEmpty()) {
+      return true;
+    }
+    mismatchDescription.appendValue(item).appendText(" has inconsistent associations:");
+    for (String problem : problems) {
+      mismatchDescription.appendText("\n  ").appendText(problem);
+    }
+    return false;
+  }
+
+  private static void check(EntityMetadata owner, Association association, List<String> problems) {
+    Class<?> target = association.getTarget();
+    if (!FetchGraph.isEntity(target)) {
+      problems.add(
+          association
+              + ": "
+              + (target == null
+                  ? "cannot resolve the target entity from the field type"
+                  : "target " + target.getName() + " is not an entity"));
+      return;
+    }
+    if (!association.isOwningSide()) {
+      checkInverse(owner, association, problems);
+      return;
+    }
+    if (association.getKind() == Association.Kind.MANY_TO_ONE) {
+      return;
+    }
+    Association other = otherOwner(owner, association);
+    if (other != null) {
+      problems.add(
+          association
+              + ": "
+              + other
+              + " also owns the relationship, declare "
+              + (association.getKind() == Association.Kind.ONE_TO_MANY
+                  ? "mappedBy = \"" + other.getFieldName() + "\""
+                  : "mappedBy on one side"));
+    } else if (association.getKind() == Association.Kind.ONE_TO_MANY
+        && owner.getFieldAnnotation(association.getFieldName(), JoinColumn.class) == null
+        && owner.getFieldAnnotation(association.getFieldName(), JoinColumns.class) == null
+        && owner.getFieldAnnotation(association.getFieldName(), JoinTable.class) == null) {
+      problems.add(
+          association + ": unidirectional one-to-many without @JoinColumn maps a join table");
+    }
+  }
+
+  private static void checkInverse(
+      EntityMetadata owner, Association association, List<String> problems) {
+    String mappedBy = association.getMappedBy();
+    String[] path = mappedBy.split("\\.");
+    Class<?> type = association.getTarget();
+    for (int i = 0; i < path.length - 1 && type != null; i++) {
+      type = EntityMetadata.of(type).getTargetType(path[i]);
+    }
+    Association inverse = type == null ? null : find(type, path[path.length - 1]);
+    Association.Kind expected = inverseKind(association.getKind());
+    if (inverse == null) {
+      problems.add(
+          association
+              + ": mappedBy \""
+              + mappedBy
+              + "\" names no association of "
+              + association.getTarget().getSimpleName());
+    } else if (inverse.getKind() != expected) {
+      problems.add(
+          association
+              + ": "
+              + inverse
+              + " is "
+              + render(inverse.getKind())
+              + ", expected "
+              + render(expected));
+    } else if (!inverse.isOwningSide()) {
+      problems.add(
+          association + ": " + inverse + " also declares mappedBy, so neither side owns it");
+    } else if (inverse.getTarget() == null
+        || !inverse.getTarget().isAssignableFrom(owner.getType())) {
+      problems.add(
+          association
+              + ": "
+              + inverse
+              + " targets "
+              + (inverse.getTarget() == null ? "nothing" : inverse.getTarget().getSimpleName())
+              + ", not "
+              + owner.getType().getSimpleName());
+    }
+  }
+
+  /**
+   * The single association of the target that maps the same relationship as an owning one, writing
+   * the same join columns without being claimed by a mappedBy, provided the pairing is unambiguous.
+   */
+  private static Association otherOwner(EntityMetadata owner, Association association) {
+    Association.Kind kind = association.getKind();
+    Class<?> target = association.getTarget();
+    int owning = 0;
+    for (Association candidate : owner.getAssociations()) {
+      if (candidate.getKind() == kind
+          && candidate.isOwningSide()
+          && candidate.getTarget() == target) {
+        owning++;
+      }
+    }
+    Association other = null;
+    int others = 0;
+    for (Association candidate : EntityMetadata.of(target).getAssociations()) {
+      if (candidate.getKind() == inverseKind(kind)
+          && candidate.isOwningSide()
+          && !candidate.getField().equals(association.getField())
+          && candidate.getTarget() != null
+          && candidate.getTarget().isAssignableFrom(owner.getType())
+          && !isClaimed(owner, candidate)
+          && sharesJoinColumns(owner, association, candidate)) {
+        other = candidate;
+        others++;
+      }
+    }
+    return owning == 1 && others == 1 ? other : null;
+  }
+
+  /**
+   * Whether both owning sides write the same join columns. A one-to-many without join columns maps
+   * a join table, and a many-to-many always does, so either duplicates the other side. Columns
+   * whose names cannot be determined are assumed to be shared.
+   */
+  private static boolean sharesJoinColumns(
+      EntityMetadata owner, Association association, Association candidate) {
+    if (association.getKind() == Association.Kind.MANY_TO_MANY) {
+      return true;
+    }
+    EntityMetadata target = EntityMetadata.of(association.getTarget());
+    JoinColumn[] ownColumns = joinColumns(owner, association.getFieldName());
+    JoinColumn[] otherColumns = joinColumns(target, candidate.getFieldName());
+    if (isReadOnly(ownColumns) || isReadOnly(otherColumns)) {
+      return false;
+    }
+    boolean oneToMany = association.getKind() == Association.Kind.ONE_TO_MANY;
+    if (oneToMany && ownColumns.length == 0) {
+      return true;
+    }
+    Set<String> own =
+        columnNames(
+            ownColumns,
+            oneToMany ? ColumnNames.entityName(owner) : association.getFieldName(),
+            oneToMany ? owner.getType() : association.getTarget());
+    Set<String> other = columnNames(otherColumns, candidate.getFieldName(), candidate.getTarget());
+    return own == null || other == null || own.equals(other);
+  }
+
+  private static JoinColumn[] joinColumns(EntityMetadata metadata, String fieldName) {
+    JoinColumns joinColumns = metadata.getFieldAnnotation(fieldName, JoinColumns.class);
+    if (joinColumns != null) {
+      return joinColumns.value();
+    }
+    JoinColumn joinColumn = metadata.getFieldAnnotation(fieldName, JoinColumn.class);
+    return joinColumn == null ? new JoinColumn[0] : new JoinColumn[] {joinColumn};
+  }
+
+  private static boolean isReadOnly(JoinColumn[] joinColumns) {
+    for (JoinColumn joinColumn : joinColumns) {
+      if (joinColumn.insertable() || joinColumn.updatable()) {
+        return false;
+      }
+    }
+    return joinColumns.length > 0;
+  }
+
+  /** The normalized join column names, or {@code null} if any cannot be determined. */
+  private static Set<String> columnNames(
+      JoinColumn[] joinColumns, String prefix, Class<?> referenced) {
+    Set<String> names = new HashSet<>();
+    for (JoinColumn joinColumn : joinColumns.length == 0 ? new JoinColumn[] {null} : joinColumns) {
+      String name = ColumnNames.joinColumn(joinColumn, prefix, referenced);
+      if (name == null) {
+        return null;
+      }
+      names.add(ColumnNames.normalize(name));
+    }
+    return names;
+  }
+
+  private static boolean isClaimed(EntityMetadata owner, Association candidate) {
+    for (Association association : owner.getAssociations()) {
+      if (association.getTarget() == candidate.getOwner()
+          && association.getMappedBy().equals(candidate.getFieldName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Association find(Class<?> type, String fieldName) {
+    EntityMetadata metadata = EntityMetadata.of(type);
+    if (!metadata.isPersistent(fieldName)) {
+      return null;
+    }
+    for (Association association : metadata.getAssociations()) {
+      if (association.getFieldName().equals(fieldName)) {
+        return association;
+      }
+    }
+    return null;
+  }
+
+  private static Association.Kind inverseKind(Association.Kind kind) {
+    switch (kind) {
+      case ONE_TO_MANY:
+        return Association.Kind.MANY_TO_ONE;
+      default:
+        return kind;
+    }
+  }
+
+  private static String render(Association.Kind kind) {
+    return "@" + kind.getAnnotationType().getSimpleName();
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.persistence.Cacheable;
+import javax.persistence.SharedCacheMode;
+
+/**
+ * The entities that must and must not be held in the shared cache under a given {@link
+ * SharedCacheMode}, for checking a whole persistence unit at once. Every entity the policy names
+ * must be among those checked, so a renamed or unscanned entity is reported rather than skipped.
+ *
+ * <p>{@link SharedCacheMode#UNSPECIFIED} is treated as {@link SharedCacheMode#ENABLE_SELECTIVE},
+ * as the most common providers do.
+ */
+public final class CachePolicy {
+
+  public static CachePolicy under(SharedCacheMode mode) {
+    if (mode == null) {
+      throw new IllegalArgumentException("mode must not be null");
+    }
+    return new CachePolicy(mode);
+  }
+
+  /** Whether the given entity is cached under the given mode, honouring inherited annotations. */
+  static boolean isCached(Class<?> type, SharedCacheMode mode) {
+    Cacheable cacheable = EntityMetadata.of(type).getTypeAnnotation(Cacheable.class);
+    switch (mode) {
+      case ALL:
+        return true;
+      case NONE:
+        return false;
+      case DISABLE_SELECTIVE:
+        return cacheable == null || cacheable.value();
+      default:
+        return cacheable != null && cacheable.value();
+    }
+  }
+
+  private final SharedCacheMode mode;
+
+  private final Set<Class<?>> cached = new LinkedHashSet<>();
+
+  private final Set<Class<?>> notCached = new LinkedHashSet<>();
+
+  private boolean otherwiseNotCached;
+
+  private CachePolicy(SharedCacheMode mode) {
+    this.mode = mode;
+  }
+
+  public CachePolicy cached(Class<?>... types) {
+    return add(cached, notCached, types);
+  }
+
+  public CachePolicy notCached(Class<?>... types) {
+    return add(notCached, cached, types);
+  }
+
+  /** Requires every entity not named by {@link #cached(Class[])} to stay out of the cache. */
+  public CachePolicy otherwiseNotCached() {
+    otherwiseNotCached = true;
+    return this;
+  }
+
+  public SharedCacheMode getMode() {
+    return mode;
+  }
+
+  public Set<Class<?>> getCached() {
+    return Collections.unmodifiableSet(cached);
+  }
+
+  public Set<Class<?>> getNotCached() {
+    return Collections.unmodifiableSet(notCached);
+  }
+
+  /**
+   * Describes how the given entity violates this policy, or returns {@code null} if it complies or
+   * the policy says nothing about it.
+   */
+  String violation(Class<?> type) {
+    boolean actual = isCached(type, mode);
+    if (cached.contains(type) && !actual) {
+      return type.getName() + " must be cached but is not";
+    }
+    if ((notCached.contains(type) || otherwiseNotCached && !cached.contains(type)) && actual) {
+      return type.getName() + " must not be cached but is";
+    }
+    return null;
+  }
+
+  private CachePolicy add(Set<Class<?>> target, Set<Class<?>> other, Class<?>... types) {
+    for (Class<?> type : types) {
+      if (other.contains(type)) {
+        throw new IllegalArgumentException(type.getName() + " is already in the policy");
+      }
+    }
+    target.addAll(Arrays.asList(types));
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "cache policy under "
+        + mode
+        + " caching "
+        + cached.size()
+        + " and excluding "
+        + (otherwiseNotCached ? "all other" : String.valueOf(notCached.size()))
+        + " entities";
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+final class CachePolicyMatcher extends TypeSafeDiagnosingMatcher<Iterable<? extends Class<?>>> {
+
+  private final CachePolicy policy;
+
+  CachePolicyMatcher(CachePolicy policy) {
+    this.policy = policy;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("entities complying with a ").appendText(policy.toString());
+  }
+
+  @Override
+  protected boolean matchesSafely(
+      Iterable<? extends Class<?>> item, Description mismatchDescription) {
+    List<String> violations = new ArrayList<>();
+    Set<Class<?>> unseen = new LinkedHashSet<>(policy.getCached());
+    unseen.addAll(policy.getNotCached());
+    for (Class<?> type : item) {
+      unseen.remove(type);
+      String violation = policy.violation(type);
+      if (violation != null) {
+        violations.add(violation);
+      }
+    }
+    for (Class<?> type : unseen) {
+      violations.add(type.getName() + " is named by the policy but was not checked");
+    }
+    if (violations.isEmpty()) {
+      return true;
+    }
+    mismatchDescription.appendText(violations.size() + " entities violate the policy:");
+    for (String violation : violations) {
+      mismatchDescription.appendText("\n  ").appendText(violation);
+    }
+    return false;
+  }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.jpa.AnnotationAttributes.Attribute;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Renders annotation values as single-line text that is identical for equal values, whatever
+ * order the attributes were declared or written in.
+ */
+final class CanonicalForm {
+
+  static final String PERSISTENCE_PACKAGE = "javax.persistence.";
+
+  static boolean isMappingAnnotation(String annotationTypeName) {
+    return annotationTypeName.startsWith(PERSISTENCE_PACKAGE);
+  }
+
+  static String render(Annotation annotation) {
+    Map<String, Object> values = new TreeMap<>();
+    for (Attribute attribute :
+        AnnotationAttributes.of(annotation.annotationType()).getAttributes().values()) {
+      values.put(attribute.getName(), attribute.get(annotation));
+    }
+    return render(annotation.annotationType().getName(), values);
+  }
+
+  /**
+   * Renders an annotation read from a class file as {@link #render(Annotation)} renders the same
+   * annotation read by reflection, filling in defaults, and leaving out any attribute the filter
+   * rejects.
+   */
+  static String render(AnnotationData annotation, Predicate<String> attributeFilter) {
+    Map<String, Object> values = new TreeMap<>();
+    Class<? extends Annotation> annotationType = annotationType(annotation.getTypeName());
+    if (annotationType == null) {
+      values.putAll(annotation.getValues());
+    } else {
+      for (Attribute attribute : AnnotationAttributes.of(annotationType).getAttributes().values()) {
+        values.put(attribute.getName(), annotation.get(attribute));
+      }
+    }
+    values.keySet().removeIf(attributeFilter.negate());
+    return render(annotation.getTypeName(), values);
+  }
+
+  static String render(String annotationTypeName, Map<String, Object> sortedValues) {
+    StringBuilder builder = new StringBuilder();
+    appendAnnotation(builder, annotationTypeName, sortedValues);
+    return builder.toString();
+  }
+
+  private static void appendAnnotation(
+      StringBuilder builder, String annotationTypeName, Map<String, Object> sortedValues) {
+    builder.append('@').append(annotationTypeName).append('(');
+    String separator = "";
+    for (Map.Entry<String, Object> value : sortedValues.entrySet()) {
+      builder.append(separator).append(value.getKey()).append('=');
+      appendValue(builder, value.getValue());
+      separator = ", ";
+    }
+    builder.append(')');
+  }
+
+  private static void appendValue(StringBuilder builder, Object value) {
+    if (value instanceof String) {
+      appendString(builder, (String) value);
+    } else if (value instanceof Enum) {
+      builder.append(((Enum<?>) value).name());
+    } else if (value instanceof Class) {
+      builder.append(((Class<?>) value).getName()).append(".class");
+    } else if (value instanceof Annotation) {
+      builder.append(render((Annotation) value));
+    } else if (value instanceof AnnotationData) {
+      builder.append(render((AnnotationData) value, attribute -> true));
+    } else if (value instanceof AnnotationData.ClassReference) {
+      builder.append(((AnnotationData.ClassReference) value).getName()).append(".class");
+    } else if (value instanceof Expectation) {
+      builder.append(((Expectation<?>) value).canonical());
+    } else if (value instanceof Character) {
+      builder.append('\'').append(escape(value.toString())).append('\'');
+    } else if (value != null && value.getClass().isArray()) {
+      builder.append('{');
+      for (int i = 0; i < Array.getLength(value); i++) {
+        if (i > 0) {
+          builder.append(", ");
+        }
+        appendValue(builder, Array.get(value, i));
+      }
+      builder.append('}');
+    } else {
+      builder.append(value);
+    }
+  }
+
+  private static Class<? extends Annotation> annotationType(String annotationTypeName) {
+    try {
+      Class<?> type =
+          Class.forName(annotationTypeName, false, CanonicalForm.class.getClassLoader());
+      return type.isAnnotation() ? type.asSubclass(Annotation.class) : null;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return null;
+    }
+  }
+
+  private static void appendString(StringBuilder builder, String value) {
+    builder.append('"').append(escape(value)).append('"');
+  }
+
+  private static String escape(String value) {
+    StringBuilder escaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+        case '\\':
+          escaped.append('\\').append(c);
+          break;
+        case '\n':
+          escaped.append("\\n");
+          break;
+        case '\r':
+          escaped.append("\\r");
+          break;
+        case '\t':
+          escaped.append("\\t");
+          break;
+        default:
+          escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+
+  private CanonicalForm() {
+    throw new IllegalStateException();
+  }
+}
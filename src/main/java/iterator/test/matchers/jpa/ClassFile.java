@@ -0,0 +1,294 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The mapping annotations of a class as read directly from its class file, without loading,
+ * linking or initialising the class or anything it refers to.
+ */
+public final class ClassFile {
+
+  public static ClassFile read(Path classFile) {
+    try (FileChannel channel = FileChannel.open(classFile, StandardOpenOption.READ)) {
+      return new ClassFileReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()))
+          .read();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static ClassFile read(byte[] classFile) {
+    return new ClassFileReader(ByteBuffer.wrap(classFile)).read();
+  }
+
+  public static List<ClassFile> readAll(Path classPathRoot) {
+    try {
+      return Files.isDirectory(classPathRoot)
+          ? readDirectory(classPathRoot)
+          : readJar(classPathRoot);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static List<ClassFile> readDirectory(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths.filter(ClassFile::isClassFile).collect(Collectors.toList()).parallelStream()
+          .map(ClassFile::read)
+          .sorted(Comparator.comparing(ClassFile::getName))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static List<ClassFile> readJar(Path jar) throws IOException {
+    try (JarFile jarFile = new JarFile(jar.toFile())) {
+      List<JarEntry> entries = new ArrayList<>();
+      Enumeration<JarEntry> enumeration = jarFile.entries();
+      while (enumeration.hasMoreElements()) {
+        JarEntry entry = enumeration.nextElement();
+        if (isClassFile(entry.getName()) && !entry.getName().startsWith("META-INF/")) {
+          entries.add(entry);
+        }
+      }
+      return entries.parallelStream()
+          .map(entry -> read(jarFile, entry))
+          .sorted(Comparator.comparing(ClassFile::getName))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static ClassFile read(JarFile jarFile, JarEntry entry) {
+    try (InputStream input = jarFile.getInputStream(entry)) {
+      return read(input.readAllBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Starts a class file assembled from precomputed values rather than read from bytes, as generated
+   * by {@code iterator.test.matchers.jpa.processor.EntityMappingProcessor}.
+   */
+  public static Builder builder(String name, String superclassName, int modifiers) {
+    return new Builder(name, superclassName, modifiers);
+  }
+
+  public static Object enumValue(String typeName, String name) {
+    return new AnnotationData.EnumConstant(typeName, name);
+  }
+
+  public static Object classValue(String name) {
+    return new AnnotationData.ClassReference(name);
+  }
+
+  public static Object annotationValue(String typeName, Object... namesAndValues) {
+    return new AnnotationData(typeName, values(namesAndValues));
+  }
+
+  private static Map<String, Object> values(Object[] namesAndValues) {
+    if (namesAndValues.length % 2 != 0) {
+      throw new IllegalArgumentException("expected attribute names and values in pairs");
+    }
+    Map<String, Object> values = new HashMap<>(namesAndValues.length);
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return values;
+  }
+
+  private static boolean isClassFile(Path path) {
+    return Files.isRegularFile(path) && isClassFile(path.getFileName().toString());
+  }
+
+  private static boolean isClassFile(String name) {
+    return name.endsWith(".class")
+        && !name.endsWith("module-info.class")
+        && !name.endsWith("package-info.class");
+  }
+
+  private final String name;
+
+  private final String superclassName;
+
+  private final int accessFlags;
+
+  private final Map<String, AnnotationData> typeAnnotations;
+
+  private final Map<String, FieldInfo> fields;
+
+  ClassFile(
+      String name,
+      String superclassName,
+      int accessFlags,
+      Map<String, AnnotationData> typeAnnotations,
+      Map<String, FieldInfo> fields) {
+    this.name = name;
+    this.superclassName = superclassName;
+    this.accessFlags = accessFlags;
+    this.typeAnnotations = Collections.unmodifiableMap(typeAnnotations);
+    this.fields = Collections.unmodifiableMap(fields);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getSuperclassName() {
+    return superclassName;
+  }
+
+  public int getModifiers() {
+    return accessFlags;
+  }
+
+  public Set<String> getFieldNames() {
+    return fields.keySet();
+  }
+
+  public boolean isAnnotatedWith(Class<? extends Annotation> annotationType) {
+    return typeAnnotations.containsKey(annotationType.getName());
+  }
+
+  Map<String, AnnotationData> getTypeAnnotations() {
+    return typeAnnotations;
+  }
+
+  AnnotationData getTypeAnnotation(Class<? extends Annotation> annotationType) {
+    return typeAnnotations.get(annotationType.getName());
+  }
+
+  Map<String, FieldInfo> getFields() {
+    return fields;
+  }
+
+  FieldInfo getField(String fieldName) {
+    return fields.get(fieldName);
+  }
+
+  @Override
+  public String toString() {
+    return "class file of " + name;
+  }
+
+  public static final class Builder {
+
+    private final String name;
+
+    private final String superclassName;
+
+    private final int modifiers;
+
+    private final Map<String, AnnotationData> typeAnnotations = new LinkedHashMap<>();
+
+    private final Map<String, FieldInfo> fields = new LinkedHashMap<>();
+
+    private Map<String, AnnotationData> annotations = typeAnnotations;
+
+    private Builder(String name, String superclassName, int modifiers) {
+      this.name = name;
+      this.superclassName = superclassName;
+      this.modifiers = modifiers;
+    }
+
+    /** Adds an annotation to the last field added, or to the class if no field was added yet. */
+    public Builder annotation(String typeName, Object... namesAndValues) {
+      annotations.put(typeName, new AnnotationData(typeName, values(namesAndValues)));
+      return this;
+    }
+
+    public Builder field(String fieldName, String descriptor, int fieldModifiers) {
+      annotations = new LinkedHashMap<>();
+      fields.put(fieldName, new FieldInfo(fieldName, descriptor, fieldModifiers, annotations));
+      return this;
+    }
+
+    public ClassFile build() {
+      return new ClassFile(
+          name,
+          superclassName,
+          modifiers,
+          new LinkedHashMap<>(typeAnnotations),
+          new LinkedHashMap<>(fields));
+    }
+  }
+
+  static final class FieldInfo {
+
+    private final String name;
+
+    private final String descriptor;
+
+    private final int accessFlags;
+
+    private final Map<String, AnnotationData> annotations;
+
+    FieldInfo(
+        String name, String descriptor, int accessFlags, Map<String, AnnotationData> annotations) {
+      this.name = name;
+      this.descriptor = descriptor;
+      this.accessFlags = accessFlags;
+      this.annotations = Collections.unmodifiableMap(annotations);
+    }
+
+    String getName() {
+      return name;
+    }
+
+    String getTypeName() {
+      return ClassFileReader.typeName(descriptor);
+    }
+
+    boolean isStatic() {
+      return Modifier.isStatic(accessFlags);
+    }
+
+    boolean isTransient() {
+      return Modifier.isTransient(accessFlags);
+    }
+
+    Map<String, AnnotationData> getAnnotations() {
+      return annotations;
+    }
+
+    AnnotationData getAnnotation(Class<? extends Annotation> annotationType) {
+      return annotations.get(annotationType.getName());
+    }
+  }
+}
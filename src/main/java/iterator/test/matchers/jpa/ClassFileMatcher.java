@@ -0,0 +1,51 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/** Evaluates a matcher created by {@link JpaMatchers} against a {@link ClassFile}. */
+final class ClassFileMatcher extends TypeSafeDiagnosingMatcher<ClassFile> {
+
+  static ClassFileMatcher of(Matcher<?> matcher) {
+    if (!(matcher instanceof EntityAnnotationMatcher) && !(matcher instanceof EntityMappingSpec)) {
+      throw new IllegalArgumentException(
+          "only annotation matchers created by JpaMatchers can be evaluated against a class file");
+    }
+    return new ClassFileMatcher(matcher);
+  }
+
+  private final Matcher<?> matcher;
+
+  private ClassFileMatcher(Matcher<?> matcher) {
+    this.matcher = matcher;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("class file of ").appendDescriptionOf(matcher);
+  }
+
+  @Override
+  protected boolean matchesSafely(ClassFile item, Description mismatchDescription) {
+    if (matcher instanceof EntityMappingSpec) {
+      return ((EntityMappingSpec) matcher).matches(item, mismatchDescription);
+    }
+    return ((EntityAnnotationMatcher<?>) matcher).matches(item, mismatchDescription);
+  }
+}
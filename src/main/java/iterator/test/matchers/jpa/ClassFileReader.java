@@ -0,0 +1,283 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.jpa.AnnotationData.ClassReference;
+import iterator.test.matchers.jpa.AnnotationData.EnumConstant;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the names, fields and {@code RuntimeVisibleAnnotations} of a class file, skipping
+ * everything else.
+ */
+final class ClassFileReader {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+  private final ByteBuffer buffer;
+
+  private int[] offsets;
+
+  private String[] strings;
+
+  ClassFileReader(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  ClassFile read() {
+    if (buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("not a class file");
+    }
+    buffer.position(8);
+    readConstantPool();
+    int accessFlags = u2();
+    String name = className(u2());
+    int superclassIndex = u2();
+    String superclassName = superclassIndex == 0 ? null : className(superclassIndex);
+    skip(2 * u2());
+    Map<String, ClassFile.FieldInfo> fields = new LinkedHashMap<>();
+    for (int i = u2(); i > 0; i--) {
+      int fieldAccessFlags = u2();
+      String fieldName = utf8(u2());
+      String descriptor = utf8(u2());
+      fields.put(
+          fieldName,
+          new ClassFile.FieldInfo(fieldName, descriptor, fieldAccessFlags, readAttributes()));
+    }
+    for (int i = u2(); i > 0; i--) {
+      skip(6);
+      skipAttributes();
+    }
+    return new ClassFile(name, superclassName, accessFlags, readAttributes(), fields);
+  }
+
+  private void readConstantPool() {
+    int count = u2();
+    offsets = new int[count];
+    strings = new String[count];
+    for (int i = 1; i < count; i++) {
+      offsets[i] = buffer.position();
+      int tag = u1();
+      switch (tag) {
+        case 1:
+          skip(u2());
+          break;
+        case 5:
+        case 6:
+          skip(8);
+          i++;
+          break;
+        case 3:
+        case 4:
+        case 9:
+        case 10:
+        case 11:
+        case 12:
+        case 17:
+        case 18:
+          skip(4);
+          break;
+        case 15:
+          skip(3);
+          break;
+        case 7:
+        case 8:
+        case 16:
+        case 19:
+        case 20:
+          skip(2);
+          break;
+        default:
+          throw new IllegalArgumentException("unknown constant pool tag " + tag);
+      }
+    }
+  }
+
+  private Map<String, AnnotationData> readAttributes() {
+    Map<String, AnnotationData> annotations = Collections.emptyMap();
+    for (int i = u2(); i > 0; i--) {
+      String attributeName = utf8(u2());
+      int length = buffer.getInt();
+      int end = buffer.position() + length;
+      if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+        annotations = new LinkedHashMap<>();
+        for (int j = u2(); j > 0; j--) {
+          AnnotationData annotation = readAnnotation();
+          annotations.put(annotation.getTypeName(), annotation);
+        }
+      }
+      buffer.position(end);
+    }
+    return annotations;
+  }
+
+  private void skipAttributes() {
+    for (int i = u2(); i > 0; i--) {
+      skip(2);
+      skip(buffer.getInt());
+    }
+  }
+
+  private AnnotationData readAnnotation() {
+    String typeName = typeName(utf8(u2()));
+    int count = u2();
+    Map<String, Object> values = new HashMap<>(count * 2);
+    for (int i = 0; i < count; i++) {
+      String name = utf8(u2());
+      values.put(name, readElementValue());
+    }
+    return new AnnotationData(typeName, values);
+  }
+
+  private Object readElementValue() {
+    char tag = (char) u1();
+    switch (tag) {
+      case 'B':
+        return (byte) integer(u2());
+      case 'C':
+        return (char) integer(u2());
+      case 'S':
+        return (short) integer(u2());
+      case 'Z':
+        return integer(u2()) != 0;
+      case 'I':
+        return integer(u2());
+      case 'J':
+        return buffer.getLong(offsets[u2()] + 1);
+      case 'F':
+        return buffer.getFloat(offsets[u2()] + 1);
+      case 'D':
+        return buffer.getDouble(offsets[u2()] + 1);
+      case 's':
+        return utf8(u2());
+      case 'e':
+        String enumType = typeName(utf8(u2()));
+        return new EnumConstant(enumType, utf8(u2()));
+      case 'c':
+        return new ClassReference(typeName(utf8(u2())));
+      case '@':
+        return readAnnotation();
+      case '[':
+        Object[] elements = new Object[u2()];
+        for (int i = 0; i < elements.length; i++) {
+          elements[i] = readElementValue();
+        }
+        return elements;
+      default:
+        throw new IllegalArgumentException("unknown element value tag " + tag);
+    }
+  }
+
+  private int integer(int index) {
+    return buffer.getInt(offsets[index] + 1);
+  }
+
+  private String className(int index) {
+    return utf8(buffer.getShort(offsets[index] + 1) & 0xFFFF).replace('/', '.');
+  }
+
+  private String utf8(int index) {
+    String value = strings[index];
+    if (value == null) {
+      int offset = offsets[index];
+      int length = buffer.getShort(offset + 1) & 0xFFFF;
+      value = decode(offset + 3, length);
+      strings[index] = value;
+    }
+    return value;
+  }
+
+  /** Decodes modified UTF-8, which differs from UTF-8 only for NUL and supplementary characters. */
+  private String decode(int offset, int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(offset + i);
+      if (bytes[i] < 0) {
+        return decodeModified(offset, length);
+      }
+    }
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+
+  private String decodeModified(int offset, int length) {
+    StringBuilder builder = new StringBuilder(length);
+    int end = offset + length;
+    int position = offset;
+    while (position < end) {
+      int first = buffer.get(position++) & 0xFF;
+      if (first < 0x80) {
+        builder.append((char) first);
+      } else if ((first & 0xE0) == 0xC0) {
+        builder.append((char) (((first & 0x1F) << 6) | (buffer.get(position++) & 0x3F)));
+      } else {
+        int second = buffer.get(position++) & 0x3F;
+        int third = buffer.get(position++) & 0x3F;
+        builder.append((char) (((first & 0x0F) << 12) | (second << 6) | third));
+      }
+    }
+    return builder.toString();
+  }
+
+  private void skip(int length) {
+    buffer.position(buffer.position() + length);
+  }
+
+  private int u1() {
+    return buffer.get() & 0xFF;
+  }
+
+  private int u2() {
+    return buffer.getShort() & 0xFFFF;
+  }
+
+  /**
+   * Turns a field descriptor such as {@code Ljava/lang/String;} or {@code I} into the name {@link
+   * Class#getName()} would give.
+   */
+  static String typeName(String descriptor) {
+    switch (descriptor.charAt(0)) {
+      case 'B':
+        return "byte";
+      case 'C':
+        return "char";
+      case 'D':
+        return "double";
+      case 'F':
+        return "float";
+      case 'I':
+        return "int";
+      case 'J':
+        return "long";
+      case 'S':
+        return "short";
+      case 'Z':
+        return "boolean";
+      case 'V':
+        return "void";
+      case '[':
+        return descriptor.replace('/', '.');
+      default:
+        return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+    }
+  }
+}
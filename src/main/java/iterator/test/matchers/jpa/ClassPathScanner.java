@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/** Lists the binary names of the classes found in a class directory or jar. */
+final class ClassPathScanner {
+
+  private static final String CLASS_SUFFIX = ".class";
+
+  static List<String> classNames(ClassLoader classLoader, String packageName) {
+    String packagePath = packageName.replace('.', '/');
+    List<String> classNames = new ArrayList<>();
+    try {
+      Enumeration<URL> resources = classLoader.getResources(packagePath);
+      while (resources.hasMoreElements()) {
+        classNames.addAll(classNames(resources.nextElement(), packagePath));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return classNames;
+  }
+
+  static List<String> classNames(Path classPathRoot) {
+    try {
+      return Files.isDirectory(classPathRoot)
+          ? classNamesInDirectory(classPathRoot, classPathRoot)
+          : classNamesInJar(classPathRoot, "");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static List<String> classNames(URL resource, String packagePath) throws IOException {
+    if ("jar".equals(resource.getProtocol())) {
+      JarURLConnection connection = (JarURLConnection) resource.openConnection();
+      try {
+        return classNamesInJar(Paths.get(connection.getJarFileURL().toURI()), packagePath);
+      } catch (URISyntaxException e) {
+        throw new IOException(e);
+      }
+    }
+    try {
+      Path packageDirectory = Paths.get(resource.toURI());
+      Path root = packageDirectory;
+      for (int i = packagePath.isEmpty() ? 0 : packagePath.split("/").length; i > 0; i--) {
+        root = root.getParent();
+      }
+      return classNamesInDirectory(root, packageDirectory);
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static List<String> classNamesInDirectory(Path root, Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths
+          .filter(path -> isClass(path.toString()))
+          .map(path -> toClassName(root.relativize(path).toString().replace('\\', '/')))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static List<String> classNamesInJar(Path jar, String packagePath) throws IOException {
+    String prefix = packagePath.isEmpty() ? "" : packagePath + "/";
+    try (JarFile jarFile = new JarFile(jar.toFile())) {
+      List<String> classNames = new ArrayList<>();
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (name.startsWith(prefix) && isClass(name) && !name.startsWith("META-INF/")) {
+          classNames.add(toClassName(name));
+        }
+      }
+      return classNames;
+    }
+  }
+
+  private static boolean isClass(String path) {
+    return path.endsWith(CLASS_SUFFIX)
+        && !path.endsWith("module-info.class")
+        && !path.endsWith("package-info.class");
+  }
+
+  private static String toClassName(String path) {
+    return path.substring(0, path.length() - CLASS_SUFFIX.length()).replace('/', '.');
+  }
+
+  private ClassPathScanner() {
+    throw new IllegalStateException();
+  }
+}
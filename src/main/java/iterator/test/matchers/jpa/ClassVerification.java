@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+/** The outcome of applying a set of rules to one class. */
+public final class ClassVerification {
+
+  static ClassVerification verify(Class<?> type, Collection<? extends Matcher<?>> rules) {
+    long start = System.nanoTime();
+    List<String> failures = new ArrayList<>();
+    RuntimeException error = null;
+    for (Matcher<?> rule : rules) {
+      StringDescription description = new StringDescription();
+      description.appendText("Expected: ").appendDescriptionOf(rule).appendText("\n     but: ");
+      try {
+        if (rule.matches(type)) {
+          continue;
+        }
+        rule.describeMismatch(type, description);
+      } catch (RuntimeException e) {
+        description.appendText("threw ").appendText(e.toString());
+        if (error == null) {
+          error = e;
+        }
+      }
+      failures.add(description.toString());
+    }
+    return new ClassVerification(
+        type.getName(), type, Duration.ofNanos(System.nanoTime() - start), failures, error);
+  }
+
+  static ClassVerification unloadable(String className, Throwable error) {
+    return new ClassVerification(
+        className,
+        null,
+        Duration.ZERO,
+        Collections.singletonList("could not be loaded: " + error),
+        null);
+  }
+
+  private final String name;
+
+  private final Class<?> type;
+
+  private final Duration elapsed;
+
+  private final List<String> failures;
+
+  private final RuntimeException error;
+
+  private ClassVerification(
+      String name, Class<?> type, Duration elapsed, List<String> failures, RuntimeException error) {
+    this.name = name;
+    this.type = type;
+    this.elapsed = elapsed;
+    this.failures = Collections.unmodifiableList(failures);
+    this.error = error;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /** The verified class, or {@code null} if it could not be loaded. */
+  public Class<?> getType() {
+    return type;
+  }
+
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  public List<String> getFailures() {
+    return failures;
+  }
+
+  /** The first exception thrown by a rule, which is also reported as that rule's failure. */
+  RuntimeException getError() {
+    return error;
+  }
+
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder =
+        new StringBuilder(name).append(" (").append(elapsed.toNanos() / 1000).append("µs)");
+    for (String failure : failures) {
+      builder.append("\n  ").append(failure.replace("\n", "\n  "));
+    }
+    return builder.toString();
+  }
+}
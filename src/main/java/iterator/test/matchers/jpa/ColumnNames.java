@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.Locale;
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+
+/** The physical names JPA derives for entities and columns when the mapping leaves them out. */
+final class ColumnNames {
+
+  static String entityName(EntityMetadata metadata) {
+    Entity entity = metadata.getTypeAnnotation(Entity.class);
+    return entity == null || entity.name().isEmpty()
+        ? metadata.getType().getSimpleName()
+        : entity.name();
+  }
+
+  static String column(EntityMetadata metadata, String fieldName) {
+    Column column = metadata.getFieldAnnotation(fieldName, Column.class);
+    return column == null || column.name().isEmpty() ? fieldName : column.name();
+  }
+
+  /** The single primary key column, or {@code null} for a composite or missing key. */
+  static String primaryKeyColumn(EntityMetadata metadata) {
+    String idField = null;
+    for (String fieldName : metadata.getFields().keySet()) {
+      if (metadata.getFieldAnnotation(fieldName, EmbeddedId.class) != null) {
+        return null;
+      }
+      if (metadata.getFieldAnnotation(fieldName, Id.class) != null) {
+        if (idField != null) {
+          return null;
+        }
+        idField = fieldName;
+      }
+    }
+    return idField == null ? null : column(metadata, idField);
+  }
+
+  /**
+   * The name of a join column, defaulted as the concatenation of the given prefix, an underscore
+   * and the referenced primary key column, or {@code null} if the latter cannot be determined.
+   */
+  static String joinColumn(JoinColumn joinColumn, String prefix, Class<?> referenced) {
+    if (joinColumn != null && !joinColumn.name().isEmpty()) {
+      return joinColumn.name();
+    }
+    String referencedColumn =
+        joinColumn != null && !joinColumn.referencedColumnName().isEmpty()
+            ? joinColumn.referencedColumnName()
+            : referenced == null ? null : primaryKeyColumn(EntityMetadata.of(referenced));
+    return referencedColumn == null ? null : prefix + "_" + referencedColumn;
+  }
+
+  /** A column name in a form that compares equal however it was quoted or cased. */
+  static String normalize(String column) {
+    String name = column.trim();
+    if (name.length() > 1
+        && (name.charAt(0) == '"' || name.charAt(0) == '`')
+        && name.charAt(name.length() - 1) == name.charAt(0)) {
+      name = name.substring(1, name.length() - 1);
+    }
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  private ColumnNames() {
+    throw new IllegalStateException();
+  }
+}
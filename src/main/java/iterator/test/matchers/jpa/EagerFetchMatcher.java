@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.List;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/** Checks the eager fetch graph reachable from an entity, reporting the offending paths. */
+final class EagerFetchMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  static <T> EagerFetchMatcher<T> depthAtMost(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must not be negative, was " + maxDepth);
+    }
+    return new EagerFetchMatcher<>(maxDepth);
+  }
+
+  static <T> EagerFetchMatcher<T> noEagerCollections() {
+    return new EagerFetchMatcher<>(-1);
+  }
+
+  private final int maxDepth;
+
+  private EagerFetchMatcher(int maxDepth) {
+    this.maxDepth = maxDepth;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    if (maxDepth < 0) {
+      description.appendText("entity that fetches no collections eagerly");
+    } else {
+      description.appendText("entity with an eager fetch depth of at most " + maxDepth);
+    }
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    List<List<Association>> paths =
+        maxDepth < 0
+            ? FetchGraph.eagerCollectionPaths(item)
+            : FetchGraph.eagerPathsLongerThan(item, maxDepth);
+    if (paths.isEmpty()) {
+      return true;
+    }
+    mismatchDescription
+        .appendValue(item)
+        .appendText(
+            maxDepth < 0
+                ? " eagerly fetches collections through:"
+                : " has eager fetch paths longer than " + maxDepth + ":");
+    for (List<Association> path : paths) {
+      mismatchDescription.appendText("\n  ").appendText(FetchGraph.render(path));
+    }
+    return false;
+  }
+}
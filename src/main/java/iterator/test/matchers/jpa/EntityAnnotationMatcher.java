@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+
+/**
+ * Base of the single annotation matchers. A successful match allocates nothing: mismatches are
+ * only described when Hamcrest asks for them, by evaluating again against the real description.
+ */
+abstract class EntityAnnotationMatcher<T> extends BaseMatcher<Class<T>> {
+
+  private String cacheDigest;
+
+  abstract boolean matches(EntityMetadata metadata, Description mismatchDescription);
+
+  abstract boolean matches(ClassFile classFile, Description mismatchDescription);
+
+  /** Identifies what this matcher expects, for {@link VerificationCache} entries. */
+  abstract String cacheKey();
+
+  abstract Class<? extends Annotation> getAnnotationType();
+
+  /** The field this matcher inspects, or {@code null} if it inspects the type. */
+  abstract String getFieldName();
+
+  /** Classes other than the type and its superclasses whose mapping decides a match. */
+  List<Class<?>> getDependencies(Class<?> type) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public final boolean matches(Object item) {
+    if (!(item instanceof Class)) {
+      return false;
+    }
+    Class<?> type = (Class<?>) item;
+    VerificationCache cache = VerificationCache.active();
+    if (cache == null) {
+      return evaluate(type);
+    }
+    return cache.evaluate(type, getDependencies(type), cacheDigest(), () -> evaluate(type));
+  }
+
+  /** Evaluates without describing, reporting to {@link MatcherMetrics} and JFR when enabled. */
+  final boolean evaluate(Class<?> type) {
+    MatcherMetrics metrics = MatcherMetrics.active();
+    if (metrics == null && !MatcherEvaluationEvent.isRecording()) {
+      return matches(EntityMetadata.of(type), Description.NONE);
+    }
+    MatcherEvaluationEvent event = new MatcherEvaluationEvent();
+    event.begin();
+    long start = System.nanoTime();
+    EntityMetadata metadata = EntityMetadata.of(type);
+    boolean matches = matches(metadata, Description.NONE);
+    long nanos = System.nanoTime() - start;
+    if (metrics != null) {
+      metrics.record(getAnnotationType(), nanos, matches);
+    }
+    if (event.shouldCommit()) {
+      event.annotationType = getAnnotationType().getName();
+      event.targetClass = type;
+      event.fieldName = getFieldName();
+      event.metadataCached = metadata.isResolvedBefore(start);
+      event.matched = matches;
+      event.commit();
+    }
+    return matches;
+  }
+
+  @Override
+  public final void describeMismatch(Object item, Description description) {
+    if (item instanceof Class) {
+      matches(EntityMetadata.of((Class<?>) item), description);
+    } else {
+      super.describeMismatch(item, description);
+    }
+  }
+
+  private String cacheDigest() {
+    if (cacheDigest == null) {
+      cacheDigest = VerificationCache.digest(cacheKey());
+    }
+    return cacheDigest;
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import org.hamcrest.Description;
+
+final class EntityFieldAnnotationMatcher<A extends Annotation, T>
+    extends EntityAnnotationMatcher<T> {
+
+  private final String fieldName;
+
+  private final AttributePath path;
+
+  private final Expectation<A> expectation;
+
+  EntityFieldAnnotationMatcher(String fieldName, Expectation<A> expectation) {
+    this.fieldName = fieldName;
+    this.path = AttributePath.isPath(fieldName) ? AttributePath.compile(fieldName) : null;
+    this.expectation = expectation;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description
+        .appendText("class with field ")
+        .appendText(fieldName)
+        .appendText(" annotated with ");
+    expectation.describeTo(description);
+  }
+
+  @Override
+  String cacheKey() {
+    return "field " + fieldName + " " + expectation.canonical();
+  }
+
+  @Override
+  Class<A> getAnnotationType() {
+    return expectation.getAnnotationType();
+  }
+
+  @Override
+  String getFieldName() {
+    return fieldName;
+  }
+
+  @Override
+  List<Class<?>> getDependencies(Class<?> type) {
+    return path == null
+        ? super.getDependencies(type)
+        : path.resolve(EntityMetadata.of(type)).getEmbeddables();
+  }
+
+  @Override
+  boolean matches(EntityMetadata metadata, Description mismatchDescription) {
+    AnnotationValues annotation;
+    if (path != null) {
+      AttributePath.Resolution resolution = path.resolve(metadata);
+      if (resolution.getProblem() != null) {
+        mismatchDescription
+            .appendValue(metadata.getType())
+            .appendText(" ")
+            .appendText(resolution.getProblem());
+        return false;
+      }
+      annotation = resolution.getAnnotationValues(expectation.getAnnotationType());
+    } else if (!metadata.hasField(fieldName)) {
+      mismatchDescription
+          .appendValue(metadata.getType())
+          .appendText(" has no field ")
+          .appendText(fieldName);
+      return false;
+    } else {
+      annotation = metadata.getFieldAnnotationValues(fieldName, expectation.getAnnotationType());
+    }
+    if (annotation == null) {
+      mismatchDescription
+          .appendText("field ")
+          .appendText(fieldName)
+          .appendText(" is not annotated with @")
+          .appendText(expectation.getAnnotationType().getSimpleName());
+      return false;
+    }
+    if (!expectation.matches(annotation)) {
+      mismatchDescription.appendText("field ").appendText(fieldName).appendText(" has ");
+      expectation.describeMismatch(
+          expectation.getAnnotationType().cast(annotation.getAnnotation()), mismatchDescription);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  boolean matches(ClassFile classFile, Description mismatchDescription) {
+    if (path != null) {
+      mismatchDescription
+          .appendText(classFile.getName())
+          .appendText(" cannot resolve ")
+          .appendText(fieldName)
+          .appendText(" without loading the embeddables");
+      return false;
+    }
+    ClassFile.FieldInfo field = classFile.getField(fieldName);
+    if (field == null) {
+      mismatchDescription
+          .appendText(classFile.getName())
+          .appendText(" has no field ")
+          .appendText(fieldName);
+      if (!Object.class.getName().equals(classFile.getSuperclassName())) {
+        mismatchDescription
+            .appendText(" (fields inherited from ")
+            .appendText(classFile.getSuperclassName())
+            .appendText(" are not in its class file)");
+      }
+      return false;
+    }
+    AnnotationData annotation = field.getAnnotation(expectation.getAnnotationType());
+    if (annotation == null) {
+      mismatchDescription
+          .appendText("field ")
+          .appendText(fieldName)
+          .appendText(" is not annotated with @")
+          .appendText(expectation.getAnnotationType().getSimpleName());
+      return false;
+    }
+    if (!expectation.matches(annotation)) {
+      mismatchDescription.appendText("field ").appendText(fieldName).appendText(" has ");
+      expectation.describeMismatch(annotation, mismatchDescription);
+      return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Checks the {@link NamedEntityGraph named entity graphs} an entity declares: that a graph with
+ * given attribute nodes exists, or that every node and subgraph of every graph resolves to a
+ * persistent attribute, following subgraphs into the types they apply to.
+ */
+final class EntityGraphMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  static <T> EntityGraphMatcher<T> named(String graphName, String... attributeNodes) {
+    if (graphName == null) {
+      throw new IllegalArgumentException("graphName must not be null");
+    }
+    return new EntityGraphMatcher<>(graphName, Arrays.asList(attributeNodes));
+  }
+
+  static <T> EntityGraphMatcher<T> valid() {
+    return new EntityGraphMatcher<>(null, null);
+  }
+
+  private final String graphName;
+
+  private final List<String> attributeNodes;
+
+  private EntityGraphMatcher(String graphName, List<String> attributeNodes) {
+    this.graphName = graphName;
+    this.attributeNodes = attributeNodes;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    if (graphName == null) {
+      description.appendText("entity whose named entity graphs all resolve");
+    } else {
+      description
+          .appendText("entity with a named entity graph ")
+          .appendValue(graphName)
+          .appendText(" with attribute nodes ")
+          .appendValueList("[", ", ", "]", attributeNodes);
+    }
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    EntityMetadata metadata = EntityMetadata.of(item);
+    List<NamedEntityGraph> graphs = graphs(metadata);
+    return graphName == null
+        ? matchesValid(metadata, graphs, mismatchDescription)
+        : matchesNamed(metadata, graphs, mismatchDescription);
+  }
+
+  private boolean matchesNamed(
+      EntityMetadata metadata, List<NamedEntityGraph> graphs, Description mismatchDescription) {
+    for (NamedEntityGraph graph : graphs) {
+      if (name(graph, metadata).equals(graphName)) {
+        List<String> missing = new ArrayList<>(attributeNodes);
+        for (NamedAttributeNode node : graph.attributeNodes()) {
+          missing.remove(node.value());
+        }
+        if (missing.isEmpty()) {
+          return true;
+        }
+        mismatchDescription
+            .appendText("graph ")
+            .appendValue(graphName)
+            .appendText(" has no attribute nodes ")
+            .appendValueList("[", ", ", "]", missing);
+        return false;
+      }
+    }
+    mismatchDescription
+        .appendValue(metadata.getType())
+        .appendText(" declares no entity graph named ")
+        .appendValue(graphName);
+    return false;
+  }
+
+  private static boolean matchesValid(
+      EntityMetadata metadata, List<NamedEntityGraph> graphs, Description mismatchDescription) {
+    List<String> problems = new ArrayList<>();
+    for (NamedEntityGraph graph : graphs) {
+      new GraphValidation(name(graph, metadata), graph, problems).validate(metadata.getType());
+    }
+    if (problems.isEmpty()) {
+      return true;
+    }
+    mismatchDescription
+        .appendValue(metadata.getType())
+        .appendText(" has unresolved entity graphs:");
+    for (String problem : problems) {
+      mismatchDescription.appendText("\n  ").appendText(problem);
+    }
+    return false;
+  }
+
+  private static List<NamedEntityGraph> graphs(EntityMetadata metadata) {
+    List<NamedEntityGraph> graphs = new ArrayList<>();
+    NamedEntityGraph graph = metadata.getTypeAnnotation(NamedEntityGraph.class);
+    if (graph != null) {
+      graphs.add(graph);
+    }
+    NamedEntityGraphs container = metadata.getTypeAnnotation(NamedEntityGraphs.class);
+    if (container != null) {
+      graphs.addAll(Arrays.asList(container.value()));
+    }
+    return graphs;
+  }
+
+  private static String name(NamedEntityGraph graph, EntityMetadata metadata) {
+    return graph.name().isEmpty() ? ColumnNames.entityName(metadata) : graph.name();
+  }
+
+  private static final class GraphValidation {
+
+    private final String graphName;
+
+    private final NamedEntityGraph graph;
+
+    private final Map<String, NamedSubgraph> subgraphs = new HashMap<>();
+
+    private final Set<String> visited = new HashSet<>();
+
+    private final List<String> problems;
+
+    GraphValidation(String graphName, NamedEntityGraph graph, List<String> problems) {
+      this.graphName = graphName;
+      this.graph = graph;
+      this.problems = problems;
+      for (NamedSubgraph subgraph : graph.subgraphs()) {
+        subgraphs.put(subgraph.name(), subgraph);
+      }
+    }
+
+    void validate(Class<?> type) {
+      validate(type, graph.attributeNodes(), "");
+      for (NamedSubgraph subclassSubgraph : graph.subclassSubgraphs()) {
+        Class<?> subclass = subclassSubgraph.type();
+        if (subclass == void.class || !type.isAssignableFrom(subclass)) {
+          problem("subclass subgraph " + subclassSubgraph.name() + " is not typed with a subclass");
+        } else {
+          validate(subclass, subclassSubgraph.attributeNodes(), subclass.getSimpleName() + ":");
+        }
+      }
+    }
+
+    private void validate(Class<?> type, NamedAttributeNode[] nodes, String path) {
+      EntityMetadata metadata = EntityMetadata.of(type);
+      for (NamedAttributeNode node : nodes) {
+        String attribute = node.value();
+        if (!metadata.isPersistent(attribute)) {
+          problem(path + attribute + " is not a persistent attribute of " + type.getSimpleName());
+          continue;
+        }
+        subgraph(node.subgraph(), metadata.getTargetType(attribute), path + attribute);
+        subgraph(node.keySubgraph(), keyType(metadata, attribute), path + attribute + " key");
+      }
+    }
+
+    private void subgraph(String name, Class<?> target, String path) {
+      if (name.isEmpty()) {
+        return;
+      }
+      NamedSubgraph subgraph = subgraphs.get(name);
+      if (subgraph == null) {
+        problem(path + " names subgraph " + name + ", which is not declared");
+        return;
+      }
+      Class<?> type = subgraph.type() == void.class ? target : subgraph.type();
+      if (type == null) {
+        problem(path + " names subgraph " + name + " but is not an association or embeddable");
+      } else if (visited.add(name + " " + type.getName())) {
+        validate(type, subgraph.attributeNodes(), path + ".");
+      }
+    }
+
+    private static Class<?> keyType(EntityMetadata metadata, String attribute) {
+      Field field = metadata.getFields().get(attribute);
+      Type type = field.getGenericType();
+      if (type instanceof ParameterizedType
+          && Map.class.isAssignableFrom(field.getType())
+          && ((ParameterizedType) type).getActualTypeArguments()[0] instanceof Class) {
+        return (Class<?>) ((ParameterizedType) type).getActualTypeArguments()[0];
+      }
+      return null;
+    }
+
+    private void problem(String problem) {
+      problems.add("graph " + graphName + ": " + problem);
+    }
+  }
+}
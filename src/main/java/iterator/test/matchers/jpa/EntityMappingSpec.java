@@ -0,0 +1,161 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+
+/**
+ * Checks every type and field level expectation of an entity against a single resolution of its
+ * metadata, reporting all of the expectations that failed rather than only the first.
+ */
+public final class EntityMappingSpec extends BaseMatcher<Class<?>> {
+
+  private static final String SEPARATOR = "\n          ";
+
+  private final List<EntityAnnotationMatcher<?>> expectations = new ArrayList<>();
+
+  private volatile String cacheDigest;
+
+  EntityMappingSpec() {}
+
+  public EntityMappingSpec entity() {
+    return type(AnnotationMap.from(Entity.class));
+  }
+
+  public EntityMappingSpec entity(AnnotationMap<Entity> entityAnnotation) {
+    return type(entityAnnotation);
+  }
+
+  public EntityMappingSpec table() {
+    return type(AnnotationMap.from(Table.class));
+  }
+
+  public EntityMappingSpec table(AnnotationMap<Table> tableAnnotation) {
+    return type(tableAnnotation);
+  }
+
+  public EntityMappingSpec type(AnnotationMap<?> typeAnnotation) {
+    expectations.add(new EntityTypeAnnotationMatcher<>(Expectation.of(typeAnnotation)));
+    cacheDigest = null;
+    return this;
+  }
+
+  public EntityMappingSpec field(String fieldName, AnnotationMap<?>... fieldAnnotations) {
+    for (AnnotationMap<?> fieldAnnotation : fieldAnnotations) {
+      expectations.add(
+          new EntityFieldAnnotationMatcher<>(fieldName, Expectation.of(fieldAnnotation)));
+    }
+    cacheDigest = null;
+    return this;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("class mapped with:");
+    for (EntityAnnotationMatcher<?> expectation : expectations) {
+      description.appendText(SEPARATOR);
+      expectation.describeTo(description);
+    }
+  }
+
+  @Override
+  public boolean matches(Object item) {
+    if (!(item instanceof Class)) {
+      return false;
+    }
+    Class<?> type = (Class<?>) item;
+    VerificationCache cache = VerificationCache.active();
+    if (cache == null) {
+      return evaluate(type);
+    }
+    return cache.evaluate(type, getDependencies(type), cacheDigest(), () -> evaluate(type));
+  }
+
+  private List<Class<?>> getDependencies(Class<?> type) {
+    List<Class<?>> dependencies = new ArrayList<>();
+    for (EntityAnnotationMatcher<?> expectation : expectations) {
+      dependencies.addAll(expectation.getDependencies(type));
+    }
+    return dependencies;
+  }
+
+  @Override
+  public void describeMismatch(Object item, Description description) {
+    if (item instanceof Class) {
+      matches(EntityMetadata.of((Class<?>) item), description);
+    } else {
+      super.describeMismatch(item, description);
+    }
+  }
+
+  private boolean evaluate(Class<?> type) {
+    for (int i = 0; i < expectations.size(); i++) {
+      if (!expectations.get(i).evaluate(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean matches(EntityMetadata metadata, Description mismatchDescription) {
+    boolean matches = true;
+    for (EntityAnnotationMatcher<?> expectation : expectations) {
+      if (!expectation.matches(metadata, Description.NONE)) {
+        if (matches) {
+          mismatchDescription.appendValue(metadata.getType()).appendText(" did not match:");
+          matches = false;
+        }
+        mismatchDescription.appendText(SEPARATOR);
+        expectation.matches(metadata, mismatchDescription);
+      }
+    }
+    return matches;
+  }
+
+  boolean matches(ClassFile classFile, Description mismatchDescription) {
+    boolean matches = true;
+    for (EntityAnnotationMatcher<?> expectation : expectations) {
+      if (!expectation.matches(classFile, Description.NONE)) {
+        if (matches) {
+          mismatchDescription.appendText(classFile.getName()).appendText(" did not match:");
+          matches = false;
+        }
+        mismatchDescription.appendText(SEPARATOR);
+        expectation.matches(classFile, mismatchDescription);
+      }
+    }
+    return matches;
+  }
+
+  private String cacheDigest() {
+    String digest = cacheDigest;
+    if (digest == null) {
+      StringBuilder key = new StringBuilder("mapping");
+      for (EntityAnnotationMatcher<?> expectation : expectations) {
+        key.append('\n').append(expectation.cacheKey());
+      }
+      digest = VerificationCache.digest(key.toString());
+      cacheDigest = digest;
+    }
+    return digest;
+  }
+}
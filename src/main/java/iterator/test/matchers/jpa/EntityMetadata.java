@@ -0,0 +1,317 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.Cacheable;
+import javax.persistence.DiscriminatorColumn;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.ExcludeSuperclassListeners;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * Reflective view of a mapped class, resolved once per class and shared by every matcher.
+ *
+ * <p>Fields declared by {@link MappedSuperclass} and {@link Entity} ancestors are visible as if
+ * declared on the class itself, with a subclass field shadowing an inherited one of the same name.
+ * Type annotations that apply to a whole hierarchy ({@link Inheritance}, {@link
+ * DiscriminatorColumn}, {@link EntityListeners}, {@link Cacheable} and, for single table
+ * hierarchies, {@link Table}) are inherited unless the class declares its own.
+ *
+ * <p>Instances are held in a {@link ClassValue}, so they are stored against the class itself and
+ * become unreachable together with it rather than pinning its class loader. Each class builds on
+ * the already resolved view of its superclass, so a shared base is only walked once.
+ */
+final class EntityMetadata {
+
+  private static final ClassValue<EntityMetadata> CACHE =
+      new ClassValue<EntityMetadata>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+          return new EntityMetadata(type);
+        }
+      };
+
+  static EntityMetadata of(Class<?> type) {
+    return CACHE.get(type);
+  }
+
+  private final Class<?> type;
+
+  private final Map<Class<? extends Annotation>, AnnotationValues> typeAnnotations;
+
+  private final Map<String, Field> fields;
+
+  private final Map<String, Map<Class<? extends Annotation>, AnnotationValues>> fieldAnnotations;
+
+  private final EntityMetadata entityParent;
+
+  private final long resolvedNanos = System.nanoTime();
+
+  private volatile List<Association> associations;
+
+  private EntityMetadata(Class<?> type) {
+    this.type = type;
+    Map<String, Field> fieldTable = new LinkedHashMap<>();
+    Map<String, Map<Class<? extends Annotation>, AnnotationValues>> annotationTable =
+        new HashMap<>();
+    for (Field field : type.getDeclaredFields()) {
+      fieldTable.put(field.getName(), field);
+      annotationTable.put(field.getName(), index(field.getDeclaredAnnotations()));
+    }
+    Map<Class<? extends Annotation>, AnnotationValues> declared =
+        index(type.getDeclaredAnnotations());
+    EntityMetadata parent = mappedParent(type);
+    if (parent == null) {
+      this.entityParent = null;
+      this.typeAnnotations = declared;
+    } else {
+      this.entityParent = parent.isEntity() ? parent : parent.entityParent;
+      for (Map.Entry<String, Field> inherited : parent.fields.entrySet()) {
+        if (fieldTable.putIfAbsent(inherited.getKey(), inherited.getValue()) == null) {
+          annotationTable.put(inherited.getKey(), parent.fieldAnnotations.get(inherited.getKey()));
+        }
+      }
+      this.typeAnnotations = inherit(declared, parent, entityParent);
+    }
+    this.fields = Collections.unmodifiableMap(fieldTable);
+    this.fieldAnnotations = annotationTable;
+  }
+
+  private EntityMetadata(
+      Class<?> type,
+      Map<Class<? extends Annotation>, AnnotationValues> typeAnnotations,
+      Map<String, Field> fields,
+      Map<String, Map<Class<? extends Annotation>, AnnotationValues>> fieldAnnotations,
+      EntityMetadata entityParent) {
+    this.type = type;
+    this.typeAnnotations = typeAnnotations;
+    this.fields = fields;
+    this.fieldAnnotations = fieldAnnotations;
+    this.entityParent = entityParent;
+  }
+
+  /**
+   * A copy of this view with mappings from elsewhere laid over it. Each type override replaces the
+   * annotation of its type, or every mapping annotation of the class if {@code replaceTypeMapping}.
+   * Each field that has an entry in {@code fieldOverrides}, even an empty one, loses all of its
+   * mapping annotations to the overrides.
+   */
+  EntityMetadata overlay(
+      List<Annotation> typeOverrides,
+      boolean replaceTypeMapping,
+      Map<String, List<Annotation>> fieldOverrides) {
+    Map<Class<? extends Annotation>, AnnotationValues> overlaidType =
+        replaceTypeMapping ? withoutMapping(typeAnnotations) : new HashMap<>(typeAnnotations);
+    for (Annotation annotation : typeOverrides) {
+      overlaidType.put(annotation.annotationType(), new AnnotationValues(annotation));
+    }
+    Map<String, Map<Class<? extends Annotation>, AnnotationValues>> overlaidFields =
+        new HashMap<>(fieldAnnotations);
+    for (Map.Entry<String, List<Annotation>> override : fieldOverrides.entrySet()) {
+      if (fields.containsKey(override.getKey())) {
+        Map<Class<? extends Annotation>, AnnotationValues> annotations =
+            withoutMapping(fieldAnnotations.get(override.getKey()));
+        for (Annotation annotation : override.getValue()) {
+          annotations.put(annotation.annotationType(), new AnnotationValues(annotation));
+        }
+        overlaidFields.put(override.getKey(), annotations);
+      }
+    }
+    return new EntityMetadata(type, overlaidType, fields, overlaidFields, entityParent);
+  }
+
+  /** Whether this metadata had already been resolved at the given {@link System#nanoTime()}. */
+  boolean isResolvedBefore(long nanoTime) {
+    return resolvedNanos - nanoTime < 0;
+  }
+
+  Class<?> getType() {
+    return type;
+  }
+
+  /** The metadata of the nearest {@link Entity} superclass, or {@code null} for a root entity. */
+  EntityMetadata getEntityParent() {
+    return entityParent;
+  }
+
+  Map<String, Field> getFields() {
+    return fields;
+  }
+
+  boolean hasField(String fieldName) {
+    return fields.containsKey(fieldName);
+  }
+
+  /** Whether the field exists and is persistent: neither static, transient nor {@link Transient}. */
+  boolean isPersistent(String fieldName) {
+    Field field = fields.get(fieldName);
+    return field != null
+        && !Modifier.isStatic(field.getModifiers())
+        && !Modifier.isTransient(field.getModifiers())
+        && getFieldAnnotationValues(fieldName, Transient.class) == null;
+  }
+
+  /** The associations of this class's persistent fields, including inherited ones. */
+  List<Association> getAssociations() {
+    List<Association> resolved = associations;
+    if (resolved == null) {
+      resolved = Association.of(this);
+      associations = resolved;
+    }
+    return resolved;
+  }
+
+  /**
+   * The type reached by navigating a field: the target of an association or element collection,
+   * or an embeddable; {@code null} for a basic attribute or a field that does not exist.
+   */
+  Class<?> getTargetType(String fieldName) {
+    for (Association association : getAssociations()) {
+      if (association.getFieldName().equals(fieldName)) {
+        return association.getTarget();
+      }
+    }
+    Field field = fields.get(fieldName);
+    if (field != null
+        && (getFieldAnnotationValues(fieldName, Embedded.class) != null
+            || getFieldAnnotationValues(fieldName, EmbeddedId.class) != null
+            || field.getType().isAnnotationPresent(Embeddable.class))) {
+      return field.getType();
+    }
+    return null;
+  }
+
+  /** The annotations of the class, including those it inherits from mapped ancestors. */
+  Collection<AnnotationValues> getTypeAnnotations() {
+    return typeAnnotations.values();
+  }
+
+  /** The annotations of a field, declared here or inherited, or none if it does not exist. */
+  Collection<AnnotationValues> getFieldAnnotations(String fieldName) {
+    Map<Class<? extends Annotation>, AnnotationValues> annotations =
+        fieldAnnotations.get(fieldName);
+    return annotations == null ? Collections.emptyList() : annotations.values();
+  }
+
+  <A extends Annotation> A getTypeAnnotation(Class<A> annotationType) {
+    AnnotationValues values = typeAnnotations.get(annotationType);
+    return values == null ? null : annotationType.cast(values.getAnnotation());
+  }
+
+  AnnotationValues getTypeAnnotationValues(Class<? extends Annotation> annotationType) {
+    return typeAnnotations.get(annotationType);
+  }
+
+  <A extends Annotation> A getFieldAnnotation(String fieldName, Class<A> annotationType) {
+    AnnotationValues values = getFieldAnnotationValues(fieldName, annotationType);
+    return values == null ? null : annotationType.cast(values.getAnnotation());
+  }
+
+  AnnotationValues getFieldAnnotationValues(
+      String fieldName, Class<? extends Annotation> annotationType) {
+    Map<Class<? extends Annotation>, AnnotationValues> annotations =
+        fieldAnnotations.get(fieldName);
+    return annotations == null ? null : annotations.get(annotationType);
+  }
+
+  private static EntityMetadata mappedParent(Class<?> type) {
+    for (Class<?> ancestor = type.getSuperclass();
+        ancestor != null && ancestor != Object.class;
+        ancestor = ancestor.getSuperclass()) {
+      if (ancestor.isAnnotationPresent(MappedSuperclass.class)
+          || ancestor.isAnnotationPresent(Entity.class)) {
+        return of(ancestor);
+      }
+    }
+    return null;
+  }
+
+  private static Map<Class<? extends Annotation>, AnnotationValues> inherit(
+      Map<Class<? extends Annotation>, AnnotationValues> declared,
+      EntityMetadata parent,
+      EntityMetadata entityParent) {
+    Map<Class<? extends Annotation>, AnnotationValues> merged = new HashMap<>(declared);
+    inheritFrom(parent, EntityListeners.class, merged);
+    inheritFrom(parent, Cacheable.class, merged);
+    if (declared.containsKey(ExcludeSuperclassListeners.class)) {
+      merged.remove(EntityListeners.class, parent.getTypeAnnotationValues(EntityListeners.class));
+    }
+    if (entityParent != null && declared.containsKey(Entity.class)) {
+      inheritFrom(entityParent, Inheritance.class, merged);
+      inheritFrom(entityParent, DiscriminatorColumn.class, merged);
+      AnnotationValues inheritance = merged.get(Inheritance.class);
+      if (inheritance == null
+          || ((Inheritance) inheritance.getAnnotation()).strategy()
+              == InheritanceType.SINGLE_TABLE) {
+        inheritFrom(entityParent, Table.class, merged);
+      }
+    }
+    return merged.size() == declared.size() ? declared : merged;
+  }
+
+  private static void inheritFrom(
+      EntityMetadata parent,
+      Class<? extends Annotation> annotationType,
+      Map<Class<? extends Annotation>, AnnotationValues> merged) {
+    AnnotationValues inherited = parent.typeAnnotations.get(annotationType);
+    if (inherited != null) {
+      merged.putIfAbsent(annotationType, inherited);
+    }
+  }
+
+  private static Map<Class<? extends Annotation>, AnnotationValues> withoutMapping(
+      Map<Class<? extends Annotation>, AnnotationValues> annotations) {
+    Map<Class<? extends Annotation>, AnnotationValues> remaining = new HashMap<>(annotations);
+    remaining
+        .keySet()
+        .removeIf(annotationType -> CanonicalForm.isMappingAnnotation(annotationType.getName()));
+    return remaining;
+  }
+
+  private boolean isEntity() {
+    return typeAnnotations.containsKey(Entity.class);
+  }
+
+  private static Map<Class<? extends Annotation>, AnnotationValues> index(
+      Annotation[] annotations) {
+    if (annotations.length == 0) {
+      return Collections.emptyMap();
+    }
+    Map<Class<? extends Annotation>, AnnotationValues> index =
+        new HashMap<>(annotations.length * 2);
+    for (Annotation annotation : annotations) {
+      index.put(annotation.annotationType(), new AnnotationValues(annotation));
+    }
+    return index;
+  }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.Entity;
+import org.hamcrest.Matcher;
+
+/**
+ * The classes under a package or class path root that carry one of a set of annotations, loaded
+ * without being initialised and verified in parallel.
+ *
+ * <p>An annotated class that fails to load is not dropped: it is verified as a failure, with the
+ * error that prevented loading it.
+ */
+public final class EntityScan {
+
+  private final Function<ClassLoader, List<String>> classNames;
+
+  private ClassLoader classLoader = defaultClassLoader();
+
+  private List<Class<? extends Annotation>> annotationTypes = Arrays.asList(Entity.class);
+
+  private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+
+  private volatile Map<String, Throwable> loadFailures;
+
+  private volatile Set<Class<?>> classes;
+
+  static EntityScan inPackage(String packageName) {
+    return new EntityScan(classLoader -> ClassPathScanner.classNames(classLoader, packageName));
+  }
+
+  static EntityScan underRoot(Path classPathRoot) {
+    return new EntityScan(classLoader -> ClassPathScanner.classNames(classPathRoot));
+  }
+
+  private EntityScan(Function<ClassLoader, List<String>> classNames) {
+    this.classNames = classNames;
+  }
+
+  @SafeVarargs
+  public final EntityScan annotatedWith(Class<? extends Annotation>... annotationTypes) {
+    List<Class<? extends Annotation>> types = new ArrayList<>(annotationTypes.length);
+    for (Class<? extends Annotation> annotationType : annotationTypes) {
+      types.add(annotationType);
+    }
+    this.annotationTypes = types;
+    this.classes = null;
+    return this;
+  }
+
+  public EntityScan using(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+    this.classes = null;
+    return this;
+  }
+
+  public EntityScan withParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  public Set<Class<?>> classes() {
+    Set<Class<?>> result = classes;
+    if (result == null) {
+      Map<String, Throwable> failures = new ConcurrentHashMap<>();
+      result =
+          inPool(
+              () ->
+                  classNames.apply(classLoader).parallelStream()
+                      .map(className -> load(className, failures))
+                      .filter(Objects::nonNull)
+                      .collect(Collectors.toSet()));
+      loadFailures = Collections.unmodifiableMap(new TreeMap<>(failures));
+      classes = result;
+    }
+    return result;
+  }
+
+  /**
+   * The classes that carry one of the annotations according to their class file, or whose class
+   * file could not be read, but that failed to load, by name.
+   */
+  Map<String, Throwable> loadFailures() {
+    classes();
+    return loadFailures;
+  }
+
+  public VerificationReport verify(Matcher<?>... rules) {
+    return verify(Arrays.asList(rules));
+  }
+
+  public VerificationReport verify(Collection<? extends Matcher<?>> rules) {
+    long start = System.nanoTime();
+    Set<Class<?>> types = classes();
+    List<ClassVerification> results =
+        inPool(
+            () ->
+                Stream.concat(
+                        types.parallelStream().map(type -> ClassVerification.verify(type, rules)),
+                        loadFailures.entrySet().stream()
+                            .map(
+                                failure ->
+                                    ClassVerification.unloadable(
+                                        failure.getKey(), failure.getValue())))
+                    .sorted(Comparator.comparing(ClassVerification::getName))
+                    .collect(Collectors.toList()));
+    return new VerificationReport(results, System.nanoTime() - start);
+  }
+
+  <R> R inPool(Supplier<R> task) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return pool.submit(task::get).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private Class<?> load(String className, Map<String, Throwable> failures) {
+    try {
+      Class<?> type = Class.forName(className, false, classLoader);
+      return isAnnotated(type) ? type : null;
+    } catch (ClassNotFoundException | LinkageError | TypeNotPresentException e) {
+      if (isAnnotated(className)) {
+        failures.put(className, e);
+      }
+      return null;
+    }
+  }
+
+  private boolean isAnnotated(Class<?> type) {
+    for (Class<? extends Annotation> annotationType : annotationTypes) {
+      if (type.isAnnotationPresent(annotationType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Whether the class file of a class that failed to load carries one of the annotations. */
+  private boolean isAnnotated(String className) {
+    try (InputStream input =
+        classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+      if (input == null) {
+        return true;
+      }
+      ClassFile classFile = ClassFile.read(input.readAllBytes());
+      for (Class<? extends Annotation> annotationType : annotationTypes) {
+        if (classFile.isAnnotatedWith(annotationType)) {
+          return true;
+        }
+      }
+      return false;
+    } catch (IOException | RuntimeException e) {
+      return true;
+    }
+  }
+
+  private static ClassLoader defaultClassLoader() {
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    return contextClassLoader == null ? EntityScan.class.getClassLoader() : contextClassLoader;
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import static org.junit.jupiter.api.DynamicContainer.dynamicContainer;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicTest;
+
+/**
+ * JUnit Jupiter dynamic tests for the classes an {@link EntityScan} discovers: one container per
+ * class, holding one test per rule, to be returned from a {@code @TestFactory} method.
+ *
+ * <p>Jupiter runs the dynamic tests of a factory one after another, so every (class, rule) pair is
+ * evaluated up front, as its own task in a pool sized by {@link EntityScan#withParallelism(int)}.
+ * The tests then only report the outcome; a rule that throws fails only its own test, with the
+ * exception as the cause. JUnit Jupiter is an optional dependency of this library and only this
+ * class needs it. An annotated class that cannot be loaded gets a container whose single test fails
+ * with the loading error.
+ */
+public final class EntityTests {
+
+  public static Stream<DynamicContainer> of(EntityScan scan, Matcher<?>... rules) {
+    return of(scan, Arrays.asList(rules));
+  }
+
+  public static Stream<DynamicContainer> of(
+      EntityScan scan, Collection<? extends Matcher<?>> rules) {
+    List<Class<?>> types = new ArrayList<>(scan.classes());
+    types.sort(Comparator.comparing(Class::getName));
+    List<Matcher<?>> ruleList = new ArrayList<>(rules);
+    int ruleCount = ruleList.size();
+    List<ClassVerification> outcomes =
+        scan.inPool(
+            () ->
+                IntStream.range(0, types.size() * ruleCount)
+                    .parallel()
+                    .mapToObj(
+                        pair ->
+                            ClassVerification.verify(
+                                types.get(pair / ruleCount),
+                                Collections.singletonList(ruleList.get(pair % ruleCount))))
+                    .collect(Collectors.toList()));
+    Stream<DynamicContainer> loaded =
+        IntStream.range(0, types.size())
+            .mapToObj(
+                type ->
+                    dynamicContainer(
+                        types.get(type).getName(),
+                        URI.create("class:" + types.get(type).getName()),
+                        IntStream.range(0, ruleCount)
+                            .mapToObj(
+                                rule ->
+                                    test(
+                                        ruleList.get(rule),
+                                        outcomes.get(type * ruleCount + rule)))));
+    Stream<DynamicContainer> unloadable =
+        scan.loadFailures().entrySet().stream()
+            .map(
+                failure ->
+                    dynamicContainer(
+                        failure.getKey(),
+                        URI.create("class:" + failure.getKey()),
+                        Stream.of(
+                            dynamicTest(
+                                "loads",
+                                () -> {
+                                  throw new AssertionError(
+                                      failure.getKey() + " could not be loaded",
+                                      failure.getValue());
+                                }))));
+    return Stream.concat(loaded, unloadable);
+  }
+
+  private static DynamicTest test(Matcher<?> rule, ClassVerification outcome) {
+    return dynamicTest(
+        StringDescription.toString(rule),
+        () -> {
+          if (!outcome.isSuccessful()) {
+            throw new AssertionError(outcome.getFailures().get(0), outcome.getError());
+          }
+        });
+  }
+
+  private EntityTests() {
+    throw new IllegalStateException();
+  }
+}
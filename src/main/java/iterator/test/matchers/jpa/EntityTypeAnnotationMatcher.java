@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import org.hamcrest.Description;
+
+final class EntityTypeAnnotationMatcher<A extends Annotation, T>
+    extends EntityAnnotationMatcher<T> {
+
+  private final Expectation<A> expectation;
+
+  EntityTypeAnnotationMatcher(Expectation<A> expectation) {
+    this.expectation = expectation;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("class annotated with ");
+    expectation.describeTo(description);
+  }
+
+  @Override
+  String cacheKey() {
+    return "type " + expectation.canonical();
+  }
+
+  @Override
+  Class<A> getAnnotationType() {
+    return expectation.getAnnotationType();
+  }
+
+  @Override
+  String getFieldName() {
+    return null;
+  }
+
+  @Override
+  boolean matches(EntityMetadata metadata, Description mismatchDescription) {
+    AnnotationValues annotation = metadata.getTypeAnnotationValues(expectation.getAnnotationType());
+    if (annotation == null) {
+      mismatchDescription
+          .appendValue(metadata.getType())
+          .appendText(" is not annotated with @")
+          .appendText(expectation.getAnnotationType().getSimpleName());
+      return false;
+    }
+    if (!expectation.matches(annotation)) {
+      mismatchDescription.appendValue(metadata.getType()).appendText(" has ");
+      expectation.describeMismatch(
+          expectation.getAnnotationType().cast(annotation.getAnnotation()), mismatchDescription);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  boolean matches(ClassFile classFile, Description mismatchDescription) {
+    AnnotationData annotation = classFile.getTypeAnnotation(expectation.getAnnotationType());
+    if (annotation == null) {
+      mismatchDescription
+          .appendText(classFile.getName())
+          .appendText(" is not annotated with @")
+          .appendText(expectation.getAnnotationType().getSimpleName());
+      return false;
+    }
+    if (!expectation.matches(annotation)) {
+      mismatchDescription.appendText(classFile.getName()).appendText(" has ");
+      expectation.describeMismatch(annotation, mismatchDescription);
+      return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import iterator.test.matchers.jpa.AnnotationAttributes.Attribute;
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.hamcrest.Description;
+
+/**
+ * An {@link AnnotationMap} compiled into one {@link AttributeComparator} per expected attribute
+ * when a matcher is created, so that evaluation never has to go back to the map.
+ */
+final class Expectation<A extends Annotation> {
+
+  static <A extends Annotation> Expectation<A> of(AnnotationMap<A> annotationMap) {
+    return new Expectation<>(annotationMap.getAnnotationClass(), annotationMap);
+  }
+
+  private final Class<A> annotationType;
+
+  private final AttributeComparator[] comparators;
+
+  private Expectation(Class<A> annotationType, Map<String, Object> attributes) {
+    this.annotationType = annotationType;
+    AnnotationAttributes annotationAttributes = AnnotationAttributes.of(annotationType);
+    List<String> names = new ArrayList<>(attributes.keySet());
+    names.removeIf(name -> attributes.get(name) == null);
+    names.sort(null);
+    this.comparators = new AttributeComparator[names.size()];
+    for (int i = 0; i < comparators.length; i++) {
+      Attribute attribute = annotationAttributes.get(names.get(i));
+      comparators[i] = AttributeComparator.of(attribute, attributes.get(names.get(i)));
+    }
+  }
+
+  Class<A> getAnnotationType() {
+    return annotationType;
+  }
+
+  /** The expectation in {@link CanonicalForm}, identical for equal expectations. */
+  String canonical() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (AttributeComparator comparator : comparators) {
+      values.put(comparator.attribute.getName(), comparator.getExpected());
+    }
+    return CanonicalForm.render(annotationType.getName(), values);
+  }
+
+  boolean matches(A annotation) {
+    for (AttributeComparator comparator : comparators) {
+      if (!comparator.matches(annotation)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean matches(AnnotationValues values) {
+    for (AttributeComparator comparator : comparators) {
+      if (!comparator.matches(values)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean matches(AnnotationData annotation) {
+    for (AttributeComparator comparator : comparators) {
+      if (!comparator.matches(annotation)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean matchesAny(Object annotation) {
+    if (annotation instanceof AnnotationData) {
+      AnnotationData data = (AnnotationData) annotation;
+      return data.getTypeName().equals(annotationType.getName()) && matches(data);
+    }
+    return annotationType.isInstance(annotation) && matches(annotationType.cast(annotation));
+  }
+
+  void describeTo(Description description) {
+    description.appendText(toString());
+  }
+
+  void describeMismatch(A annotation, Description description) {
+    String separator = "";
+    for (AttributeComparator comparator : comparators) {
+      if (!comparator.matches(annotation)) {
+        description
+            .appendText(separator)
+            .appendText(comparator.attribute.getName())
+            .appendText(" was ")
+            .appendText(render(comparator.attribute.get(annotation)));
+        separator = ", ";
+      }
+    }
+  }
+
+  void describeMismatch(AnnotationData annotation, Description description) {
+    String separator = "";
+    for (AttributeComparator comparator : comparators) {
+      if (!comparator.matches(annotation)) {
+        description
+            .appendText(separator)
+            .appendText(comparator.attribute.getName())
+            .appendText(" was ")
+            .appendText(AnnotationData.render(annotation.get(comparator.attribute)));
+        separator = ", ";
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder =
+        new StringBuilder("@").append(annotationType.getSimpleName()).append("(");
+    for (int i = 0; i < comparators.length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder
+          .append(comparators[i].attribute.getName())
+          .append("=")
+          .append(render(comparators[i].getExpected()));
+    }
+    return builder.append(")").toString();
+  }
+
+  private static String render(Object value) {
+    if (value instanceof Object[]) {
+      return Arrays.deepToString((Object[]) value);
+    }
+    return value instanceof String ? "\"" + value + "\"" : String.valueOf(value);
+  }
+}
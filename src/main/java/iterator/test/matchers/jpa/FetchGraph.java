@@ -0,0 +1,107 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.Entity;
+
+/**
+ * Traversals of the eager fetch graph formed by the associations of entities.
+ *
+ * <p>The graph itself is never materialised: its edges are the associations held by each class's
+ * {@link EntityMetadata}, which are resolved once per class and shared by every traversal.
+ */
+final class FetchGraph {
+
+  /** The eager paths from the root with more than the given number of hops, each cut off there. */
+  static List<List<Association>> eagerPathsLongerThan(Class<?> root, int maxDepth) {
+    List<List<Association>> paths = new ArrayList<>();
+    Set<Class<?>> visiting = new HashSet<>();
+    visiting.add(root);
+    walk(root, maxDepth + 1, new ArrayDeque<>(), visiting, paths);
+    return paths;
+  }
+
+  /** The shortest eager path from the root to each eagerly fetched collection it loads. */
+  static List<List<Association>> eagerCollectionPaths(Class<?> root) {
+    List<List<Association>> paths = new ArrayList<>();
+    Set<Class<?>> visited = new HashSet<>();
+    visited.add(root);
+    Deque<List<Association>> queue = new ArrayDeque<>();
+    queue.add(new ArrayList<>());
+    Deque<Class<?>> types = new ArrayDeque<>();
+    types.add(root);
+    while (!types.isEmpty()) {
+      Class<?> type = types.poll();
+      List<Association> path = queue.poll();
+      for (Association association : EntityMetadata.of(type).getAssociations()) {
+        if (association.isEager()) {
+          List<Association> next = new ArrayList<>(path);
+          next.add(association);
+          if (association.isCollection()) {
+            paths.add(next);
+          }
+          Class<?> target = association.getTarget();
+          if (isEntity(target) && visited.add(target)) {
+            types.add(target);
+            queue.add(next);
+          }
+        }
+      }
+    }
+    return paths;
+  }
+
+  static boolean isEntity(Class<?> type) {
+    return type != null && EntityMetadata.of(type).getTypeAnnotation(Entity.class) != null;
+  }
+
+  static String render(List<Association> path) {
+    return path.stream().map(Association::toString).collect(Collectors.joining(" -> "));
+  }
+
+  private static void walk(
+      Class<?> type,
+      int limit,
+      Deque<Association> path,
+      Set<Class<?>> visiting,
+      List<List<Association>> paths) {
+    for (Association association : EntityMetadata.of(type).getAssociations()) {
+      if (!association.isEager()) {
+        continue;
+      }
+      path.addLast(association);
+      Class<?> target = association.getTarget();
+      if (path.size() == limit) {
+        paths.add(new ArrayList<>(path));
+      } else if (isEntity(target) && visiting.add(target)) {
+        walk(target, limit, path, visiting, paths);
+        visiting.remove(target);
+      }
+      path.removeLast();
+    }
+  }
+
+  private FetchGraph() {
+    throw new IllegalStateException();
+  }
+}
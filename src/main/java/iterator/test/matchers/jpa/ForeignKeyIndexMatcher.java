@@ -0,0 +1,213 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinColumns;
+import javax.persistence.JoinTable;
+import javax.persistence.MapsId;
+import javax.persistence.PrimaryKeyJoinColumn;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Checks that the foreign key columns mapped by an entity's associations lead an index or unique
+ * constraint of the table that holds them.
+ *
+ * <p>Owning {@code ManyToOne} and {@code OneToOne} columns are looked up in the owner's {@link
+ * Table}, unidirectional {@code OneToMany} join columns in the target's, and both sides of an
+ * explicit {@link JoinTable} in the join table's own indexes. Associations that are part of the
+ * primary key are covered by it.
+ */
+final class ForeignKeyIndexMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("entity with every foreign key column leading an index");
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    EntityMetadata metadata = EntityMetadata.of(item);
+    List<String> unindexed = new ArrayList<>();
+    for (Association association : metadata.getAssociations()) {
+      check(metadata, association, unindexed);
+    }
+    if (unindexed.isEmpty()) {
+      return true;
+    }
+    mismatchDescription.appendValue(item).appendText(" has unindexed foreign keys:");
+    for (String foreignKey : unindexed) {
+      mismatchDescription.appendText("\n  ").appendText(foreignKey);
+    }
+    return false;
+  }
+
+  private static void check(EntityMetadata owner, Association association, List<String> unindexed) {
+    String fieldName = association.getFieldName();
+    if (association.getKind() == Association.Kind.ELEMENT_COLLECTION
+        || owner.getFieldAnnotation(fieldName, Id.class) != null
+        || owner.getFieldAnnotation(fieldName, MapsId.class) != null
+        || owner.getFieldAnnotation(fieldName, PrimaryKeyJoinColumn.class) != null) {
+      return;
+    }
+    JoinTable joinTable = owner.getFieldAnnotation(fieldName, JoinTable.class);
+    if (joinTable != null) {
+      List<List<String>> indexes = indexes(joinTable.indexes(), joinTable.uniqueConstraints());
+      String tableName =
+          joinTable.name().isEmpty() && FetchGraph.isEntity(association.getTarget())
+              ? ColumnNames.entityName(owner)
+                  + "_"
+                  + ColumnNames.entityName(EntityMetadata.of(association.getTarget()))
+              : joinTable.name();
+      String prefix = association + ": join table " + tableName + " ";
+      String inverseField = inverseField(association);
+      check(
+          joinColumns(
+              joinTable.joinColumns(),
+              inverseField == null ? ColumnNames.entityName(owner) : inverseField,
+              owner.getType()),
+          indexes,
+          prefix,
+          unindexed);
+      check(
+          joinColumns(joinTable.inverseJoinColumns(), fieldName, association.getTarget()),
+          indexes,
+          prefix,
+          unindexed);
+      return;
+    }
+    if (!association.isOwningSide()) {
+      return;
+    }
+    JoinColumn[] joinColumns = joinColumns(owner, fieldName);
+    if (!association.isCollection()) {
+      check(
+          joinColumns(joinColumns, fieldName, association.getTarget()),
+          indexes(tableOwner(owner, association), joinColumns),
+          association + ": ",
+          unindexed);
+    } else if (association.getKind() == Association.Kind.ONE_TO_MANY
+        && joinColumns.length > 0
+        && FetchGraph.isEntity(association.getTarget())) {
+      check(
+          joinColumns(joinColumns, ColumnNames.entityName(owner), owner.getType()),
+          indexes(EntityMetadata.of(association.getTarget()), joinColumns),
+          association + ": " + association.getTarget().getSimpleName() + " ",
+          unindexed);
+    }
+  }
+
+  private static void check(
+      List<String> columns, List<List<String>> indexes, String prefix, List<String> unindexed) {
+    if (columns.contains(null)) {
+      unindexed.add(prefix + "cannot determine the referenced primary key column");
+      return;
+    }
+    Set<String> expected = new HashSet<>();
+    for (String column : columns) {
+      expected.add(ColumnNames.normalize(column));
+    }
+    for (List<String> index : indexes) {
+      if (index.size() >= expected.size()
+          && new HashSet<>(index.subList(0, expected.size())).equals(expected)) {
+        return;
+      }
+    }
+    unindexed.add(prefix + String.join(", ", columns));
+  }
+
+  private static JoinColumn[] joinColumns(EntityMetadata owner, String fieldName) {
+    JoinColumns joinColumns = owner.getFieldAnnotation(fieldName, JoinColumns.class);
+    if (joinColumns != null) {
+      return joinColumns.value();
+    }
+    JoinColumn joinColumn = owner.getFieldAnnotation(fieldName, JoinColumn.class);
+    return joinColumn == null ? new JoinColumn[0] : new JoinColumn[] {joinColumn};
+  }
+
+  private static List<String> joinColumns(
+      JoinColumn[] joinColumns, String prefix, Class<?> referenced) {
+    if (joinColumns.length == 0) {
+      return Collections.singletonList(ColumnNames.joinColumn(null, prefix, referenced));
+    }
+    List<String> columns = new ArrayList<>(joinColumns.length);
+    for (JoinColumn joinColumn : joinColumns) {
+      columns.add(ColumnNames.joinColumn(joinColumn, prefix, referenced));
+    }
+    return columns;
+  }
+
+  private static String inverseField(Association association) {
+    if (!FetchGraph.isEntity(association.getTarget())) {
+      return null;
+    }
+    for (Association inverse : EntityMetadata.of(association.getTarget()).getAssociations()) {
+      if (inverse.getMappedBy().equals(association.getFieldName())) {
+        return inverse.getFieldName();
+      }
+    }
+    return null;
+  }
+
+  /** The entity whose table holds a field: the one declaring it, or the owner for inherited state. */
+  private static EntityMetadata tableOwner(EntityMetadata owner, Association association) {
+    Class<?> declaringClass = association.getField().getDeclaringClass();
+    return FetchGraph.isEntity(declaringClass) ? EntityMetadata.of(declaringClass) : owner;
+  }
+
+  private static List<List<String>> indexes(EntityMetadata metadata, JoinColumn[] joinColumns) {
+    Table table = metadata.getTypeAnnotation(Table.class);
+    List<List<String>> indexes =
+        table == null ? new ArrayList<>() : indexes(table.indexes(), table.uniqueConstraints());
+    for (JoinColumn joinColumn : joinColumns) {
+      if (joinColumn.unique() && !joinColumn.name().isEmpty()) {
+        indexes.add(Collections.singletonList(ColumnNames.normalize(joinColumn.name())));
+      }
+    }
+    return indexes;
+  }
+
+  private static List<List<String>> indexes(Index[] indexes, UniqueConstraint[] constraints) {
+    List<List<String>> columns = new ArrayList<>();
+    for (Index index : indexes) {
+      List<String> columnList = new ArrayList<>();
+      for (String column : index.columnList().split(",")) {
+        String name = column.trim();
+        int space = name.indexOf(' ');
+        columnList.add(ColumnNames.normalize(space < 0 ? name : name.substring(0, space)));
+      }
+      columns.add(columnList);
+    }
+    for (UniqueConstraint constraint : constraints) {
+      List<String> columnList = new ArrayList<>();
+      for (String column : constraint.columnNames()) {
+        columnList.add(ColumnNames.normalize(column));
+      }
+      columns.add(columnList);
+    }
+    return columns;
+  }
+}
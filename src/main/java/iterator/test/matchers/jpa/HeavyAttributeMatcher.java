@@ -0,0 +1,69 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/** Checks that an entity reads no {@link HeavyAttributes heavy attributes} of a kind eagerly. */
+final class HeavyAttributeMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  static <T> HeavyAttributeMatcher<T> noEagerLobs() {
+    return new HeavyAttributeMatcher<>(true, Integer.MAX_VALUE);
+  }
+
+  static <T> HeavyAttributeMatcher<T> noEagerColumnsWiderThan(int maxColumnLength) {
+    if (maxColumnLength < 0) {
+      throw new IllegalArgumentException(
+          "maxColumnLength must not be negative, was " + maxColumnLength);
+    }
+    return new HeavyAttributeMatcher<>(false, maxColumnLength);
+  }
+
+  private final boolean lob;
+
+  private final int maxColumnLength;
+
+  private HeavyAttributeMatcher(boolean lob, int maxColumnLength) {
+    this.lob = lob;
+    this.maxColumnLength = maxColumnLength;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText(
+        lob
+            ? "entity with every @Lob fetched lazily"
+            : "entity with no eagerly fetched column wider than " + maxColumnLength);
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    List<HeavyAttributes.Attribute> eager =
+        HeavyAttributes.of(item, maxColumnLength).getEagerAttributes().stream()
+            .filter(attribute -> attribute.isLob() == lob)
+            .collect(Collectors.toList());
+    if (eager.isEmpty()) {
+      return true;
+    }
+    mismatchDescription.appendValue(item).appendText(" eagerly fetches ");
+    mismatchDescription.appendText(
+        eager.stream().map(HeavyAttributes.Attribute::toString).collect(Collectors.joining(", ")));
+    return false;
+  }
+}
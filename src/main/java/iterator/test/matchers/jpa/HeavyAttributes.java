@@ -0,0 +1,151 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.FetchType;
+import javax.persistence.Lob;
+
+/**
+ * The persistent attributes of an entity that carry large payloads: {@link Lob} fields, and
+ * character or binary columns declared wider than a given length.
+ *
+ * <p>An attribute is lazy when it is mapped with {@code @Basic(fetch = FetchType.LAZY)}; every other
+ * heavy attribute is read whenever the entity is.
+ */
+public final class HeavyAttributes {
+
+  public static HeavyAttributes of(Class<?> type, int maxColumnLength) {
+    EntityMetadata metadata = EntityMetadata.of(type);
+    List<Attribute> attributes = new ArrayList<>();
+    for (Field field : metadata.getFields().values()) {
+      String fieldName = field.getName();
+      if (!metadata.isPersistent(fieldName)) {
+        continue;
+      }
+      Column column = metadata.getFieldAnnotation(fieldName, Column.class);
+      int length = column == null ? 255 : column.length();
+      boolean lob = metadata.getFieldAnnotation(fieldName, Lob.class) != null;
+      if (lob || isCharacterOrBinary(field.getType()) && length > maxColumnLength) {
+        Basic basic = metadata.getFieldAnnotation(fieldName, Basic.class);
+        boolean lazy = basic != null && basic.fetch() == FetchType.LAZY;
+        attributes.add(new Attribute(fieldName, lob, length, lazy));
+      }
+    }
+    return new HeavyAttributes(type, attributes);
+  }
+
+  /** One line per class with heavy attributes, for a report over a whole persistence unit. */
+  public static String summarise(Iterable<? extends Class<?>> types, int maxColumnLength) {
+    List<String> lines = new ArrayList<>();
+    for (Class<?> type : types) {
+      HeavyAttributes heavyAttributes = of(type, maxColumnLength);
+      if (!heavyAttributes.getAttributes().isEmpty()) {
+        lines.add(heavyAttributes.toString());
+      }
+    }
+    return String.join("\n", lines);
+  }
+
+  private static boolean isCharacterOrBinary(Class<?> type) {
+    return type == String.class
+        || type == char[].class
+        || type == Character[].class
+        || type == byte[].class
+        || type == Byte[].class;
+  }
+
+  private final Class<?> type;
+
+  private final List<Attribute> attributes;
+
+  private HeavyAttributes(Class<?> type, List<Attribute> attributes) {
+    this.type = type;
+    this.attributes = Collections.unmodifiableList(attributes);
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  public List<Attribute> getAttributes() {
+    return attributes;
+  }
+
+  public List<Attribute> getEagerAttributes() {
+    return attributes.stream()
+        .filter(attribute -> !attribute.isLazy())
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public String toString() {
+    return type.getSimpleName()
+        + ": "
+        + (attributes.isEmpty()
+            ? "none"
+            : attributes.stream().map(Attribute::toString).collect(Collectors.joining(", ")));
+  }
+
+  public static final class Attribute {
+
+    private final String fieldName;
+
+    private final boolean lob;
+
+    private final int length;
+
+    private final boolean lazy;
+
+    private Attribute(String fieldName, boolean lob, int length, boolean lazy) {
+      this.fieldName = fieldName;
+      this.lob = lob;
+      this.length = length;
+      this.lazy = lazy;
+    }
+
+    public String getFieldName() {
+      return fieldName;
+    }
+
+    public boolean isLob() {
+      return lob;
+    }
+
+    /** The declared column length, which for a {@link Lob} is usually ignored by providers. */
+    public int getLength() {
+      return length;
+    }
+
+    public boolean isLazy() {
+      return lazy;
+    }
+
+    @Override
+    public String toString() {
+      return fieldName
+          + " ("
+          + (lob ? "@Lob" : "length " + length)
+          + (lazy ? ", lazy)" : ", eager)");
+    }
+  }
+}
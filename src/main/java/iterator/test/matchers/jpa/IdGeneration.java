@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import javax.persistence.EmbeddedId;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.SequenceGenerators;
+import javax.persistence.TableGenerator;
+import javax.persistence.TableGenerators;
+
+/**
+ * How an entity's identifier is generated, with the generator named by {@link GeneratedValue}
+ * resolved from the id field, the entity or its mapped superclasses.
+ */
+public final class IdGeneration {
+
+  public enum Strategy {
+    IDENTITY,
+    SEQUENCE,
+    TABLE,
+    /** {@link GenerationType#AUTO} without a named generator, so chosen by the provider. */
+    AUTO,
+    /** No {@link GeneratedValue}: the application assigns identifiers itself. */
+    ASSIGNED
+  }
+
+  /**
+   * The allocation size of a sequence or table generator the provider creates itself, when none is
+   * declared under the name used; the default of both {@link SequenceGenerator} and {@link
+   * TableGenerator}.
+   */
+  private static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+  /** The identifier generation of the given class, or {@code null} if it maps no identifier. */
+  static IdGeneration of(Class<?> type) {
+    EntityMetadata metadata = EntityMetadata.of(type);
+    String idField = null;
+    for (String fieldName : metadata.getFields().keySet()) {
+      if (metadata.getFieldAnnotation(fieldName, EmbeddedId.class) != null) {
+        return new IdGeneration(Strategy.ASSIGNED, fieldName, "", 0);
+      }
+      if (idField == null && metadata.getFieldAnnotation(fieldName, Id.class) != null) {
+        idField = fieldName;
+      }
+    }
+    if (idField == null) {
+      return null;
+    }
+    GeneratedValue generatedValue = metadata.getFieldAnnotation(idField, GeneratedValue.class);
+    if (generatedValue == null) {
+      return new IdGeneration(Strategy.ASSIGNED, idField, "", 0);
+    }
+    String generator = generatedValue.generator();
+    GenerationType strategy = generatedValue.strategy();
+    if (strategy == GenerationType.IDENTITY) {
+      return new IdGeneration(Strategy.IDENTITY, idField, "", 0);
+    }
+    Annotation declaration =
+        generator.isEmpty() ? null : findGenerator(metadata, idField, generator);
+    if (declaration instanceof SequenceGenerator) {
+      return new IdGeneration(
+          Strategy.SEQUENCE,
+          idField,
+          generator,
+          ((SequenceGenerator) declaration).allocationSize());
+    }
+    if (declaration instanceof TableGenerator) {
+      return new IdGeneration(
+          Strategy.TABLE, idField, generator, ((TableGenerator) declaration).allocationSize());
+    }
+    if (strategy == GenerationType.AUTO) {
+      return new IdGeneration(Strategy.AUTO, idField, generator, 0);
+    }
+    return new IdGeneration(
+        Strategy.valueOf(strategy.name()), idField, generator, DEFAULT_ALLOCATION_SIZE);
+  }
+
+  private static Annotation findGenerator(
+      EntityMetadata metadata, String idField, String generator) {
+    Field field = metadata.getFields().get(idField);
+    Annotation declaration = findGenerator(field.getDeclaredAnnotations(), generator);
+    for (Class<?> type = metadata.getType();
+        declaration == null && type != null && type != Object.class;
+        type = type.getSuperclass()) {
+      declaration = findGenerator(type.getDeclaredAnnotations(), generator);
+    }
+    return declaration;
+  }
+
+  private static Annotation findGenerator(Annotation[] annotations, String generator) {
+    for (Annotation annotation : annotations) {
+      Annotation[] declared;
+      if (annotation instanceof SequenceGenerators) {
+        declared = ((SequenceGenerators) annotation).value();
+      } else if (annotation instanceof TableGenerators) {
+        declared = ((TableGenerators) annotation).value();
+      } else {
+        declared = new Annotation[] {annotation};
+      }
+      for (Annotation candidate : declared) {
+        if (candidate instanceof SequenceGenerator
+                && ((SequenceGenerator) candidate).name().equals(generator)
+            || candidate instanceof TableGenerator
+                && ((TableGenerator) candidate).name().equals(generator)) {
+          return candidate;
+        }
+      }
+    }
+    return null;
+  }
+
+  private final Strategy strategy;
+
+  private final String idField;
+
+  private final String generator;
+
+  private final int allocationSize;
+
+  private IdGeneration(Strategy strategy, String idField, String generator, int allocationSize) {
+    this.strategy = strategy;
+    this.idField = idField;
+    this.generator = generator;
+    this.allocationSize = allocationSize;
+  }
+
+  public Strategy getStrategy() {
+    return strategy;
+  }
+
+  public String getIdField() {
+    return idField;
+  }
+
+  /** The name of the generator used, or an empty string for the provider's default. */
+  public String getGenerator() {
+    return generator;
+  }
+
+  /**
+   * The number of identifiers reserved per round trip by a sequence or table generator, which is
+   * the JPA default of 50 when no generator is declared, or zero for other strategies.
+   */
+  public int getAllocationSize() {
+    return allocationSize;
+  }
+
+  /**
+   * Whether inserts can be batched: identity columns, and {@code AUTO} without a generator, make
+   * common providers insert each row on its own to read the generated key back.
+   */
+  public boolean isBatchInsertFriendly() {
+    return strategy != Strategy.IDENTITY && strategy != Strategy.AUTO;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder(strategy.name());
+    if (!generator.isEmpty() || allocationSize > 0) {
+      builder.append("(").append(generator);
+      if (allocationSize > 0) {
+        builder
+            .append(generator.isEmpty() ? "" : ", ")
+            .append("allocationSize=")
+            .append(allocationSize);
+      }
+      builder.append(")");
+    }
+    return builder.append(" on ").append(idField).toString();
+  }
+}
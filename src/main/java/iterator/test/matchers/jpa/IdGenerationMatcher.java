@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.function.Predicate;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/** Checks how an entity's identifier is generated, as classified by {@link IdGeneration}. */
+final class IdGenerationMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  static <T> IdGenerationMatcher<T> batchInsertFriendly() {
+    return new IdGenerationMatcher<>(
+        "entity with batch insert friendly id generation", IdGeneration::isBatchInsertFriendly);
+  }
+
+  static <T> IdGenerationMatcher<T> allocationSizeAtLeast(int allocationSize) {
+    if (allocationSize < 1) {
+      throw new IllegalArgumentException("allocationSize must be positive, was " + allocationSize);
+    }
+    return new IdGenerationMatcher<>(
+        "entity with ids assigned or allocated at least " + allocationSize + " at a time",
+        generation ->
+            generation.getStrategy() == IdGeneration.Strategy.ASSIGNED
+                || generation.isBatchInsertFriendly()
+                    && generation.getAllocationSize() >= allocationSize);
+  }
+
+  static <T> IdGenerationMatcher<T> strategy(IdGeneration.Strategy strategy) {
+    if (strategy == null) {
+      throw new IllegalArgumentException("strategy must not be null");
+    }
+    return new IdGenerationMatcher<>(
+        "entity with " + strategy + " id generation",
+        generation -> generation.getStrategy() == strategy);
+  }
+
+  private final String description;
+
+  private final Predicate<IdGeneration> predicate;
+
+  private IdGenerationMatcher(String description, Predicate<IdGeneration> predicate) {
+    this.description = description;
+    this.predicate = predicate;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText(this.description);
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    IdGeneration generation = IdGeneration.of(item);
+    if (generation == null) {
+      mismatchDescription.appendValue(item).appendText(" maps no identifier");
+      return false;
+    }
+    if (!predicate.test(generation)) {
+      mismatchDescription
+          .appendValue(item)
+          .appendText(" generates ids with ")
+          .appendText(generation.toString());
+      return false;
+    }
+    return true;
+  }
+}
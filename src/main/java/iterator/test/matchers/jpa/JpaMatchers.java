@@ -16,19 +16,39 @@
 package iterator.test.matchers.jpa;
 
 import java.lang.annotation.Annotation;
+import java.nio.file.Path;
 
 import javax.persistence.*;
 
 import org.hamcrest.Matcher;
 
 import iterator.test.matchers.type.annotation.AnnotationMap;
-import iterator.test.matchers.type.annotation.FieldAnnotationMatcher;
-import iterator.test.matchers.type.annotation.TypeAnnotationMatcher;
 
 public final class JpaMatchers {
 
   private static final String VALUE = "value";
 
+  public static EntityScan allEntitiesIn(String packageName) {
+    return EntityScan.inPackage(packageName);
+  }
+
+  public static EntityScan allEntitiesIn(Path classPathRoot) {
+    return EntityScan.underRoot(classPathRoot);
+  }
+
+  public static <T> Matcher<Class<T>> hasBatchInsertFriendlyIdGeneration() {
+    return IdGenerationMatcher.batchInsertFriendly();
+  }
+
+  public static <T> Matcher<Class<T>> hasCacheableAnnotation() {
+    return hasTypeAnnotation(AnnotationMap.from(Cacheable.class));
+  }
+
+  public static <T> Matcher<Class<T>> hasCacheableAnnotation(
+      AnnotationMap<Cacheable> cacheableAnnotation) {
+    return hasTypeAnnotation(cacheableAnnotation);
+  }
+
   public static <T> Matcher<Class<T>> hasColumnAnnotation(String fieldName) {
     return hasFieldAnnotation(fieldName, AnnotationMap.from(Column.class));
   }
@@ -38,6 +58,10 @@ public final class JpaMatchers {
     return hasFieldAnnotation(fieldName, columnAnnotation);
   }
 
+  public static <T> Matcher<Class<T>> hasConsistentAssociations() {
+    return new BidirectionalAssociationMatcher<>();
+  }
+
   public static <T> Matcher<Class<T>> hasDiscriminatorColumnAnnotation() {
     return hasTypeAnnotation(AnnotationMap.from(DiscriminatorColumn.class));
   }
@@ -47,6 +71,10 @@ public final class JpaMatchers {
     return hasTypeAnnotation(discriminatorColumn);
   }
 
+  public static <T> Matcher<Class<T>> hasEagerFetchDepthAtMost(int maxDepth) {
+    return EagerFetchMatcher.depthAtMost(maxDepth);
+  }
+
   public static <T> Matcher<Class<T>> hasEntityAnnotation() {
     return hasTypeAnnotation(AnnotationMap.from(Entity.class));
   }
@@ -55,6 +83,10 @@ public final class JpaMatchers {
     return hasTypeAnnotation(entityAnnotation);
   }
 
+  public static EntityMappingSpec hasEntityMapping() {
+    return new EntityMappingSpec();
+  }
+
   public static <T> Matcher<Class<T>> hasEntityListenersAnnotation(Class<?>[] entityListeners) {
     return hasTypeAnnotation(AnnotationMap.from(EntityListeners.class).set(VALUE, entityListeners));
   }
@@ -77,6 +109,24 @@ public final class JpaMatchers {
     return hasFieldAnnotation(fieldName, enumeratedAnnotation);
   }
 
+  /**
+   * Estimates the row of the entity's own table from the entity and its superclasses. A {@code
+   * SINGLE_TABLE} table also holds the columns of the subclasses: use the overload taking the
+   * hierarchy to count them.
+   */
+  public static <T> Matcher<Class<T>> hasEstimatedRowWidthAtMost(int maxBytes) {
+    return new RowWidthMatcher<>(maxBytes);
+  }
+
+  /** Estimates the row of the entity's table merged with every given entity that shares it. */
+  public static <T> Matcher<Class<T>> hasEstimatedRowWidthAtMost(
+      int maxBytes, Iterable<? extends Class<?>> entities) {
+    if (entities == null) {
+      throw new IllegalArgumentException("entities must not be null");
+    }
+    return new RowWidthMatcher<>(maxBytes, entities);
+  }
+
   public static <T> Matcher<Class<T>> hasGeneratedValueAnnotation(String fieldName) {
     return hasFieldAnnotation(fieldName, AnnotationMap.from(GeneratedValue.class));
   }
@@ -86,6 +136,18 @@ public final class JpaMatchers {
     return hasFieldAnnotation(fieldName, generatedValueAnnotation);
   }
 
+  public static <T> Matcher<Class<T>> hasIdAllocationSizeAtLeast(int allocationSize) {
+    return IdGenerationMatcher.allocationSizeAtLeast(allocationSize);
+  }
+
+  public static <T> Matcher<Class<T>> hasIdGeneration(IdGeneration.Strategy strategy) {
+    return IdGenerationMatcher.strategy(strategy);
+  }
+
+  public static <T> Matcher<Class<T>> hasIndexedForeignKeys() {
+    return new ForeignKeyIndexMatcher<>();
+  }
+
   public static <T> Matcher<Class<T>> hasInheritanceAnnotation() {
     return hasTypeAnnotation(AnnotationMap.from(Inheritance.class));
   }
@@ -135,6 +197,27 @@ public final class JpaMatchers {
     return hasTypeAnnotation(mappedSuperclassAnnotation);
   }
 
+  public static <T> Matcher<Class<T>> hasNamedEntityGraph(
+      String graphName, String... attributeNodes) {
+    return EntityGraphMatcher.named(graphName, attributeNodes);
+  }
+
+  public static <T> Matcher<Class<T>> hasNoEagerCollections() {
+    return EagerFetchMatcher.noEagerCollections();
+  }
+
+  public static <T> Matcher<Class<T>> hasNoEagerColumnsWiderThan(int maxColumnLength) {
+    return HeavyAttributeMatcher.noEagerColumnsWiderThan(maxColumnLength);
+  }
+
+  public static <T> Matcher<Class<T>> hasNoEagerLobs() {
+    return HeavyAttributeMatcher.noEagerLobs();
+  }
+
+  public static Matcher<Path> hasNoSchemaAffectingChangesSince(Path baseline) {
+    return new SchemaChangeMatcher(baseline);
+  }
+
   public static <T> Matcher<Class<T>> hasOneToManyAnnotation(String fieldName) {
     return hasFieldAnnotation(fieldName, AnnotationMap.from(OneToMany.class));
   }
@@ -181,14 +264,47 @@ public final class JpaMatchers {
     return hasFieldAnnotation(fieldName, temporalAnnotation);
   }
 
+  public static <T> Matcher<Class<T>> hasValidNamedEntityGraphs() {
+    return EntityGraphMatcher.valid();
+  }
+
+  public static <T> Matcher<Class<T>> hasValidNamedQueries(Class<?>... entities) {
+    return new NamedQueryMatcher<>(entities);
+  }
+
+  /**
+   * Evaluates an annotation matcher against a single class file. Unlike the reflective matchers,
+   * it does not see fields or type annotations inherited from mapped superclasses: match those
+   * against the class file of the superclass that declares them.
+   */
+  public static Matcher<ClassFile> inClassFile(Matcher<?> matcher) {
+    return ClassFileMatcher.of(matcher);
+  }
+
+  public static <T> Matcher<Class<T>> isCachedUnder(SharedCacheMode mode) {
+    return new SharedCacheMatcher<>(mode);
+  }
+
+  public static Matcher<Iterable<? extends Class<?>>> matchesMappingSnapshot(Path snapshot) {
+    return new MappingSnapshotMatcher(snapshot);
+  }
+
+  public static Matcher<Iterable<? extends Class<?>>> satisfiesCachePolicy(CachePolicy policy) {
+    return new CachePolicyMatcher(policy);
+  }
+
+  public static <T> Matcher<Class<T>> withOrmXml(Path ormXml, Matcher<?> matcher) {
+    return OrmXmlMatcher.of(OrmXml.read(ormXml), matcher);
+  }
+
   private static <A extends Annotation, T> Matcher<Class<T>> hasFieldAnnotation(
       String fieldName, AnnotationMap<A> fieldAnnotation) {
-    return new FieldAnnotationMatcher<>(fieldName, fieldAnnotation);
+    return new EntityFieldAnnotationMatcher<>(fieldName, Expectation.of(fieldAnnotation));
   }
 
   private static <A extends Annotation, T> Matcher<Class<T>> hasTypeAnnotation(
       AnnotationMap<A> typeAnnotation) {
-    return new TypeAnnotationMatcher<>(typeAnnotation);
+    return new EntityTypeAnnotationMatcher<>(Expectation.of(typeAnnotation));
   }
 
   private JpaMatchers() {
@@ -0,0 +1,515 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A lightweight, single pass check of JPQL statements against the annotated model.
+ *
+ * <p>It does not validate the full grammar. It finds the identification variables declared by the
+ * {@code FROM}, {@code JOIN} and {@code UPDATE} clauses of a statement and its subqueries,
+ * including a correlated subquery's {@code FROM path alias}. It resolves every entity name and
+ * every path expression against {@link EntityMetadata}, and flags collections that are joined
+ * without {@code FETCH}, and not selected, when no fetch or load graph is applied. Identification variables are matched case insensitively, and a {@code JOIN TREAT(path
+ * AS Subtype)} declares its variable with the named subtype.
+ */
+final class JpqlValidator {
+
+  private static final Set<String> CLAUSE_KEYWORDS =
+      new HashSet<>(
+          Arrays.asList("WHERE", "GROUP", "HAVING", "ORDER", "SET", "UNION", "SELECT", "FROM"));
+
+  private final Map<String, Class<?>> entities;
+
+  private final ClassLoader classLoader;
+
+  JpqlValidator(Map<String, Class<?>> entities, ClassLoader classLoader) {
+    this.entities = entities;
+    this.classLoader = classLoader;
+  }
+
+  /** The problems found in the statement, each prefixed with the given label. */
+  List<String> validate(String label, String jpql, boolean graphHint) {
+    return new Statement(label, tokenize(jpql), graphHint).validate();
+  }
+
+  private final class Statement {
+
+    private final String label;
+
+    private final List<Token> tokens;
+
+    private final boolean graphHint;
+
+    private final Map<String, Class<?>> variables = new HashMap<>();
+
+    private final Set<String> selected = new HashSet<>();
+
+    private final boolean[] declaration;
+
+    private final List<String> problems = new ArrayList<>();
+
+    Statement(String label, List<Token> tokens, boolean graphHint) {
+      this.label = label;
+      this.tokens = tokens;
+      this.graphHint = graphHint;
+      this.declaration = new boolean[tokens.size()];
+    }
+
+    List<String> validate() {
+      if (tokens.isEmpty()) {
+        problem("the query is empty");
+        return problems;
+      }
+      for (int i = 0; i < tokens.size(); i++) {
+        if (tokens.get(i).is("SELECT")) {
+          selection(i + 1);
+        } else if (tokens.get(i).is("FROM") && (isRange(i + 1) || isMemberPath(i + 1))) {
+          from(i + 1);
+        } else if (tokens.get(i).is("UPDATE") && i == 0) {
+          range(1);
+        }
+      }
+      for (int i = 0; i < tokens.size(); i++) {
+        if (!declaration[i] && isPathStart(i)) {
+          i = path(i);
+        }
+      }
+      return problems;
+    }
+
+    private void selection(int start) {
+      int depth = 0;
+      for (int i = start; i < tokens.size() && !(depth == 0 && tokens.get(i).is("FROM")); i++) {
+        depth += tokens.get(i).depth();
+        if (depth < 0) {
+          return;
+        }
+        if (tokens.get(i).kind == Kind.IDENTIFIER) {
+          selected.add(variableKey(tokens.get(i).text));
+        }
+      }
+    }
+
+    private void from(int start) {
+      int i = isRange(start) ? range(start) : memberPath(start);
+      while (i < tokens.size()) {
+        Token token = tokens.get(i);
+        if (token.is(",")) {
+          i = tokens.size() > i + 1 && tokens.get(i + 1).is("IN") ? member(i + 2) : range(i + 1);
+        } else if (token.is("LEFT") || token.is("INNER") || token.is("OUTER")) {
+          i++;
+        } else if (token.is("JOIN")) {
+          i = join(i + 1);
+        } else {
+          return;
+        }
+      }
+    }
+
+    private int range(int i) {
+      if (i >= tokens.size() || tokens.get(i).kind != Kind.IDENTIFIER) {
+        problem("expected an entity name at " + describe(i));
+        return tokens.size();
+      }
+      String entityName = tokens.get(i).text;
+      declaration[i] = true;
+      Class<?> type = entities.get(entityName);
+      if (type == null) {
+        problem("unknown entity " + entityName);
+      }
+      return variable(i + 1, type, entityName);
+    }
+
+    private int join(int i) {
+      boolean fetch = i < tokens.size() && tokens.get(i).is("FETCH");
+      int start = fetch ? i + 1 : i;
+      if (start + 1 < tokens.size()
+          && tokens.get(start).is("TREAT")
+          && tokens.get(start + 1).is("(")) {
+        return treat(start + 2, fetch);
+      }
+      int end = pathEnd(start);
+      if (end == start) {
+        problem("expected a join path at " + describe(start));
+        return tokens.size();
+      }
+      Resolved resolved = resolve(start, end);
+      return joined(
+          variable(end, resolved == null ? null : resolved.type, text(start, end)),
+          end,
+          resolved,
+          fetch,
+          text(start, end));
+    }
+
+    /** A join of {@code TREAT(path AS Subtype)}, whose variable has the named subtype. */
+    private int treat(int start, boolean fetch) {
+      int end = pathEnd(start);
+      if (end == start) {
+        problem("expected a join path at " + describe(start));
+        return tokens.size();
+      }
+      Resolved resolved = resolve(start, end);
+      if (end + 2 >= tokens.size()
+          || !tokens.get(end).is("AS")
+          || tokens.get(end + 1).kind != Kind.IDENTIFIER
+          || !tokens.get(end + 2).is(")")) {
+        problem("expected AS and an entity name in TREAT at " + describe(end));
+        return tokens.size();
+      }
+      String entityName = tokens.get(end + 1).text;
+      declaration[end + 1] = true;
+      Class<?> subtype = entities.get(entityName);
+      if (subtype == null) {
+        problem("unknown entity " + entityName);
+      } else if (resolved != null
+          && resolved.type != null
+          && !resolved.type.isAssignableFrom(subtype)) {
+        problem(
+            "TREAT("
+                + text(start, end)
+                + " AS "
+                + entityName
+                + "): "
+                + entityName
+                + " is not a subtype of "
+                + resolved.type.getSimpleName());
+      }
+      String declared = "TREAT(" + text(start, end) + " AS " + entityName + ")";
+      return joined(
+          variable(end + 3, subtype, declared),
+          end + 3,
+          resolved == null ? null : new Resolved(subtype, resolved.collection),
+          fetch,
+          declared);
+    }
+
+    private int joined(int next, int end, Resolved resolved, boolean fetch, String joined) {
+      String alias = next > end ? variableKey(tokens.get(next - 1).text) : null;
+      if (resolved != null
+          && resolved.collection
+          && !fetch
+          && !graphHint
+          && (alias == null || !selected.contains(alias))) {
+        problem(
+            "JOIN " + joined + " joins a collection without FETCH or a fetch or load graph hint");
+      }
+      if (next < tokens.size() && tokens.get(next).is("ON")) {
+        return skipCondition(next + 1);
+      }
+      return next;
+    }
+
+    private int member(int i) {
+      if (i >= tokens.size() || !tokens.get(i).is("(")) {
+        problem("expected ( at " + describe(i));
+        return tokens.size();
+      }
+      int end = pathEnd(i + 1);
+      Resolved resolved = resolve(i + 1, end);
+      if (end >= tokens.size() || !tokens.get(end).is(")")) {
+        problem("expected ) at " + describe(end));
+        return tokens.size();
+      }
+      return variable(end + 1, resolved == null ? null : resolved.type, text(i + 1, end));
+    }
+
+    /**
+     * A subquery's {@code FROM o.items i}, which declares a collection member like {@code IN}
+     * without the parentheses.
+     */
+    private int memberPath(int start) {
+      int end = pathEnd(start);
+      Resolved resolved = resolve(start, end);
+      return variable(end, resolved == null ? null : resolved.type, text(start, end));
+    }
+
+    private int variable(int i, Class<?> type, String declared) {
+      if (i < tokens.size() && tokens.get(i).is("AS")) {
+        i++;
+      }
+      if (i < tokens.size() && tokens.get(i).kind == Kind.IDENTIFIER && !isKeyword(tokens.get(i))) {
+        declaration[i] = true;
+        variables.put(variableKey(tokens.get(i).text), type);
+        return i + 1;
+      }
+      if (!declared.contains(".") && !declared.startsWith("TREAT(")) {
+        problem("expected an identification variable after " + declared);
+      }
+      return i;
+    }
+
+    private int skipCondition(int i) {
+      int depth = 0;
+      for (; i < tokens.size(); i++) {
+        Token token = tokens.get(i);
+        if (depth == 0
+            && (token.is("JOIN")
+                || token.is("LEFT")
+                || token.is("INNER")
+                || token.is(",")
+                || CLAUSE_KEYWORDS.contains(token.upper)
+                || token.is(")"))) {
+          return i;
+        }
+        depth += token.depth();
+      }
+      return i;
+    }
+
+    private int path(int start) {
+      int end = pathEnd(start);
+      String root = tokens.get(start).text;
+      if (variables.containsKey(variableKey(root))) {
+        resolve(start, end);
+      } else if (!(start > 0 && tokens.get(start - 1).is("NEW")) && !isClassConstant(start, end)) {
+        problem("unknown identification variable " + root + " in " + text(start, end));
+      }
+      return end - 1;
+    }
+
+    private Resolved resolve(int start, int end) {
+      String root = tokens.get(start).text;
+      if (!variables.containsKey(variableKey(root))) {
+        problem("unknown identification variable " + root + " in " + text(start, end));
+        return null;
+      }
+      Class<?> type = variables.get(variableKey(root));
+      boolean collection = false;
+      for (int i = start + 2; i < end && type != null; i += 2) {
+        String attribute = tokens.get(i).text;
+        EntityMetadata metadata = EntityMetadata.of(type);
+        if (collection) {
+          problem(text(start, end) + " navigates through the collection " + tokens.get(i - 2).text);
+          return null;
+        }
+        if (!metadata.isPersistent(attribute)) {
+          problem(
+              text(start, end)
+                  + ": "
+                  + attribute
+                  + " is not a persistent attribute of "
+                  + type.getSimpleName());
+          return null;
+        }
+        collection = isCollection(metadata, attribute);
+        Class<?> target = metadata.getTargetType(attribute);
+        if (target == null && i + 2 < end) {
+          problem(text(start, end) + ": " + attribute + " is not an association or embeddable");
+          return null;
+        }
+        type = target;
+      }
+      return new Resolved(type, collection);
+    }
+
+    /** Identification variables are case insensitive. */
+    private String variableKey(String variable) {
+      return variable.toLowerCase(Locale.ROOT);
+    }
+
+    private boolean isClassConstant(int start, int end) {
+      StringBuilder name = new StringBuilder(tokens.get(start).text);
+      for (int i = start + 2; i < end; i += 2) {
+        try {
+          Class.forName(name.toString(), false, classLoader);
+          return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+          name.append('.').append(tokens.get(i).text);
+        }
+      }
+      return false;
+    }
+
+    private boolean isRange(int i) {
+      return i >= tokens.size() || tokens.get(i).kind == Kind.IDENTIFIER && !isPathStart(i);
+    }
+
+    /**
+     * Whether a path follows {@code FROM} and declares a variable, unlike the path of {@code
+     * TRIM(FROM path)}.
+     */
+    private boolean isMemberPath(int i) {
+      if (i >= tokens.size() || !isPathStart(i)) {
+        return false;
+      }
+      int end = i + 1;
+      while (end + 1 < tokens.size()
+          && tokens.get(end).is(".")
+          && tokens.get(end + 1).kind == Kind.IDENTIFIER) {
+        end += 2;
+      }
+      return end < tokens.size()
+          && (tokens.get(end).is("AS")
+              || tokens.get(end).kind == Kind.IDENTIFIER && !isKeyword(tokens.get(end)));
+    }
+
+    private boolean isPathStart(int i) {
+      return tokens.get(i).kind == Kind.IDENTIFIER
+          && (i == 0 || !tokens.get(i - 1).is("."))
+          && i + 2 < tokens.size()
+          && tokens.get(i + 1).is(".")
+          && tokens.get(i + 2).kind == Kind.IDENTIFIER;
+    }
+
+    private int pathEnd(int start) {
+      int end = start;
+      if (end < tokens.size() && tokens.get(end).kind == Kind.IDENTIFIER) {
+        end++;
+        while (end + 1 < tokens.size()
+            && tokens.get(end).is(".")
+            && tokens.get(end + 1).kind == Kind.IDENTIFIER) {
+          end += 2;
+        }
+      }
+      for (int i = start; i < end; i++) {
+        declaration[i] = true;
+      }
+      return end;
+    }
+
+    private String text(int start, int end) {
+      StringBuilder text = new StringBuilder();
+      for (int i = start; i < end; i++) {
+        text.append(tokens.get(i).text);
+      }
+      return text.toString();
+    }
+
+    private String describe(int i) {
+      return i < tokens.size() ? "'" + tokens.get(i).text + "'" : "the end of the query";
+    }
+
+    private void problem(String problem) {
+      problems.add(label + ": " + problem);
+    }
+  }
+
+  private static boolean isCollection(EntityMetadata metadata, String attribute) {
+    for (Association association : metadata.getAssociations()) {
+      if (association.getFieldName().equals(attribute)) {
+        return association.isCollection();
+      }
+    }
+    return false;
+  }
+
+  private static boolean isKeyword(Token token) {
+    return CLAUSE_KEYWORDS.contains(token.upper)
+        || token.is("JOIN")
+        || token.is("LEFT")
+        || token.is("INNER")
+        || token.is("OUTER")
+        || token.is("ON");
+  }
+
+  private static final class Resolved {
+
+    private final Class<?> type;
+
+    private final boolean collection;
+
+    Resolved(Class<?> type, boolean collection) {
+      this.type = type;
+      this.collection = collection;
+    }
+  }
+
+  enum Kind {
+    IDENTIFIER,
+    LITERAL,
+    PARAMETER,
+    SYMBOL
+  }
+
+  static final class Token {
+
+    private final Kind kind;
+
+    private final String text;
+
+    private final String upper;
+
+    Token(Kind kind, String text) {
+      this.kind = kind;
+      this.text = text;
+      this.upper = kind == Kind.IDENTIFIER ? text.toUpperCase(Locale.ROOT) : text;
+    }
+
+    boolean is(String keywordOrSymbol) {
+      return upper.equals(keywordOrSymbol);
+    }
+
+    int depth() {
+      return is("(") ? 1 : is(")") ? -1 : 0;
+    }
+
+    @Override
+    public String toString() {
+      return text;
+    }
+  }
+
+  static List<Token> tokenize(String jpql) {
+    List<Token> tokens = new ArrayList<>();
+    int length = jpql.length();
+    int i = 0;
+    while (i < length) {
+      char c = jpql.charAt(i);
+      int start = i;
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isJavaIdentifierStart(c)) {
+        while (i < length && Character.isJavaIdentifierPart(jpql.charAt(i))) {
+          i++;
+        }
+        tokens.add(new Token(Kind.IDENTIFIER, jpql.substring(start, i)));
+      } else if (Character.isDigit(c)) {
+        while (i < length && (Character.isLetterOrDigit(jpql.charAt(i)) || jpql.charAt(i) == '.')) {
+          i++;
+        }
+        tokens.add(new Token(Kind.LITERAL, jpql.substring(start, i)));
+      } else if (c == '\'') {
+        i++;
+        while (i < length
+            && (jpql.charAt(i) != '\'' || i + 1 < length && jpql.charAt(i + 1) == '\'')) {
+          i += jpql.charAt(i) == '\'' ? 2 : 1;
+        }
+        i = Math.min(i + 1, length);
+        tokens.add(new Token(Kind.LITERAL, jpql.substring(start, i)));
+      } else if (c == ':' || c == '?') {
+        i++;
+        while (i < length && Character.isJavaIdentifierPart(jpql.charAt(i))) {
+          i++;
+        }
+        tokens.add(new Token(Kind.PARAMETER, jpql.substring(start, i)));
+      } else {
+        i++;
+        tokens.add(new Token(Kind.SYMBOL, String.valueOf(c)));
+      }
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+/** One entry that differs between two mapping snapshots. */
+public final class MappingChange {
+
+  public enum Kind {
+    ADDED,
+    REMOVED,
+    CHANGED
+  }
+
+  private final Kind kind;
+
+  private final String key;
+
+  private final String before;
+
+  private final String after;
+
+  private final boolean schemaAffecting;
+
+  MappingChange(Kind kind, String key, String before, String after) {
+    this(kind, key, before, after, true);
+  }
+
+  MappingChange(Kind kind, String key, String before, String after, boolean schemaAffecting) {
+    this.kind = kind;
+    this.key = key;
+    this.before = before;
+    this.after = after;
+    this.schemaAffecting = schemaAffecting;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /** The class or {@code class#field} and the annotation type the entry describes. */
+  public String getKey() {
+    return key;
+  }
+
+  public String getBefore() {
+    return before;
+  }
+
+  public String getAfter() {
+    return after;
+  }
+
+  /**
+   * Whether the change can alter the database schema. Changes are assumed to unless they were
+   * classified by a {@link MappingDiff}.
+   */
+  public boolean isSchemaAffecting() {
+    return schemaAffecting;
+  }
+
+  @Override
+  public String toString() {
+    switch (kind) {
+      case ADDED:
+        return "+ " + after;
+      case REMOVED:
+        return "- " + before;
+      default:
+        return "~ " + before + "\n    -> " + after;
+    }
+  }
+}
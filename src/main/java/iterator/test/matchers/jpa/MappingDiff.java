@@ -0,0 +1,316 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.MappedSuperclass;
+
+/**
+ * The differences between the JPA annotation models of two jars or class directories, read from
+ * their class files without loading them, in the entry form of a {@link MappingSnapshot}.
+ *
+ * <p>Each change is classified as schema affecting or not. Annotations that only name queries,
+ * entity graphs, result set mappings, listeners or caching cannot change the schema, and neither
+ * can the {@code fetch}, {@code cascade} and {@code orphanRemoval} attributes of any annotation.
+ * Every other change is assumed to, as is a change to the Java type of a persistent field, which is
+ * recorded for every non-static field of an entity, mapped superclass or embeddable together with
+ * the {@code @Basic} it implies when it is not annotated.
+ *
+ * <p>Run as a program with the baseline and current roots as arguments, it prints the changes and
+ * exits with status 1 when any of them affect the schema.
+ */
+public final class MappingDiff {
+
+  private static final Set<String> NON_SCHEMA_ANNOTATIONS =
+      new HashSet<>(
+          Arrays.asList(
+              "Cacheable",
+              "EntityListeners",
+              "ExcludeDefaultListeners",
+              "ExcludeSuperclassListeners",
+              "NamedEntityGraph",
+              "NamedEntityGraphs",
+              "NamedNativeQueries",
+              "NamedNativeQuery",
+              "NamedQueries",
+              "NamedQuery",
+              "NamedStoredProcedureQueries",
+              "NamedStoredProcedureQuery",
+              "OrderBy",
+              "PersistenceContext",
+              "PersistenceContexts",
+              "PersistenceUnit",
+              "PersistenceUnits",
+              "SqlResultSetMapping",
+              "SqlResultSetMappings"));
+
+  /** Annotations that map a field as something other than an implied {@code @Basic}. */
+  private static final Set<String> NON_BASIC_ANNOTATIONS =
+      new HashSet<>(
+          Arrays.asList(
+              "Basic",
+              "ElementCollection",
+              "Embedded",
+              "EmbeddedId",
+              "ManyToMany",
+              "ManyToOne",
+              "OneToMany",
+              "OneToOne",
+              "Transient"));
+
+  private static final AnnotationData IMPLIED_BASIC =
+      new AnnotationData(CanonicalForm.PERSISTENCE_PACKAGE + "Basic", Collections.emptyMap());
+
+  private static final Set<String> NON_SCHEMA_ATTRIBUTES =
+      new HashSet<>(Arrays.asList("cascade", "fetch", "orphanRemoval"));
+
+  public static MappingDiff between(Path baseline, Path current) {
+    CompletableFuture<SortedMap<String, Entry>> before =
+        CompletableFuture.supplyAsync(() -> entries(baseline));
+    SortedMap<String, Entry> after = entries(current);
+    return new MappingDiff(baseline, current, diff(before.join(), after));
+  }
+
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.err.println("usage: " + MappingDiff.class.getName() + " <baseline> <current>");
+      System.exit(2);
+    }
+    MappingDiff diff = between(Paths.get(args[0]), Paths.get(args[1]));
+    System.out.println(diff);
+    System.exit(diff.hasSchemaAffectingChanges() ? 1 : 0);
+  }
+
+  private static SortedMap<String, Entry> entries(Path classPathRoot) {
+    List<ClassFile> classFiles = ClassFile.readAll(classPathRoot);
+    Map<String, ClassFile> byName =
+        classFiles.stream().collect(Collectors.toMap(ClassFile::getName, Function.identity()));
+    return classFiles.parallelStream()
+        .flatMap(classFile -> entries(classFile, byName).stream())
+        .collect(
+            Collectors.toMap(
+                entry -> entry.key, Function.identity(), (first, second) -> first, TreeMap::new));
+  }
+
+  private static List<Entry> entries(ClassFile classFile, Map<String, ClassFile> byName) {
+    List<Entry> entries = new ArrayList<>();
+    for (AnnotationData annotation : classFile.getTypeAnnotations().values()) {
+      addEntry(entries, classFile.getName(), annotation);
+    }
+    Map<String, ClassFile.FieldInfo> fields = new LinkedHashMap<>(classFile.getFields());
+    for (ClassFile ancestor = byName.get(classFile.getSuperclassName());
+        ancestor != null;
+        ancestor = byName.get(ancestor.getSuperclassName())) {
+      if (ancestor.isAnnotatedWith(Entity.class)
+          || ancestor.isAnnotatedWith(MappedSuperclass.class)) {
+        ancestor.getFields().forEach(fields::putIfAbsent);
+      }
+    }
+    boolean persistent =
+        classFile.isAnnotatedWith(Entity.class)
+            || classFile.isAnnotatedWith(MappedSuperclass.class)
+            || classFile.isAnnotatedWith(Embeddable.class);
+    if (entries.isEmpty() && !persistent && !hasMappingAnnotation(classFile)) {
+      return Collections.emptyList();
+    }
+    for (ClassFile.FieldInfo field : fields.values()) {
+      String owner = classFile.getName() + "#" + field.getName();
+      for (AnnotationData annotation : field.getAnnotations().values()) {
+        addEntry(entries, owner, annotation);
+      }
+      if (persistent && !field.isStatic()) {
+        addFieldEntries(entries, owner, field, byName);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Records the Java type and {@code transient} modifier of a persistent class's field, and the
+   * {@code @Basic} implied when no annotation says how it is mapped, so that plain fields and type
+   * changes show up as column changes.
+   */
+  private static void addFieldEntries(
+      List<Entry> entries, String owner, ClassFile.FieldInfo field, Map<String, ClassFile> byName) {
+    String full =
+        owner + "\tfield(type=" + field.getTypeName() + ", transient=" + field.isTransient() + ")";
+    boolean mapped =
+        !field.isTransient()
+            && field.getAnnotations().get(CanonicalForm.PERSISTENCE_PACKAGE + "Transient") == null;
+    entries.add(new Entry(MappingSnapshot.key(full), full, mapped ? full : null));
+    if (!mapped) {
+      return;
+    }
+    for (String annotationTypeName : field.getAnnotations().keySet()) {
+      if (CanonicalForm.isMappingAnnotation(annotationTypeName)
+          && NON_BASIC_ANNOTATIONS.contains(
+              annotationTypeName.substring(CanonicalForm.PERSISTENCE_PACKAGE.length()))) {
+        return;
+      }
+    }
+    ClassFile fieldType = byName.get(field.getTypeName());
+    if (fieldType == null || !fieldType.isAnnotatedWith(Embeddable.class)) {
+      addEntry(entries, owner, IMPLIED_BASIC);
+    }
+  }
+
+  private static boolean hasMappingAnnotation(ClassFile classFile) {
+    for (ClassFile.FieldInfo field : classFile.getFields().values()) {
+      for (String annotationTypeName : field.getAnnotations().keySet()) {
+        if (CanonicalForm.isMappingAnnotation(annotationTypeName)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void addEntry(List<Entry> entries, String owner, AnnotationData annotation) {
+    String typeName = annotation.getTypeName();
+    if (!CanonicalForm.isMappingAnnotation(typeName)) {
+      return;
+    }
+    String full = owner + "\t" + CanonicalForm.render(annotation, attribute -> true);
+    String schema =
+        NON_SCHEMA_ANNOTATIONS.contains(
+                typeName.substring(CanonicalForm.PERSISTENCE_PACKAGE.length()))
+            ? null
+            : CanonicalForm.render(
+                annotation, attribute -> !NON_SCHEMA_ATTRIBUTES.contains(attribute));
+    entries.add(new Entry(MappingSnapshot.key(full), full, schema));
+  }
+
+  private static List<MappingChange> diff(
+      SortedMap<String, Entry> before, SortedMap<String, Entry> after) {
+    List<MappingChange> changes = new ArrayList<>();
+    Iterator<Entry> previousEntries = before.values().iterator();
+    Iterator<Entry> currentEntries = after.values().iterator();
+    Entry previous = next(previousEntries);
+    Entry current = next(currentEntries);
+    while (previous != null || current != null) {
+      int order = previous == null ? 1 : current == null ? -1 : previous.key.compareTo(current.key);
+      if (order < 0) {
+        changes.add(
+            new MappingChange(
+                MappingChange.Kind.REMOVED,
+                previous.key,
+                previous.full,
+                null,
+                previous.schema != null));
+        previous = next(previousEntries);
+      } else if (order > 0) {
+        changes.add(
+            new MappingChange(
+                MappingChange.Kind.ADDED, current.key, null, current.full, current.schema != null));
+        current = next(currentEntries);
+      } else {
+        if (!previous.full.equals(current.full)) {
+          changes.add(
+              new MappingChange(
+                  MappingChange.Kind.CHANGED,
+                  current.key,
+                  previous.full,
+                  current.full,
+                  !Objects.equals(current.schema, previous.schema)));
+        }
+        previous = next(previousEntries);
+        current = next(currentEntries);
+      }
+    }
+    return changes;
+  }
+
+  private static Entry next(Iterator<Entry> entries) {
+    return entries.hasNext() ? entries.next() : null;
+  }
+
+  private final Path baseline;
+
+  private final Path current;
+
+  private final List<MappingChange> changes;
+
+  private MappingDiff(Path baseline, Path current, List<MappingChange> changes) {
+    this.baseline = baseline;
+    this.current = current;
+    this.changes = Collections.unmodifiableList(changes);
+  }
+
+  public List<MappingChange> getChanges() {
+    return changes;
+  }
+
+  public List<MappingChange> getSchemaAffectingChanges() {
+    return changes.stream().filter(MappingChange::isSchemaAffecting).collect(Collectors.toList());
+  }
+
+  public boolean hasSchemaAffectingChanges() {
+    return changes.stream().anyMatch(MappingChange::isSchemaAffecting);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder =
+        new StringBuilder()
+            .append(changes.size())
+            .append(" mapping changes, ")
+            .append(getSchemaAffectingChanges().size())
+            .append(" schema affecting, from ")
+            .append(baseline)
+            .append(" to ")
+            .append(current);
+    for (MappingChange change : changes) {
+      builder
+          .append("\n")
+          .append(change.isSchemaAffecting() ? "! " : "  ")
+          .append(change.toString().replace("\n", "\n  "));
+    }
+    return builder.toString();
+  }
+
+  private static final class Entry {
+
+    private final String key;
+
+    private final String full;
+
+    private final String schema;
+
+    Entry(String key, String full, String schema) {
+      this.key = key;
+      this.full = full;
+      this.schema = schema;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The complete JPA annotation model of a set of classes as sorted, single-line entries of the
+ * form {@code owner<TAB>@annotation(attributes)}, where the owner is a class name or {@code
+ * class#field} and every attribute, defaults included, is written in name order.
+ *
+ * <p>Each class is recorded as {@link EntityMetadata} resolves it: fields and the hierarchy-wide
+ * type annotations inherited from mapped superclasses appear under the class itself, so a change
+ * to a shared base shows up against every entity whose mapping it changes.
+ */
+public final class MappingSnapshot {
+
+  static final String HEADER = "# JPA mapping snapshot";
+
+  static final Comparator<String> ENTRY_ORDER =
+      Comparator.comparing(MappingSnapshot::key).thenComparing(Comparator.naturalOrder());
+
+  public static MappingSnapshot of(Iterable<? extends Class<?>> classes) {
+    List<String> entries = new ArrayList<>();
+    for (Class<?> type : classes) {
+      addEntries(entries, type);
+    }
+    return new MappingSnapshot(entries);
+  }
+
+  private static void addEntries(List<String> entries, Class<?> type) {
+    EntityMetadata metadata = EntityMetadata.of(type);
+    for (AnnotationValues annotation : metadata.getTypeAnnotations()) {
+      addEntry(entries, type.getName(), annotation.getAnnotation());
+    }
+    for (String fieldName : metadata.getFields().keySet()) {
+      for (AnnotationValues annotation : metadata.getFieldAnnotations(fieldName)) {
+        addEntry(entries, type.getName() + "#" + fieldName, annotation.getAnnotation());
+      }
+    }
+  }
+
+  private static void addEntry(List<String> entries, String owner, Annotation annotation) {
+    if (CanonicalForm.isMappingAnnotation(annotation.annotationType().getName())) {
+      entries.add(owner + "\t" + CanonicalForm.render(annotation));
+    }
+  }
+
+  static String key(String entry) {
+    int end = entry.indexOf('(');
+    return end < 0 ? entry : entry.substring(0, end);
+  }
+
+  private final List<String> entries;
+
+  private MappingSnapshot(List<String> entries) {
+    List<String> sorted = new ArrayList<>(entries);
+    sorted.sort(ENTRY_ORDER);
+    this.entries = Collections.unmodifiableList(sorted);
+  }
+
+  public List<String> getEntries() {
+    return entries;
+  }
+
+  public void write(Path snapshot) {
+    try {
+      Path parent = snapshot.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      try (BufferedWriter writer = Files.newBufferedWriter(snapshot, UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        for (String entry : entries) {
+          writer.write(entry);
+          writer.newLine();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Compares this snapshot with a file written by {@link #write(Path)}, reading it in one pass. */
+  public List<MappingChange> diff(Path snapshot) {
+    try (BufferedReader reader = Files.newBufferedReader(snapshot, UTF_8)) {
+      return diff(new EntryIterator(reader), entries.iterator());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public List<MappingChange> diff(MappingSnapshot before) {
+    return diff(before.entries.iterator(), entries.iterator());
+  }
+
+  private static List<MappingChange> diff(Iterator<String> before, Iterator<String> after) {
+    List<MappingChange> changes = new ArrayList<>();
+    String previous = next(before);
+    String current = next(after);
+    while (previous != null || current != null) {
+      int order =
+          previous == null ? 1 : current == null ? -1 : key(previous).compareTo(key(current));
+      if (order < 0) {
+        changes.add(new MappingChange(MappingChange.Kind.REMOVED, key(previous), previous, null));
+        previous = next(before);
+      } else if (order > 0) {
+        changes.add(new MappingChange(MappingChange.Kind.ADDED, key(current), null, current));
+        current = next(after);
+      } else {
+        if (!previous.equals(current)) {
+          changes.add(
+              new MappingChange(MappingChange.Kind.CHANGED, key(current), previous, current));
+        }
+        previous = next(before);
+        current = next(after);
+      }
+    }
+    return changes;
+  }
+
+  private static String next(Iterator<String> entries) {
+    return entries.hasNext() ? entries.next() : null;
+  }
+
+  private static final class EntryIterator implements Iterator<String> {
+
+    private final BufferedReader reader;
+
+    private String next;
+
+    EntryIterator(BufferedReader reader) {
+      this.reader = reader;
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public String next() {
+      String current = next;
+      advance();
+      return current;
+    }
+
+    private void advance() {
+      try {
+        do {
+          next = reader.readLine();
+        } while (next != null && (next.isEmpty() || next.startsWith("#")));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
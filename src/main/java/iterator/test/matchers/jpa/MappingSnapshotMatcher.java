@@ -0,0 +1,69 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+final class MappingSnapshotMatcher extends TypeSafeDiagnosingMatcher<Iterable<? extends Class<?>>> {
+
+  static final String UPDATE_PROPERTY = "jpa.matchers.snapshot.update";
+
+  private final Path snapshot;
+
+  MappingSnapshotMatcher(Path snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("classes mapped as recorded in ").appendValue(snapshot);
+  }
+
+  @Override
+  protected boolean matchesSafely(
+      Iterable<? extends Class<?>> item, Description mismatchDescription) {
+    MappingSnapshot live = MappingSnapshot.of(item);
+    boolean update = Boolean.getBoolean(UPDATE_PROPERTY);
+    if (!Files.exists(snapshot)) {
+      if (update) {
+        live.write(snapshot);
+        return true;
+      }
+      mismatchDescription
+          .appendText("there is no snapshot at ")
+          .appendValue(snapshot)
+          .appendText("; run with -D" + UPDATE_PROPERTY + "=true to record one");
+      return false;
+    }
+    List<MappingChange> changes = live.diff(snapshot);
+    if (changes.isEmpty()) {
+      return true;
+    }
+    if (update) {
+      live.write(snapshot);
+      return true;
+    }
+    mismatchDescription.appendText(changes.size() + " entries differ:");
+    for (MappingChange change : changes) {
+      mismatchDescription.appendText("\n  ").appendText(change.toString());
+    }
+    return false;
+  }
+}
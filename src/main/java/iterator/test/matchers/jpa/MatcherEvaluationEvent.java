@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for each evaluation of a single annotation expectation.
+ *
+ * <p>Events are only created while a recording is running, so that evaluation stays free of
+ * allocation the rest of the time.
+ */
+@Name("iterator.jpa.MatcherEvaluation")
+@Label("JPA Matcher Evaluation")
+@Category({"JPA Matchers"})
+@Description("Evaluation of a JPA annotation expectation against a class")
+@StackTrace(false)
+final class MatcherEvaluationEvent extends Event {
+
+  private static volatile boolean recording;
+
+  static {
+    FlightRecorder.addListener(
+        new FlightRecorderListener() {
+          @Override
+          public void recorderInitialized(FlightRecorder recorder) {
+            update(recorder);
+          }
+
+          @Override
+          public void recordingStateChanged(Recording changed) {
+            update(FlightRecorder.getFlightRecorder());
+          }
+        });
+  }
+
+  static boolean isRecording() {
+    return recording;
+  }
+
+  private static void update(FlightRecorder recorder) {
+    boolean running = false;
+    for (Recording candidate : recorder.getRecordings()) {
+      running |= candidate.getState() == RecordingState.RUNNING;
+    }
+    recording = running;
+  }
+
+  @Label("Annotation Type")
+  String annotationType;
+
+  @Label("Target Class")
+  Class<?> targetClass;
+
+  @Label("Field Name")
+  String fieldName;
+
+  @Label("Metadata Cached")
+  @Description("Whether the class metadata had already been resolved")
+  boolean metadataCached;
+
+  @Label("Matched")
+  boolean matched;
+}
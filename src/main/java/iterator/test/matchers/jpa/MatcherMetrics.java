@@ -0,0 +1,203 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in evaluation counts and latency percentiles per annotation type, for finding the slow
+ * checks in a large verification run.
+ *
+ * <p>Latencies are counted in power of two buckets, so percentiles are reported as the upper bound
+ * of the bucket they fall in. Enable it with {@link #enable()} or by setting the {@value
+ * #PROPERTY} system property, in which case the summary is printed when the JVM exits.
+ */
+public final class MatcherMetrics {
+
+  public static final String PROPERTY = "jpa.matchers.metrics";
+
+  private static volatile MatcherMetrics active;
+
+  private static volatile boolean propertyChecked;
+
+  public static synchronized MatcherMetrics enable() {
+    active = new MatcherMetrics();
+    return active;
+  }
+
+  public static synchronized void disable() {
+    active = null;
+  }
+
+  /** The metrics being collected, or {@code null} if they have not been enabled. */
+  public static MatcherMetrics active() {
+    if (!propertyChecked) {
+      enableFromProperty();
+    }
+    return active;
+  }
+
+  private static synchronized void enableFromProperty() {
+    if (!propertyChecked) {
+      if (Boolean.getBoolean(PROPERTY) && active == null) {
+        MatcherMetrics metrics = enable();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(metrics)));
+      }
+      propertyChecked = true;
+    }
+  }
+
+  private final ConcurrentMap<Class<? extends Annotation>, Summary> summaries =
+      new ConcurrentHashMap<>();
+
+  private MatcherMetrics() {}
+
+  void record(Class<? extends Annotation> annotationType, long nanos, boolean matched) {
+    Summary summary = summaries.get(annotationType);
+    if (summary == null) {
+      summary = summaries.computeIfAbsent(annotationType, Summary::new);
+    }
+    summary.record(nanos, matched);
+  }
+
+  /** One summary per annotation type evaluated so far, the most expensive in total first. */
+  public List<Summary> getSummaries() {
+    List<Summary> sorted = new ArrayList<>(summaries.values());
+    sorted.sort(Comparator.comparing(Summary::getTotal).reversed());
+    return sorted;
+  }
+
+  public void reset() {
+    summaries.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("JPA matcher evaluations:");
+    for (Summary summary : getSummaries()) {
+      builder.append("\n  ").append(summary);
+    }
+    return builder.toString();
+  }
+
+  public static final class Summary {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final Class<? extends Annotation> annotationType;
+
+    private final LongAdder mismatches = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private Summary(Class<? extends Annotation> annotationType) {
+      this.annotationType = annotationType;
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    private void record(long nanos, boolean matched) {
+      nanos = Math.max(nanos, 0);
+      buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+      if (!matched) {
+        mismatches.increment();
+      }
+    }
+
+    public Class<? extends Annotation> getAnnotationType() {
+      return annotationType;
+    }
+
+    public long getCount() {
+      long count = 0;
+      for (LongAdder bucket : buckets) {
+        count += bucket.sum();
+      }
+      return count;
+    }
+
+    public long getMismatches() {
+      return mismatches.sum();
+    }
+
+    public Duration getTotal() {
+      return Duration.ofNanos(totalNanos.sum());
+    }
+
+    public Duration getMax() {
+      return Duration.ofNanos(maxNanos.get());
+    }
+
+    /** The latency below which the given fraction of evaluations fell, e.g. {@code 0.99}. */
+    public Duration getPercentile(double fraction) {
+      if (fraction < 0 || fraction > 1) {
+        throw new IllegalArgumentException("fraction must be between 0 and 1, was " + fraction);
+      }
+      long[] counts = new long[BUCKETS];
+      long count = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = buckets[i].sum();
+        count += counts[i];
+      }
+      long rank = (long) Math.ceil(fraction * count);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += counts[i];
+        if (counts[i] > 0 && seen >= rank) {
+          long upperBound = (1L << i) - 1;
+          return Duration.ofNanos(Math.min(upperBound, maxNanos.get()));
+        }
+      }
+      return Duration.ZERO;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ROOT,
+          "@%s: %d evaluations, %d mismatches, p50 %.3fms, p90 %.3fms, p99 %.3fms, max %.3fms,"
+              + " total %.3fms",
+          annotationType.getSimpleName(),
+          getCount(),
+          getMismatches(),
+          millis(getPercentile(0.5)),
+          millis(getPercentile(0.9)),
+          millis(getPercentile(0.99)),
+          millis(getMax()),
+          millis(getTotal()));
+    }
+
+    private static double millis(Duration duration) {
+      return duration.toNanos() / 1e6;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Checks the JPQL of every {@link NamedQuery} an entity declares with {@link JpqlValidator}.
+ *
+ * <p>Entity names resolve to the entity itself, the entities reachable through its associations
+ * and any further entities the matcher is given.
+ */
+final class NamedQueryMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  private static final List<String> GRAPH_HINTS =
+      Arrays.asList(
+          "javax.persistence.fetchgraph",
+          "javax.persistence.loadgraph",
+          "jakarta.persistence.fetchgraph",
+          "jakarta.persistence.loadgraph");
+
+  private final List<Class<?>> entities;
+
+  NamedQueryMatcher(Class<?>... entities) {
+    for (Class<?> entity : entities) {
+      if (entity == null) {
+        throw new IllegalArgumentException("entities must not contain null");
+      }
+    }
+    this.entities = Arrays.asList(entities);
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("entity whose named queries all resolve");
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    EntityMetadata metadata = EntityMetadata.of(item);
+    JpqlValidator validator = new JpqlValidator(entityNames(item), item.getClassLoader());
+    List<String> problems = new ArrayList<>();
+    for (NamedQuery query : queries(metadata)) {
+      problems.addAll(
+          validator.validate("query " + query.name(), query.query(), hasGraphHint(query)));
+    }
+    if (problems.isEmpty()) {
+      return true;
+    }
+    mismatchDescription.appendValue(item).appendText(" has invalid named queries:");
+    for (String problem : problems) {
+      mismatchDescription.appendText("\n  ").appendText(problem);
+    }
+    return false;
+  }
+
+  private Map<String, Class<?>> entityNames(Class<?> root) {
+    Map<String, Class<?>> names = new HashMap<>();
+    Deque<Class<?>> pending = new ArrayDeque<>(entities);
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      EntityMetadata metadata = EntityMetadata.of(pending.pop());
+      if (names.putIfAbsent(ColumnNames.entityName(metadata), metadata.getType()) != null) {
+        continue;
+      }
+      for (Association association : metadata.getAssociations()) {
+        Class<?> target = association.getTarget();
+        if (target != null && FetchGraph.isEntity(target)) {
+          pending.push(target);
+        }
+      }
+    }
+    return names;
+  }
+
+  private static List<NamedQuery> queries(EntityMetadata metadata) {
+    List<NamedQuery> queries = new ArrayList<>();
+    NamedQuery query = metadata.getTypeAnnotation(NamedQuery.class);
+    if (query != null) {
+      queries.add(query);
+    }
+    NamedQueries container = metadata.getTypeAnnotation(NamedQueries.class);
+    if (container != null) {
+      queries.addAll(Arrays.asList(container.value()));
+    }
+    return queries;
+  }
+
+  private static boolean hasGraphHint(NamedQuery query) {
+    for (QueryHint hint : query.hints()) {
+      if (GRAPH_HINTS.contains(hint.name())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
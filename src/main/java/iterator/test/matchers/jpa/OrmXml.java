@@ -0,0 +1,543 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.persistence.Basic;
+import javax.persistence.Cacheable;
+import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.DiscriminatorColumn;
+import javax.persistence.DiscriminatorValue;
+import javax.persistence.ElementCollection;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Inheritance;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinColumns;
+import javax.persistence.JoinTable;
+import javax.persistence.Lob;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapKey;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.OrderBy;
+import javax.persistence.OrderColumn;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The mappings of an {@code orm.xml} file, read in one streaming pass into a compact index of the
+ * elements {@link JpaMatchers} can assert on, keyed by class.
+ *
+ * <p>A file is read once for as long as it is unchanged, however many matchers use it. Each class
+ * is resolved on first use into the effective mapping JPA applies: an XML element replaces the
+ * annotation of the same type on the class, an XML attribute mapping replaces every mapping
+ * annotation of its field, and a class or persistence unit marked metadata complete ignores its
+ * mapping annotations altogether.
+ */
+public final class OrmXml {
+
+  private static final Map<String, Class<? extends Annotation>> TYPE_ELEMENTS = new HashMap<>();
+
+  private static final Map<String, Class<? extends Annotation>> ATTRIBUTE_ELEMENTS =
+      new HashMap<>();
+
+  private static final Map<String, Class<? extends Annotation>> ATTRIBUTE_DETAIL_ELEMENTS =
+      new HashMap<>();
+
+  /** The top-level elements that map a class; the others, such as generators, are skipped. */
+  private static final Set<String> CLASS_ELEMENTS =
+      new HashSet<>(Arrays.asList("entity", "mapped-superclass", "embeddable"));
+
+  private static final Set<String> TEXT_ELEMENTS =
+      new HashSet<>(
+          Arrays.asList("package", "discriminator-value", "enumerated", "order-by", "temporal"));
+
+  private static final Map<Path, OrmXml> FILES = new ConcurrentHashMap<>();
+
+  static {
+    TYPE_ELEMENTS.put("entity", Entity.class);
+    TYPE_ELEMENTS.put("mapped-superclass", MappedSuperclass.class);
+    TYPE_ELEMENTS.put("embeddable", Embeddable.class);
+    TYPE_ELEMENTS.put("table", Table.class);
+    TYPE_ELEMENTS.put("inheritance", Inheritance.class);
+    TYPE_ELEMENTS.put("discriminator-column", DiscriminatorColumn.class);
+    TYPE_ELEMENTS.put("discriminator-value", DiscriminatorValue.class);
+    TYPE_ELEMENTS.put("id-class", IdClass.class);
+    TYPE_ELEMENTS.put("sequence-generator", SequenceGenerator.class);
+    ATTRIBUTE_ELEMENTS.put("id", Id.class);
+    ATTRIBUTE_ELEMENTS.put("embedded-id", EmbeddedId.class);
+    ATTRIBUTE_ELEMENTS.put("basic", Basic.class);
+    ATTRIBUTE_ELEMENTS.put("version", Version.class);
+    ATTRIBUTE_ELEMENTS.put("many-to-one", ManyToOne.class);
+    ATTRIBUTE_ELEMENTS.put("one-to-many", OneToMany.class);
+    ATTRIBUTE_ELEMENTS.put("one-to-one", OneToOne.class);
+    ATTRIBUTE_ELEMENTS.put("many-to-many", ManyToMany.class);
+    ATTRIBUTE_ELEMENTS.put("element-collection", ElementCollection.class);
+    ATTRIBUTE_ELEMENTS.put("embedded", Embedded.class);
+    ATTRIBUTE_ELEMENTS.put("transient", Transient.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("column", Column.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("join-column", JoinColumn.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("join-table", JoinTable.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("collection-table", CollectionTable.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("lob", Lob.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("temporal", Temporal.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("enumerated", Enumerated.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("generated-value", GeneratedValue.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("sequence-generator", SequenceGenerator.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("order-by", OrderBy.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("order-column", OrderColumn.class);
+    ATTRIBUTE_DETAIL_ELEMENTS.put("map-key", MapKey.class);
+  }
+
+  /** The mappings of a file, read again only when its size or modification time changes. */
+  public static OrmXml read(Path file) {
+    Path key = file.toAbsolutePath().normalize();
+    try {
+      long lastModified = Files.getLastModifiedTime(key).toMillis();
+      long size = Files.size(key);
+      return FILES.compute(
+          key,
+          (path, cached) ->
+              cached != null && cached.lastModified == lastModified && cached.size == size
+                  ? cached
+                  : parse(path, lastModified, size));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static OrmXml read(InputStream input) {
+    return new OrmXml(input, -1, -1);
+  }
+
+  private static OrmXml parse(Path file, long lastModified, long size) {
+    try (InputStream input = Files.newInputStream(file)) {
+      return new OrmXml(input, lastModified, size);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private final long lastModified;
+
+  private final long size;
+
+  private final Map<String, ClassMapping> classes = new HashMap<>();
+
+  private boolean metadataComplete;
+
+  private final ClassValue<EntityMetadata> effective =
+      new ClassValue<EntityMetadata>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+          return resolve(type);
+        }
+      };
+
+  private OrmXml(InputStream input, long lastModified, long size) {
+    this.lastModified = lastModified;
+    this.size = size;
+    try {
+      XMLInputFactory factory = XMLInputFactory.newFactory();
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      XMLStreamReader reader = factory.createXMLStreamReader(input);
+      try {
+        new Parser(reader).parse();
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("cannot read orm.xml: " + e.getMessage(), e);
+    }
+  }
+
+  public Set<String> getMappedClassNames() {
+    return Collections.unmodifiableSet(classes.keySet());
+  }
+
+  public boolean isMapped(Class<?> type) {
+    return classes.containsKey(type.getName());
+  }
+
+  /** The annotations of a class merged with the mappings of this file for it and its ancestors. */
+  EntityMetadata effective(Class<?> type) {
+    return effective.get(type);
+  }
+
+  private EntityMetadata resolve(Class<?> type) {
+    EntityMetadata metadata = EntityMetadata.of(type);
+    ClassMapping own = classes.get(type.getName());
+    Map<String, List<Annotation>> fieldOverrides = new HashMap<>();
+    boolean mapped = own != null;
+    for (Class<?> declaring = type;
+        declaring != null && declaring != Object.class;
+        declaring = declaring.getSuperclass()) {
+      ClassMapping mapping = classes.get(declaring.getName());
+      if (mapping == null) {
+        continue;
+      }
+      mapped = true;
+      for (Field field : metadata.getFields().values()) {
+        if (field.getDeclaringClass() != declaring) {
+          continue;
+        }
+        List<ElementData> elements = mapping.attributes.get(field.getName());
+        if (elements != null) {
+          fieldOverrides.put(field.getName(), annotations(elements, mapping, declaring));
+        } else if (mapping.isMetadataComplete(metadataComplete)) {
+          fieldOverrides.put(field.getName(), Collections.emptyList());
+        }
+      }
+    }
+    if (!mapped) {
+      return metadata;
+    }
+    List<Annotation> typeOverrides =
+        own == null ? Collections.emptyList() : typeAnnotations(own, type);
+    return metadata.overlay(
+        typeOverrides, own != null && own.isMetadataComplete(metadataComplete), fieldOverrides);
+  }
+
+  private static List<Annotation> typeAnnotations(ClassMapping mapping, Class<?> type) {
+    List<Annotation> annotations = new ArrayList<>();
+    for (ElementData element : mapping.type) {
+      annotations.add(annotation(TYPE_ELEMENTS.get(element.name), element, mapping, type));
+      String cacheable = element.attributes.get("cacheable");
+      if (cacheable != null) {
+        annotations.add(
+            SyntheticAnnotation.of(
+                Cacheable.class,
+                Collections.singletonMap("value", Boolean.parseBoolean(cacheable))));
+      }
+    }
+    return annotations;
+  }
+
+  private static List<Annotation> annotations(
+      List<ElementData> elements, ClassMapping mapping, Class<?> type) {
+    List<Annotation> annotations = new ArrayList<>();
+    List<Annotation> joinColumns = new ArrayList<>();
+    for (ElementData element : elements) {
+      Class<? extends Annotation> annotationType = ATTRIBUTE_ELEMENTS.get(element.name);
+      if (annotationType == null) {
+        annotationType = ATTRIBUTE_DETAIL_ELEMENTS.get(element.name);
+      }
+      Annotation annotation = annotation(annotationType, element, mapping, type);
+      if (annotationType == JoinColumn.class) {
+        joinColumns.add(annotation);
+      } else {
+        annotations.add(annotation);
+      }
+    }
+    if (joinColumns.size() == 1) {
+      annotations.add(joinColumns.get(0));
+    } else if (joinColumns.size() > 1) {
+      annotations.add(
+          SyntheticAnnotation.of(
+              JoinColumns.class,
+              Collections.singletonMap("value", joinColumns.toArray(new JoinColumn[0]))));
+    }
+    return annotations;
+  }
+
+  private static Annotation annotation(
+      Class<? extends Annotation> annotationType,
+      ElementData element,
+      ClassMapping mapping,
+      Class<?> type) {
+    Map<String, Object> values = new HashMap<>();
+    for (Map.Entry<String, String> attribute : element.attributes.entrySet()) {
+      String name = attribute.getKey();
+      Method method = attribute(annotationType, name.equals("class") ? "value" : camelCase(name));
+      if (method != null) {
+        values.put(
+            method.getName(),
+            convert(method.getReturnType(), attribute.getValue(), mapping.packageName, type));
+      }
+    }
+    Method value = attribute(annotationType, "value");
+    if (element.text != null && value != null) {
+      values.put("value", convert(value.getReturnType(), element.text, mapping.packageName, type));
+    }
+    if (!element.cascade.isEmpty() && attribute(annotationType, "cascade") != null) {
+      values.put("cascade", element.cascade.toArray(new CascadeType[0]));
+    }
+    return SyntheticAnnotation.of(annotationType, values);
+  }
+
+  private static Method attribute(Class<? extends Annotation> annotationType, String name) {
+    try {
+      return annotationType.getMethod(name);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static Object convert(
+      Class<?> valueType, String text, String packageName, Class<?> type) {
+    String value = text.trim();
+    if (valueType == String.class) {
+      return text;
+    }
+    if (valueType == boolean.class) {
+      return Boolean.parseBoolean(value);
+    }
+    if (valueType == int.class) {
+      return Integer.parseInt(value);
+    }
+    if (valueType == long.class) {
+      return Long.parseLong(value);
+    }
+    if (valueType.isEnum()) {
+      return enumConstant(valueType, value);
+    }
+    if (valueType == Class.class) {
+      try {
+        return Class.forName(qualify(packageName, value), false, type.getClassLoader());
+      } catch (ClassNotFoundException e) {
+        throw new IllegalArgumentException("orm.xml names an unknown class " + value, e);
+      }
+    }
+    throw new IllegalArgumentException("orm.xml value " + value + " is not a " + valueType);
+  }
+
+  // Enum.valueOf needs a Class<E extends Enum<E>>, which no cast from Class<?> can be checked
+  // against; the caller has already tested isEnum(), so the raw type is sound here.
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object enumConstant(Class<?> enumType, String name) {
+    return Enum.valueOf((Class) enumType, name);
+  }
+
+  private static String qualify(String packageName, String className) {
+    return packageName.isEmpty() || className.contains(".")
+        ? className
+        : packageName + "." + className;
+  }
+
+  private static String camelCase(String name) {
+    StringBuilder camelCase = new StringBuilder(name.length());
+    boolean upper = false;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c == '-') {
+        upper = true;
+      } else {
+        camelCase.append(upper ? Character.toUpperCase(c) : c);
+        upper = false;
+      }
+    }
+    return camelCase.toString();
+  }
+
+  private final class Parser {
+
+    private final XMLStreamReader reader;
+
+    private String packageName = "";
+
+    private int depth;
+
+    private int classDepth = -1;
+
+    private int attributesDepth = -1;
+
+    private int fieldDepth = -1;
+
+    private ClassMapping mapping;
+
+    private List<ElementData> field;
+
+    private ElementData fieldElement;
+
+    Parser(XMLStreamReader reader) {
+      this.reader = reader;
+    }
+
+    void parse() throws XMLStreamException {
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          String name = reader.getLocalName();
+          if (TEXT_ELEMENTS.contains(name)) {
+            text(name, reader.getElementText());
+          } else {
+            depth++;
+            start(name);
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          end();
+          depth--;
+        }
+      }
+    }
+
+    private void start(String name) {
+      if (mapping == null) {
+        if (depth == 2 && CLASS_ELEMENTS.contains(name)) {
+          mapping = new ClassMapping(packageName, attribute("metadata-complete"));
+          mapping.type.add(new ElementData(name, attributes()));
+          classes.put(className(attribute("class")), mapping);
+          classDepth = depth;
+        } else if (name.equals("xml-mapping-metadata-complete")) {
+          metadataComplete = true;
+        }
+      } else if (depth == classDepth + 1) {
+        if (name.equals("attributes")) {
+          attributesDepth = depth;
+        } else if (TYPE_ELEMENTS.containsKey(name)) {
+          mapping.type.add(new ElementData(name, attributes()));
+        }
+      } else if (depth == attributesDepth + 1 && ATTRIBUTE_ELEMENTS.containsKey(name)) {
+        fieldElement = new ElementData(name, attributes());
+        field =
+            mapping.attributes.computeIfAbsent(attribute("name"), fieldName -> new ArrayList<>(2));
+        field.add(fieldElement);
+        fieldDepth = depth;
+      } else if (depth == fieldDepth + 1 && ATTRIBUTE_DETAIL_ELEMENTS.containsKey(name)) {
+        field.add(new ElementData(name, attributes()));
+      } else if (depth == fieldDepth + 2 && name.startsWith("cascade-")) {
+        fieldElement.cascade.add(
+            CascadeType.valueOf(name.substring("cascade-".length()).toUpperCase(Locale.ROOT)));
+      }
+    }
+
+    private void text(String name, String text) {
+      if (name.equals("package") && mapping == null) {
+        packageName = text.trim();
+      } else if (mapping != null && depth == classDepth && TYPE_ELEMENTS.containsKey(name)) {
+        mapping.type.add(new ElementData(name, Collections.emptyMap(), text));
+      } else if (field != null && depth == fieldDepth) {
+        field.add(new ElementData(name, Collections.emptyMap(), text));
+      }
+    }
+
+    private void end() {
+      if (depth == fieldDepth) {
+        fieldDepth = -1;
+        field = null;
+        fieldElement = null;
+      } else if (depth == attributesDepth) {
+        attributesDepth = -1;
+      } else if (depth == classDepth) {
+        classDepth = -1;
+        mapping = null;
+      }
+    }
+
+    private String attribute(String name) {
+      return reader.getAttributeValue(null, name);
+    }
+
+    private Map<String, String> attributes() {
+      int count = reader.getAttributeCount();
+      if (count == 0) {
+        return Collections.emptyMap();
+      }
+      Map<String, String> attributes = new LinkedHashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      }
+      return attributes;
+    }
+
+    private String className(String name) {
+      if (name == null) {
+        throw new IllegalArgumentException(
+            "orm.xml has a mapping without a class at line "
+                + reader.getLocation().getLineNumber());
+      }
+      return qualify(packageName, name);
+    }
+  }
+
+  private static final class ClassMapping {
+
+    private final String packageName;
+
+    private final Boolean metadataComplete;
+
+    private final List<ElementData> type = new ArrayList<>(2);
+
+    private final Map<String, List<ElementData>> attributes = new HashMap<>();
+
+    ClassMapping(String packageName, String metadataComplete) {
+      this.packageName = packageName;
+      this.metadataComplete = metadataComplete == null ? null : Boolean.valueOf(metadataComplete);
+    }
+
+    boolean isMetadataComplete(boolean unitDefault) {
+      return metadataComplete == null ? unitDefault : metadataComplete;
+    }
+  }
+
+  private static final class ElementData {
+
+    private final String name;
+
+    private final Map<String, String> attributes;
+
+    private final String text;
+
+    private final List<CascadeType> cascade = new ArrayList<>(0);
+
+    ElementData(String name, Map<String, String> attributes) {
+      this(name, attributes, null);
+    }
+
+    ElementData(String name, Map<String, String> attributes, String text) {
+      this.name = name;
+      this.attributes = attributes;
+      this.text = text;
+    }
+  }
+}
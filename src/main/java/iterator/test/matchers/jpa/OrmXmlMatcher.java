@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Evaluates a matcher created by {@link JpaMatchers} against the effective mapping of a class:
+ * its annotations merged with the mappings of an {@link OrmXml orm.xml} file.
+ */
+final class OrmXmlMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  static <T> OrmXmlMatcher<T> of(OrmXml ormXml, Matcher<?> matcher) {
+    if (!(matcher instanceof EntityAnnotationMatcher) && !(matcher instanceof EntityMappingSpec)) {
+      throw new IllegalArgumentException(
+          "only annotation matchers created by JpaMatchers can be evaluated against orm.xml");
+    }
+    return new OrmXmlMatcher<>(ormXml, matcher);
+  }
+
+  private final OrmXml ormXml;
+
+  private final Matcher<?> matcher;
+
+  private OrmXmlMatcher(OrmXml ormXml, Matcher<?> matcher) {
+    this.ormXml = ormXml;
+    this.matcher = matcher;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendDescriptionOf(matcher).appendText(" with orm.xml overrides");
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    EntityMetadata metadata = ormXml.effective(item);
+    if (matcher instanceof EntityMappingSpec) {
+      return ((EntityMappingSpec) matcher).matches(metadata, mismatchDescription);
+    }
+    return ((EntityAnnotationMatcher<?>) matcher).matches(metadata, mismatchDescription);
+  }
+}
@@ -0,0 +1,446 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.DiscriminatorColumn;
+import javax.persistence.DiscriminatorType;
+import javax.persistence.EmbeddedId;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.JoinColumn;
+import javax.persistence.Lob;
+import javax.persistence.PrimaryKeyJoinColumn;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * An estimate of the widest row of a table, split into fixed width columns and variable width
+ * columns counted at their declared maximum.
+ *
+ * <p>The estimate follows the mapping alone: the length and precision of {@code @Column}, {@link
+ * Lob}, {@link Enumerated} and {@link Temporal} metadata, embeddables and the foreign keys of owning
+ * single valued associations. Variable width columns add a two byte length prefix, and a {@link
+ * Lob} counts as an in-row locator of {@value #LOB_LOCATOR_BYTES} bytes.
+ *
+ * <p>An entity's row covers the columns of its own table: with {@link InheritanceType#SINGLE_TABLE}
+ * that includes its entity superclasses and the discriminator, with {@link InheritanceType#JOINED}
+ * only the state it declares and its primary key. Use {@link #of(Class, Iterable)} or {@link
+ * #tables(Iterable)} to merge the entities of a whole hierarchy into their tables.
+ */
+public final class RowWidth {
+
+  static final int LOB_LOCATOR_BYTES = 16;
+
+  private static final int DEFAULT_NUMERIC_PRECISION = 19;
+
+  private static final int LENGTH_PREFIX_BYTES = 2;
+
+  public static RowWidth of(Class<?> type) {
+    if (!FetchGraph.isEntity(type)) {
+      throw new IllegalArgumentException(type + " is not an entity");
+    }
+    EntityMetadata metadata = EntityMetadata.of(type);
+    Map<String, Column> columns = new LinkedHashMap<>();
+    addColumns(metadata, columns);
+    return new RowWidth(table(metadata), new ArrayList<>(columns.values()));
+  }
+
+  /**
+   * The row of the table the entity maps to, merged with every other of the given entities that
+   * shares it, such as the subclasses of a {@link InheritanceType#SINGLE_TABLE} root.
+   */
+  public static RowWidth of(Class<?> type, Iterable<? extends Class<?>> types) {
+    if (!FetchGraph.isEntity(type)) {
+      throw new IllegalArgumentException(type + " is not an entity");
+    }
+    EntityMetadata metadata = EntityMetadata.of(type);
+    String table = table(metadata);
+    String key = ColumnNames.normalize(table);
+    Map<String, Column> columns = new LinkedHashMap<>();
+    addColumns(metadata, columns);
+    for (Class<?> other : types) {
+      if (FetchGraph.isEntity(other)) {
+        EntityMetadata otherMetadata = EntityMetadata.of(other);
+        if (ColumnNames.normalize(table(otherMetadata)).equals(key)) {
+          addColumns(otherMetadata, columns);
+        }
+      }
+    }
+    return new RowWidth(table, new ArrayList<>(columns.values()));
+  }
+
+  /** The rows of every table the entities map to, merging the entities that share a table. */
+  public static List<RowWidth> tables(Iterable<? extends Class<?>> types) {
+    Map<String, String> names = new LinkedHashMap<>();
+    Map<String, Map<String, Column>> tables = new LinkedHashMap<>();
+    for (Class<?> type : types) {
+      if (!FetchGraph.isEntity(type)) {
+        continue;
+      }
+      EntityMetadata metadata = EntityMetadata.of(type);
+      String table = table(metadata);
+      String key = ColumnNames.normalize(table);
+      names.putIfAbsent(key, table);
+      addColumns(metadata, tables.computeIfAbsent(key, k -> new LinkedHashMap<>()));
+    }
+    List<RowWidth> rows = new ArrayList<>();
+    for (Map.Entry<String, Map<String, Column>> table : tables.entrySet()) {
+      rows.add(new RowWidth(names.get(table.getKey()), new ArrayList<>(table.getValue().values())));
+    }
+    rows.sort(Comparator.comparingInt(RowWidth::getMaxBytes).reversed());
+    return rows;
+  }
+
+  /** One line per table, widest first, for a report over a whole persistence unit. */
+  public static String report(Iterable<? extends Class<?>> types) {
+    return tables(types).stream().map(RowWidth::toString).collect(Collectors.joining("\n"));
+  }
+
+  private static String table(EntityMetadata metadata) {
+    Table table = metadata.getTypeAnnotation(Table.class);
+    if (table != null && !table.name().isEmpty()) {
+      return table.name();
+    }
+    EntityMetadata root = metadata;
+    if (strategy(metadata) == InheritanceType.SINGLE_TABLE) {
+      while (root.getEntityParent() != null) {
+        root = root.getEntityParent();
+      }
+    }
+    return ColumnNames.entityName(root);
+  }
+
+  private static InheritanceType strategy(EntityMetadata metadata) {
+    Inheritance inheritance = metadata.getTypeAnnotation(Inheritance.class);
+    return inheritance == null ? InheritanceType.SINGLE_TABLE : inheritance.strategy();
+  }
+
+  private static void addColumns(EntityMetadata metadata, Map<String, Column> columns) {
+    InheritanceType strategy = strategy(metadata);
+    EntityMetadata entityParent = metadata.getEntityParent();
+    DiscriminatorColumn discriminator = metadata.getTypeAnnotation(DiscriminatorColumn.class);
+    if (strategy == InheritanceType.SINGLE_TABLE
+            && (entityParent != null
+                || discriminator != null
+                || metadata.getTypeAnnotation(Inheritance.class) != null)
+        || strategy == InheritanceType.JOINED && entityParent == null && discriminator != null) {
+      add(columns, discriminator(discriminator));
+    }
+    for (Field field : metadata.getFields().values()) {
+      String fieldName = field.getName();
+      if (!metadata.isPersistent(fieldName)
+          || strategy == InheritanceType.JOINED
+              && entityParent != null
+              && field.getDeclaringClass().isAssignableFrom(entityParent.getType())
+              && !isId(metadata, fieldName)) {
+        continue;
+      }
+      for (Column column : columns(metadata, fieldName, new HashSet<>())) {
+        add(columns, column);
+      }
+    }
+  }
+
+  private static void add(Map<String, Column> columns, Column column) {
+    columns.putIfAbsent(ColumnNames.normalize(column.name), column);
+  }
+
+  private static Column discriminator(DiscriminatorColumn discriminator) {
+    String name = discriminator == null ? "DTYPE" : discriminator.name();
+    DiscriminatorType type =
+        discriminator == null ? DiscriminatorType.STRING : discriminator.discriminatorType();
+    switch (type) {
+      case CHAR:
+        return new Column(name, null, 1, 0);
+      case INTEGER:
+        return new Column(name, null, 4, 0);
+      default:
+        int length = discriminator == null ? 31 : discriminator.length();
+        return new Column(name, null, 0, length + LENGTH_PREFIX_BYTES);
+    }
+  }
+
+  private static List<Column> columns(
+      EntityMetadata metadata, String fieldName, Set<Class<?>> visited) {
+    for (Association association : metadata.getAssociations()) {
+      if (association.getFieldName().equals(fieldName)) {
+        return foreignKey(metadata, association, visited);
+      }
+    }
+    Class<?> target = metadata.getTargetType(fieldName);
+    if (target != null) {
+      return embedded(metadata, fieldName, target, visited);
+    }
+    return Collections.singletonList(basic(metadata, fieldName));
+  }
+
+  private static List<Column> foreignKey(
+      EntityMetadata metadata, Association association, Set<Class<?>> visited) {
+    Association.Kind kind = association.getKind();
+    Class<?> target = association.getTarget();
+    if (kind != Association.Kind.MANY_TO_ONE && kind != Association.Kind.ONE_TO_ONE
+        || !association.isOwningSide()
+        || metadata.getFieldAnnotation(association.getFieldName(), PrimaryKeyJoinColumn.class)
+            != null
+        || target == null
+        || !visited.add(target)) {
+      return Collections.emptyList();
+    }
+    EntityMetadata targetMetadata = EntityMetadata.of(target);
+    int fixedBytes = 0;
+    int variableBytes = 0;
+    for (String fieldName : targetMetadata.getFields().keySet()) {
+      if (isId(targetMetadata, fieldName)) {
+        for (Column column : columns(targetMetadata, fieldName, visited)) {
+          fixedBytes += column.fixedBytes;
+          variableBytes += column.variableBytes;
+        }
+      }
+    }
+    String name =
+        ColumnNames.joinColumn(
+            metadata.getFieldAnnotation(association.getFieldName(), JoinColumn.class),
+            association.getFieldName(),
+            target);
+    return Collections.singletonList(
+        new Column(
+            name == null ? association.getFieldName() + "_id" : name,
+            association.getFieldName(),
+            fixedBytes,
+            variableBytes));
+  }
+
+  private static List<Column> embedded(
+      EntityMetadata metadata, String fieldName, Class<?> embeddable, Set<Class<?>> visited) {
+    Map<String, String> overrides = new LinkedHashMap<>();
+    AttributeOverride override = metadata.getFieldAnnotation(fieldName, AttributeOverride.class);
+    if (override != null) {
+      overrides.put(override.name(), override.column().name());
+    }
+    AttributeOverrides container = metadata.getFieldAnnotation(fieldName, AttributeOverrides.class);
+    if (container != null) {
+      for (AttributeOverride each : container.value()) {
+        overrides.put(each.name(), each.column().name());
+      }
+    }
+    EntityMetadata embeddableMetadata = EntityMetadata.of(embeddable);
+    List<Column> columns = new ArrayList<>();
+    for (String nested : embeddableMetadata.getFields().keySet()) {
+      if (!embeddableMetadata.isPersistent(nested)) {
+        continue;
+      }
+      for (Column column : columns(embeddableMetadata, nested, visited)) {
+        String name = overrides.getOrDefault(nested, "");
+        columns.add(
+            new Column(
+                name.isEmpty() ? column.name : name,
+                fieldName + "." + column.fieldName,
+                column.fixedBytes,
+                column.variableBytes));
+      }
+    }
+    return columns;
+  }
+
+  private static Column basic(EntityMetadata metadata, String fieldName) {
+    String name = ColumnNames.column(metadata, fieldName);
+    Class<?> type = metadata.getFields().get(fieldName).getType();
+    javax.persistence.Column column =
+        metadata.getFieldAnnotation(fieldName, javax.persistence.Column.class);
+    if (metadata.getFieldAnnotation(fieldName, Lob.class) != null) {
+      return new Column(name, fieldName, LOB_LOCATOR_BYTES, 0);
+    }
+    if (type.isEnum()) {
+      Enumerated enumerated = metadata.getFieldAnnotation(fieldName, Enumerated.class);
+      if (enumerated == null || enumerated.value() == EnumType.ORDINAL) {
+        return new Column(name, fieldName, 4, 0);
+      }
+      int longest = 0;
+      for (Object constant : type.getEnumConstants()) {
+        longest = Math.max(longest, ((Enum<?>) constant).name().length());
+      }
+      return new Column(name, fieldName, 0, longest + LENGTH_PREFIX_BYTES);
+    }
+    Temporal temporal = metadata.getFieldAnnotation(fieldName, Temporal.class);
+    if (temporal != null) {
+      return new Column(name, fieldName, temporal.value() == TemporalType.TIMESTAMP ? 8 : 4, 0);
+    }
+    int fixedBytes = fixedBytes(type);
+    if (fixedBytes > 0) {
+      return new Column(name, fieldName, fixedBytes, 0);
+    }
+    if (type == BigDecimal.class || type == BigInteger.class) {
+      int precision =
+          column == null || column.precision() == 0
+              ? DEFAULT_NUMERIC_PRECISION
+              : column.precision();
+      return new Column(name, fieldName, precision / 2 + 1, 0);
+    }
+    int length = column == null ? 255 : column.length();
+    return new Column(name, fieldName, 0, length + LENGTH_PREFIX_BYTES);
+  }
+
+  private static int fixedBytes(Class<?> type) {
+    if (type == boolean.class
+        || type == Boolean.class
+        || type == byte.class
+        || type == Byte.class) {
+      return 1;
+    }
+    if (type == short.class
+        || type == Short.class
+        || type == char.class
+        || type == Character.class) {
+      return 2;
+    }
+    if (type == int.class || type == Integer.class || type == float.class || type == Float.class) {
+      return 4;
+    }
+    if (type == long.class || type == Long.class || type == double.class || type == Double.class) {
+      return 8;
+    }
+    switch (type.getName()) {
+      case "java.sql.Date":
+      case "java.sql.Time":
+      case "java.time.LocalDate":
+        return 4;
+      case "java.util.Date":
+      case "java.util.Calendar":
+      case "java.sql.Timestamp":
+      case "java.time.Duration":
+      case "java.time.Instant":
+      case "java.time.LocalDateTime":
+      case "java.time.LocalTime":
+        return 8;
+      case "java.time.OffsetDateTime":
+      case "java.time.OffsetTime":
+      case "java.time.ZonedDateTime":
+        return 10;
+      default:
+        return type == UUID.class ? 16 : 0;
+    }
+  }
+
+  private static boolean isId(EntityMetadata metadata, String fieldName) {
+    return metadata.getFieldAnnotation(fieldName, Id.class) != null
+        || metadata.getFieldAnnotation(fieldName, EmbeddedId.class) != null;
+  }
+
+  private final String table;
+
+  private final List<Column> columns;
+
+  private RowWidth(String table, List<Column> columns) {
+    this.table = table;
+    this.columns = Collections.unmodifiableList(columns);
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  public int getFixedBytes() {
+    return columns.stream().mapToInt(Column::getFixedBytes).sum();
+  }
+
+  public int getVariableBytes() {
+    return columns.stream().mapToInt(Column::getVariableBytes).sum();
+  }
+
+  public int getMaxBytes() {
+    return getFixedBytes() + getVariableBytes();
+  }
+
+  @Override
+  public String toString() {
+    return table
+        + ": "
+        + columns.size()
+        + " columns, "
+        + getFixedBytes()
+        + " fixed + "
+        + getVariableBytes()
+        + " variable = "
+        + getMaxBytes()
+        + " bytes";
+  }
+
+  public static final class Column {
+
+    private final String name;
+
+    private final String fieldName;
+
+    private final int fixedBytes;
+
+    private final int variableBytes;
+
+    private Column(String name, String fieldName, int fixedBytes, int variableBytes) {
+      this.name = name;
+      this.fieldName = fieldName;
+      this.fixedBytes = fixedBytes;
+      this.variableBytes = variableBytes;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** The attribute the column maps, or {@code null} for a discriminator column. */
+    public String getFieldName() {
+      return fieldName;
+    }
+
+    public int getFixedBytes() {
+      return fixedBytes;
+    }
+
+    public int getVariableBytes() {
+      return variableBytes;
+    }
+
+    @Override
+    public String toString() {
+      return name
+          + (variableBytes > 0
+              ? " (up to " + (fixedBytes + variableBytes) + " bytes)"
+              : " (" + fixedBytes + " bytes)");
+    }
+  }
+}
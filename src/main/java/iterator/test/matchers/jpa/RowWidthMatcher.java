@@ -0,0 +1,72 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/** Checks that the {@link RowWidth estimated row} of an entity's table fits a byte budget. */
+final class RowWidthMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  private final int maxBytes;
+
+  private final Iterable<? extends Class<?>> entities;
+
+  RowWidthMatcher(int maxBytes) {
+    this(maxBytes, null);
+  }
+
+  /** Merges the columns of the given entities that share the table, if they are not null. */
+  RowWidthMatcher(int maxBytes, Iterable<? extends Class<?>> entities) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes must not be negative, was " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+    this.entities = entities;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("entity with an estimated row width of at most " + maxBytes + " bytes");
+    if (entities != null) {
+      description.appendText(" including the entities sharing its table");
+    }
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    if (!FetchGraph.isEntity(item)) {
+      mismatchDescription.appendValue(item).appendText(" is not an entity");
+      return false;
+    }
+    RowWidth row = entities == null ? RowWidth.of(item) : RowWidth.of(item, entities);
+    if (row.getMaxBytes() <= maxBytes) {
+      return true;
+    }
+    mismatchDescription.appendValue(item).appendText(" maps to " + row + ":");
+    List<RowWidth.Column> columns = new ArrayList<>(row.getColumns());
+    columns.sort(
+        Comparator.comparingInt(
+            (RowWidth.Column column) -> -column.getFixedBytes() - column.getVariableBytes()));
+    for (RowWidth.Column column : columns) {
+      mismatchDescription.appendText("\n  ").appendText(column.toString());
+    }
+    return false;
+  }
+}
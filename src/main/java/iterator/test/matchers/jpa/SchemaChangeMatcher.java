@@ -0,0 +1,54 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/** Checks that a jar or class directory has no schema affecting {@link MappingDiff changes}. */
+final class SchemaChangeMatcher extends TypeSafeDiagnosingMatcher<Path> {
+
+  private final Path baseline;
+
+  SchemaChangeMatcher(Path baseline) {
+    if (baseline == null) {
+      throw new IllegalArgumentException("baseline must not be null");
+    }
+    this.baseline = baseline;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description
+        .appendText("classes with no schema affecting mapping changes since ")
+        .appendValue(baseline);
+  }
+
+  @Override
+  protected boolean matchesSafely(Path item, Description mismatchDescription) {
+    List<MappingChange> changes = MappingDiff.between(baseline, item).getSchemaAffectingChanges();
+    if (changes.isEmpty()) {
+      return true;
+    }
+    mismatchDescription.appendText(changes.size() + " schema affecting changes:");
+    for (MappingChange change : changes) {
+      mismatchDescription.appendText("\n  ").appendText(change.toString());
+    }
+    return false;
+  }
+}
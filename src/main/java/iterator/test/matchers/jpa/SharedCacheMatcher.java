@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import javax.persistence.SharedCacheMode;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/** Checks whether an entity is held in the shared cache under a {@link SharedCacheMode}. */
+final class SharedCacheMatcher<T> extends TypeSafeDiagnosingMatcher<Class<T>> {
+
+  private final SharedCacheMode mode;
+
+  SharedCacheMatcher(SharedCacheMode mode) {
+    if (mode == null) {
+      throw new IllegalArgumentException("mode must not be null");
+    }
+    this.mode = mode;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("entity held in the shared cache under " + mode);
+  }
+
+  @Override
+  protected boolean matchesSafely(Class<T> item, Description mismatchDescription) {
+    if (!CachePolicy.isCached(item, mode)) {
+      mismatchDescription.appendValue(item).appendText(" is not cached under " + mode);
+      return false;
+    }
+    return true;
+  }
+}
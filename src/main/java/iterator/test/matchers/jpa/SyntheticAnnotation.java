@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * An annotation instance built from attribute values rather than read from a class, behaving as
+ * {@link Annotation} specifies: unset attributes take their defaults, and equality, hash code and
+ * text follow the annotation's values.
+ */
+final class SyntheticAnnotation implements InvocationHandler {
+
+  static <A extends Annotation> A of(Class<A> annotationType, Map<String, Object> values) {
+    return annotationType.cast(
+        Proxy.newProxyInstance(
+            annotationType.getClassLoader(),
+            new Class<?>[] {annotationType},
+            new SyntheticAnnotation(annotationType, values)));
+  }
+
+  private final Class<? extends Annotation> annotationType;
+
+  private final Map<String, Object> values;
+
+  private SyntheticAnnotation(
+      Class<? extends Annotation> annotationType, Map<String, Object> values) {
+    this.annotationType = annotationType;
+    Map<String, Object> resolved = new TreeMap<>();
+    for (Method method : annotationType.getDeclaredMethods()) {
+      Object value = values.getOrDefault(method.getName(), method.getDefaultValue());
+      if (value == null) {
+        throw new IllegalArgumentException(
+            "no value for " + annotationType.getName() + "." + method.getName());
+      }
+      resolved.put(method.getName(), value);
+    }
+    this.values = Collections.unmodifiableMap(resolved);
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) {
+    switch (method.getName()) {
+      case "annotationType":
+        return annotationType;
+      case "hashCode":
+        return hashCodeOf();
+      case "equals":
+        return equalsOf(args[0]);
+      case "toString":
+        return toStringOf();
+      default:
+        return copy(values.get(method.getName()));
+    }
+  }
+
+  private int hashCodeOf() {
+    int hashCode = 0;
+    for (Map.Entry<String, Object> value : values.entrySet()) {
+      hashCode += (127 * value.getKey().hashCode()) ^ valueHashCode(value.getValue());
+    }
+    return hashCode;
+  }
+
+  private boolean equalsOf(Object other) {
+    if (!annotationType.isInstance(other)) {
+      return false;
+    }
+    for (Method method : annotationType.getDeclaredMethods()) {
+      try {
+        if (!Objects.deepEquals(values.get(method.getName()), method.invoke(other))) {
+          return false;
+        }
+      } catch (ReflectiveOperationException e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String toStringOf() {
+    StringBuilder builder = new StringBuilder("@").append(annotationType.getName()).append('(');
+    String separator = "";
+    for (Map.Entry<String, Object> value : values.entrySet()) {
+      Object element = value.getValue();
+      builder
+          .append(separator)
+          .append(value.getKey())
+          .append('=')
+          .append(element instanceof Object[] ? Arrays.toString((Object[]) element) : element);
+      separator = ", ";
+    }
+    return builder.append(')').toString();
+  }
+
+  private static int valueHashCode(Object value) {
+    return value instanceof Object[] ? Arrays.hashCode((Object[]) value) : value.hashCode();
+  }
+
+  private static Object copy(Object value) {
+    if (value.getClass().isArray()) {
+      int length = Array.getLength(value);
+      Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+      System.arraycopy(value, 0, copy, 0, length);
+      return copy;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,323 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * An opt-in, on-disk record of the (class, expectation) pairs that have already matched, keyed by
+ * a digest of the class file (folded together with those of its superclasses, whose mappings it
+ * inherits, and with those of any embeddables a path expectation walks through) and a digest of
+ * the expectation, so that unchanged pairs can be skipped by later builds.
+ *
+ * <p>Only matches are recorded; a mismatch is always evaluated again so that it can be described.
+ * Enable it with {@link #enable(Path)} or by setting the {@value #FILE_PROPERTY} system property.
+ */
+public final class VerificationCache implements AutoCloseable {
+
+  public static final String FILE_PROPERTY = "jpa.matchers.cache.file";
+
+  private static final String HEADER = "# JPA matcher verification cache v1";
+
+  private static final String SALT =
+      HEADER + " " + JpaMatchers.class.getPackage().getImplementationVersion();
+
+  private static final ClassValue<String> CLASS_FILE_DIGESTS =
+      new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+          return classFileDigest(type);
+        }
+      };
+
+  private static volatile VerificationCache active;
+
+  private static volatile boolean propertyChecked;
+
+  private static boolean shutdownHookAdded;
+
+  /**
+   * Uses the given file from now on. Each recorded match is flushed as it is written, and the
+   * cache is closed by {@link #disable()} or, failing that, when the JVM shuts down.
+   */
+  public static synchronized VerificationCache enable(Path file) {
+    if (active != null) {
+      active.close();
+    }
+    active = new VerificationCache(file);
+    if (!shutdownHookAdded) {
+      Runtime.getRuntime().addShutdownHook(new Thread(VerificationCache::disable));
+      shutdownHookAdded = true;
+    }
+    return active;
+  }
+
+  public static synchronized void disable() {
+    if (active != null) {
+      active.close();
+      active = null;
+    }
+  }
+
+  /** The cache in use, or {@code null} if caching has not been enabled. */
+  public static VerificationCache active() {
+    if (!propertyChecked) {
+      enableFromProperty();
+    }
+    return active;
+  }
+
+  private static synchronized void enableFromProperty() {
+    if (!propertyChecked) {
+      String file = System.getProperty(FILE_PROPERTY);
+      if (file != null && active == null) {
+        enable(Paths.get(file));
+      }
+      propertyChecked = true;
+    }
+  }
+
+  private final Path file;
+
+  private final Map<String, Long> entries = new ConcurrentHashMap<>();
+
+  private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder savedNanos = new LongAdder();
+
+  private BufferedWriter writer;
+
+  private VerificationCache(Path file) {
+    this.file = file;
+    try {
+      if (Files.exists(file)) {
+        for (String line : Files.readAllLines(file, UTF_8)) {
+          int tab = line.indexOf('\t');
+          if (!line.startsWith("#") && tab > 0) {
+            entries.put(line.substring(0, tab), Long.parseLong(line.substring(tab + 1)));
+          }
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      entries.clear();
+    }
+  }
+
+  boolean evaluate(Class<?> type, String expectationDigest, BooleanSupplier evaluation) {
+    return evaluate(type, Collections.emptyList(), expectationDigest, evaluation);
+  }
+
+  /**
+   * Evaluates a pair whose outcome also depends on other classes, such as the embeddables along a
+   * path, whose digests are folded into the key.
+   */
+  boolean evaluate(
+      Class<?> type,
+      List<Class<?>> dependencies,
+      String expectationDigest,
+      BooleanSupplier evaluation) {
+    String classDigest = CLASS_FILE_DIGESTS.get(type);
+    if (classDigest.isEmpty()) {
+      return evaluation.getAsBoolean();
+    }
+    if (!dependencies.isEmpty()) {
+      StringBuilder folded = new StringBuilder(classDigest);
+      for (Class<?> dependency : dependencies) {
+        String dependencyDigest = CLASS_FILE_DIGESTS.get(dependency);
+        if (dependencyDigest.isEmpty()) {
+          return evaluation.getAsBoolean();
+        }
+        folded.append(dependencyDigest);
+      }
+      classDigest = digest(folded.toString());
+    }
+    String key = classDigest + expectationDigest;
+    Long recordedNanos = entries.get(key);
+    if (recordedNanos != null) {
+      hits.increment();
+      savedNanos.add(recordedNanos);
+      used.add(key);
+      return true;
+    }
+    misses.increment();
+    long start = System.nanoTime();
+    boolean matches = evaluation.getAsBoolean();
+    if (matches) {
+      record(key, System.nanoTime() - start);
+    }
+    return matches;
+  }
+
+  private void record(String key, long nanos) {
+    used.add(key);
+    if (entries.putIfAbsent(key, nanos) == null) {
+      synchronized (this) {
+        try {
+          if (writer == null) {
+            boolean created = !Files.exists(file);
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+              Files.createDirectories(parent);
+            }
+            writer =
+                Files.newBufferedWriter(
+                    file, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (created) {
+              writer.write(HEADER);
+              writer.newLine();
+            }
+          }
+          writer.write(key + "\t" + nanos);
+          writer.newLine();
+          writer.flush();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public double getHitRate() {
+    long lookups = getHits() + getMisses();
+    return lookups == 0 ? 0 : (double) getHits() / lookups;
+  }
+
+  /** The evaluation time originally recorded for every entry that has since been a hit. */
+  public Duration getTimeSaved() {
+    return Duration.ofNanos(savedNanos.sum());
+  }
+
+  /** Rewrites the file keeping only the entries that were hit or recorded by this cache. */
+  public synchronized void compact() {
+    close();
+    try (BufferedWriter compacted = Files.newBufferedWriter(file, UTF_8)) {
+      compacted.write(HEADER);
+      compacted.newLine();
+      for (String key : used) {
+        compacted.write(key + "\t" + entries.get(key));
+        compacted.newLine();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    entries.keySet().retainAll(used);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        writer = null;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "%d hits, %d misses (%.1f%% hit rate), %dms saved",
+        getHits(),
+        getMisses(),
+        getHitRate() * 100,
+        getTimeSaved().toMillis());
+  }
+
+  static String digest(String value) {
+    return hex(sha256().digest(value.getBytes(UTF_8)));
+  }
+
+  private static String classFileDigest(Class<?> type) {
+    Class<?> superclass = type.getSuperclass();
+    String superclassDigest =
+        superclass == null || superclass == Object.class ? "" : CLASS_FILE_DIGESTS.get(superclass);
+    if (superclass != null && superclass != Object.class && superclassDigest.isEmpty()) {
+      return "";
+    }
+    ClassLoader classLoader = type.getClassLoader();
+    String resource = type.getName().replace('.', '/') + ".class";
+    try (InputStream input =
+        classLoader == null
+            ? ClassLoader.getSystemResourceAsStream(resource)
+            : classLoader.getResourceAsStream(resource)) {
+      if (input == null) {
+        return "";
+      }
+      MessageDigest digest = sha256();
+      digest.update(SALT.getBytes(UTF_8));
+      digest.update(superclassDigest.getBytes(UTF_8));
+      byte[] buffer = new byte[8192];
+      for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+        digest.update(buffer, 0, read);
+      }
+      return hex(digest.digest());
+    } catch (IOException e) {
+      return "";
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** The aggregated outcome of verifying every class of an {@link EntityScan}. */
+public final class VerificationReport {
+
+  private final List<ClassVerification> results;
+
+  private final Duration elapsed;
+
+  VerificationReport(List<ClassVerification> results, long elapsedNanos) {
+    this.results = Collections.unmodifiableList(results);
+    this.elapsed = Duration.ofNanos(elapsedNanos);
+  }
+
+  public List<ClassVerification> getResults() {
+    return results;
+  }
+
+  public List<ClassVerification> getFailures() {
+    return results.stream().filter(result -> !result.isSuccessful()).collect(Collectors.toList());
+  }
+
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  public boolean isSuccessful() {
+    return results.stream().allMatch(ClassVerification::isSuccessful);
+  }
+
+  public void assertSuccessful() {
+    if (!isSuccessful()) {
+      throw new AssertionError(toString());
+    }
+  }
+
+  @Override
+  public String toString() {
+    List<ClassVerification> failures = getFailures();
+    StringBuilder builder =
+        new StringBuilder()
+            .append(results.size())
+            .append(" classes verified in ")
+            .append(elapsed.toMillis())
+            .append("ms, ")
+            .append(failures.size())
+            .append(" failed");
+    for (ClassVerification failure : failures) {
+      builder.append("\n").append(failure);
+    }
+    return builder.toString();
+  }
+}
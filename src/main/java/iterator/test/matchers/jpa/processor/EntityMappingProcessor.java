@@ -0,0 +1,342 @@
+/**
+ * Copyright © 2016 Iterator Ltd. (iteratoruk@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package iterator.test.matchers.jpa.processor;
+
+import iterator.test.matchers.jpa.ClassFile;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code <Entity>_Mapping} class next to every entity, mapped superclass and
+ * embeddable, holding a constant per declared field name and the class's mapping as a precomputed
+ * {@link ClassFile}, so that field names are checked by the compiler and matchers evaluated with
+ * {@code JpaMatchers.inClassFile} never reflect on, or even load, the entity.
+ *
+ * <p>The processor is not registered as a service; enable it explicitly with {@code -processor}.
+ */
+public final class EntityMappingProcessor extends AbstractProcessor {
+
+  private static final String CLASS_FILE = ClassFile.class.getName();
+
+  private static final String GENERATED = "javax.annotation.processing.Generated";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    Set<String> types = new LinkedHashSet<>();
+    for (String namespace : new String[] {"javax.persistence.", "jakarta.persistence."}) {
+      types.add(namespace + "Entity");
+      types.add(namespace + "MappedSuperclass");
+      types.add(namespace + "Embeddable");
+    }
+    return types;
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<TypeElement> types = new LinkedHashSet<>();
+    for (TypeElement annotation : annotations) {
+      types.addAll(ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation)));
+    }
+    for (TypeElement type : types) {
+      if (type.getKind() == ElementKind.CLASS) {
+        generate(type);
+      }
+    }
+    return false;
+  }
+
+  private void generate(TypeElement type) {
+    String packageName =
+        processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    String simpleName = mappingName(type);
+    String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    try (PrintWriter out =
+        new PrintWriter(
+            processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter())) {
+      write(out, packageName, simpleName, type);
+    } catch (IOException e) {
+      processingEnv
+          .getMessager()
+          .printMessage(
+              Diagnostic.Kind.ERROR, "cannot write " + qualifiedName + ": " + e.getMessage(), type);
+    }
+  }
+
+  private void write(PrintWriter out, String packageName, String simpleName, TypeElement type) {
+    if (!packageName.isEmpty()) {
+      out.println("package " + packageName + ";");
+      out.println();
+    }
+    if (processingEnv.getElementUtils().getTypeElement(GENERATED) != null) {
+      out.println("@" + GENERATED + "(\"" + getClass().getName() + "\")");
+    }
+    out.println("public final class " + simpleName + " {");
+    Set<String> constants = new HashSet<>();
+    constants.add("CLASS_FILE");
+    List<VariableElement> fields = ElementFilter.fieldsIn(type.getEnclosedElements());
+    for (VariableElement field : fields) {
+      if (!field.getModifiers().contains(Modifier.STATIC)) {
+        String constant = constantName(field.getSimpleName().toString());
+        while (!constants.add(constant)) {
+          constant += "_";
+        }
+        out.println();
+        out.println(
+            "  public static final String "
+                + constant
+                + " = "
+                + literal(field.getSimpleName().toString())
+                + ";");
+      }
+    }
+    out.println();
+    out.println("  public static final " + CLASS_FILE + " CLASS_FILE =");
+    out.println(
+        "      "
+            + CLASS_FILE
+            + ".builder("
+            + literal(binaryName(type))
+            + ", "
+            + superclassName(type)
+            + ", "
+            + modifiers(type)
+            + ")");
+    writeAnnotations(out, type);
+    for (VariableElement field : fields) {
+      out.println(
+          "          .field("
+              + literal(field.getSimpleName().toString())
+              + ", "
+              + literal(descriptor(field.asType()))
+              + ", "
+              + modifiers(field)
+              + ")");
+      writeAnnotations(out, field);
+    }
+    out.println("          .build();");
+    out.println();
+    out.println("  private " + simpleName + "() {");
+    out.println("    throw new IllegalStateException(\"not for instantiation\");");
+    out.println("  }");
+    out.println("}");
+  }
+
+  private void writeAnnotations(PrintWriter out, Element element) {
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      if (isRuntimeVisible(annotation)) {
+        out.println("          .annotation(" + arguments(annotation) + ")");
+      }
+    }
+  }
+
+  private String arguments(AnnotationMirror annotation) {
+    StringBuilder arguments =
+        new StringBuilder(literal(binaryName(annotation.getAnnotationType())));
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        annotation.getElementValues().entrySet()) {
+      arguments
+          .append(", ")
+          .append(literal(entry.getKey().getSimpleName().toString()))
+          .append(", ")
+          .append(entry.getValue().accept(new ValueExpression(), null));
+    }
+    return arguments.toString();
+  }
+
+  private static boolean isRuntimeVisible(AnnotationMirror annotation) {
+    Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+    return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+  }
+
+  private String superclassName(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    return superclass.getKind() == TypeKind.DECLARED
+        ? literal(binaryName((DeclaredType) superclass))
+        : "null";
+  }
+
+  private static int modifiers(Element element) {
+    int modifiers = 0;
+    for (Modifier modifier : element.getModifiers()) {
+      modifiers |= modifier(modifier);
+    }
+    return modifiers;
+  }
+
+  private static int modifier(Modifier modifier) {
+    switch (modifier) {
+      case PUBLIC:
+        return java.lang.reflect.Modifier.PUBLIC;
+      case PRIVATE:
+        return java.lang.reflect.Modifier.PRIVATE;
+      case PROTECTED:
+        return java.lang.reflect.Modifier.PROTECTED;
+      case STATIC:
+        return java.lang.reflect.Modifier.STATIC;
+      case FINAL:
+        return java.lang.reflect.Modifier.FINAL;
+      case VOLATILE:
+        return java.lang.reflect.Modifier.VOLATILE;
+      case TRANSIENT:
+        return java.lang.reflect.Modifier.TRANSIENT;
+      case ABSTRACT:
+        return java.lang.reflect.Modifier.ABSTRACT;
+      default:
+        return 0;
+    }
+  }
+
+  private String descriptor(TypeMirror type) {
+    TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+    switch (erased.getKind()) {
+      case BOOLEAN:
+        return "Z";
+      case BYTE:
+        return "B";
+      case CHAR:
+        return "C";
+      case SHORT:
+        return "S";
+      case INT:
+        return "I";
+      case LONG:
+        return "J";
+      case FLOAT:
+        return "F";
+      case DOUBLE:
+        return "D";
+      case VOID:
+        return "V";
+      case ARRAY:
+        return "[" + descriptor(((ArrayType) erased).getComponentType());
+      case DECLARED:
+        return "L" + binaryName((DeclaredType) erased).replace('.', '/') + ";";
+      default:
+        throw new IllegalArgumentException("cannot describe " + type);
+    }
+  }
+
+  private String className(TypeMirror type) {
+    switch (type.getKind()) {
+      case ARRAY:
+        return descriptor(type).replace('/', '.');
+      case DECLARED:
+        return binaryName((DeclaredType) type);
+      default:
+        return type.toString();
+    }
+  }
+
+  private String binaryName(DeclaredType type) {
+    return binaryName((TypeElement) type.asElement());
+  }
+
+  private String binaryName(TypeElement type) {
+    return processingEnv.getElementUtils().getBinaryName(type).toString();
+  }
+
+  private static String mappingName(TypeElement type) {
+    StringBuilder name = new StringBuilder(type.getSimpleName());
+    for (Element enclosing = type.getEnclosingElement();
+        enclosing instanceof TypeElement;
+        enclosing = enclosing.getEnclosingElement()) {
+      name.insert(0, enclosing.getSimpleName() + "_");
+    }
+    return name.append("_Mapping").toString();
+  }
+
+  static String constantName(String fieldName) {
+    StringBuilder constant = new StringBuilder(fieldName.length() + 4);
+    for (int i = 0; i < fieldName.length(); i++) {
+      char c = fieldName.charAt(i);
+      if (i > 0 && Character.isUpperCase(c) && !Character.isUpperCase(fieldName.charAt(i - 1))) {
+        constant.append('_');
+      }
+      constant.append(Character.toUpperCase(c));
+    }
+    return constant.toString();
+  }
+
+  private String literal(String value) {
+    return processingEnv.getElementUtils().getConstantExpression(value);
+  }
+
+  private final class ValueExpression extends SimpleAnnotationValueVisitor8<String, Void> {
+
+    @Override
+    protected String defaultAction(Object value, Void unused) {
+      return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    @Override
+    public String visitType(TypeMirror type, Void unused) {
+      return CLASS_FILE + ".classValue(" + literal(className(type)) + ")";
+    }
+
+    @Override
+    public String visitEnumConstant(VariableElement constant, Void unused) {
+      return CLASS_FILE
+          + ".enumValue("
+          + literal(binaryName((TypeElement) constant.getEnclosingElement()))
+          + ", "
+          + literal(constant.getSimpleName().toString())
+          + ")";
+    }
+
+    @Override
+    public String visitAnnotation(AnnotationMirror annotation, Void unused) {
+      return CLASS_FILE + ".annotationValue(" + arguments(annotation) + ")";
+    }
+
+    @Override
+    public String visitArray(List<? extends AnnotationValue> values, Void unused) {
+      return values.stream()
+          .map(value -> value.accept(this, null))
+          .collect(Collectors.joining(", ", "new Object[] {", "}"));
+    }
+  }
+}
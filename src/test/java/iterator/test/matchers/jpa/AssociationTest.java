@@ -0,0 +1,98 @@
+package iterator.test.matchers.jpa;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import org.junit.jupiter.api.Test;
+
+class AssociationTest {
+
+  @MappedSuperclass
+  private static class Tree<N, C> {
+
+    @ManyToOne private N parent;
+
+    @OneToMany(mappedBy = "parent")
+    private List<C> children;
+  }
+
+  @Entity
+  private static class Category extends Tree<Category, Category> {
+
+    @ManyToMany private Map<String, Tag> tags;
+
+    @OneToOne(targetEntity = Tag.class)
+    private Object label;
+
+    @ElementCollection private Set<String> aliases;
+
+    @SuppressWarnings("rawtypes")
+    @OneToMany
+    private List raw;
+  }
+
+  @Entity
+  private static class Tag {}
+
+  @Test
+  void shouldResolveAssociationsOncePerClass() {
+    assertThat(
+        EntityMetadata.of(Category.class).getAssociations(),
+        sameInstance(EntityMetadata.of(Category.class).getAssociations()));
+  }
+
+  @Test
+  void shouldResolveTargetsFromGenericTypes() {
+    assertThat(association("tags").getTarget(), equalTo(Tag.class));
+    assertThat(association("aliases").getTarget(), equalTo(String.class));
+    assertThat(association("raw").getTarget(), nullValue());
+  }
+
+  @Test
+  void shouldResolveTargetsFromInheritedTypeVariables() {
+    assertThat(association("parent").getTarget(), equalTo(Category.class));
+    assertThat(association("children").getTarget(), equalTo(Category.class));
+  }
+
+  @Test
+  void shouldPreferExplicitTargets() {
+    assertThat(association("label").getTarget(), equalTo(Tag.class));
+  }
+
+  @Test
+  void shouldApplyDefaultFetchTypes() {
+    assertThat(association("parent").getFetch(), is(FetchType.EAGER));
+    assertThat(association("label").getFetch(), is(FetchType.EAGER));
+    assertThat(association("children").getFetch(), is(FetchType.LAZY));
+    assertThat(association("aliases").getFetch(), is(FetchType.LAZY));
+  }
+
+  @Test
+  void shouldIdentifyOwningSides() {
+    assertThat(association("parent").isOwningSide(), is(true));
+    assertThat(association("children").isOwningSide(), is(false));
+    assertThat(association("children").getMappedBy(), is("parent"));
+    assertThat(association("aliases").isOwningSide(), is(false));
+  }
+
+  private static Association association(String fieldName) {
+    return EntityMetadata.of(Category.class).getAssociations().stream()
+        .filter(association -> association.getFieldName().equals(fieldName))
+        .findFirst()
+        .orElseThrow(AssertionError::new);
+  }
+}
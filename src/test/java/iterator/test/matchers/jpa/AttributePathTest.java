@@ -0,0 +1,180 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityMapping;
+import static iterator.test.matchers.jpa.JpaMatchers.hasJoinColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasManyToOneAnnotation;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.util.List;
+import javax.persistence.AssociationOverride;
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class AttributePathTest {
+
+  @Entity
+  private static class Country {
+
+    @Id private String code;
+  }
+
+  @Embeddable
+  private static class Location {
+
+    @Column(name = "lat", precision = 9)
+    private Double latitude;
+  }
+
+  @Embeddable
+  private static class Address {
+
+    @Column(name = "postcode", length = 10)
+    private String postcode;
+
+    @ManyToOne
+    @JoinColumn(name = "country_code")
+    private Country country;
+
+    @Embedded
+    @AttributeOverride(name = "latitude", column = @Column(name = "address_lat"))
+    private Location location;
+  }
+
+  @Embeddable
+  private static class CustomerId {
+
+    @Column(name = "branch")
+    private String branch;
+
+    private Long number;
+  }
+
+  @Entity
+  private static class Customer {
+
+    @EmbeddedId private CustomerId id;
+
+    @Embedded private Address home;
+
+    @Embedded
+    @AttributeOverrides({
+      @AttributeOverride(name = "postcode", column = @Column(name = "billing_postcode")),
+      @AttributeOverride(name = "location.latitude", column = @Column(name = "billing_lat"))
+    })
+    @AssociationOverride(name = "country", joinColumns = @JoinColumn(name = "billing_country"))
+    private Address billing;
+
+    @ElementCollection private List<Address> previous;
+
+    @ManyToOne private Country country;
+  }
+
+  @Test
+  void shouldMatchAttributesOfEmbeddables() {
+    assertThat(
+        Customer.class,
+        hasColumnAnnotation(
+            "home.postcode",
+            AnnotationMap.from(Column.class).set("name", "postcode").set("length", 10)));
+    assertThat(
+        Customer.class,
+        hasColumnAnnotation("id.branch", AnnotationMap.from(Column.class).set("name", "branch")));
+    assertThat(
+        Customer.class,
+        hasColumnAnnotation(
+            "previous.postcode",
+            AnnotationMap.from(Column.class).set("name", "postcode").set("length", 10)));
+    assertThat(Customer.class, hasManyToOneAnnotation("home.country"));
+    assertThat(
+        Customer.class,
+        hasJoinColumnAnnotation(
+            "home.country", AnnotationMap.from(JoinColumn.class).set("name", "country_code")));
+  }
+
+  @Test
+  void shouldApplyOverridesOuterMostFirst() {
+    assertThat(
+        Customer.class,
+        hasColumnAnnotation(
+            "billing.postcode", AnnotationMap.from(Column.class).set("name", "billing_postcode")));
+    assertThat(
+        Customer.class,
+        hasColumnAnnotation(
+            "home.location.latitude", AnnotationMap.from(Column.class).set("name", "address_lat")));
+    assertThat(
+        Customer.class,
+        hasColumnAnnotation(
+            "billing.location.latitude",
+            AnnotationMap.from(Column.class).set("name", "billing_lat")));
+    assertThat(
+        Customer.class,
+        hasJoinColumnAnnotation(
+            "billing.country",
+            AnnotationMap.from(JoinColumn.class).set("name", "billing_country")));
+    assertThat(
+        Customer.class,
+        hasEntityMapping()
+            .field(
+                "billing.postcode",
+                AnnotationMap.from(Column.class).set("name", "billing_postcode")));
+  }
+
+  @Test
+  void shouldDescribeUnresolvablePaths() {
+    assertThat(
+        mismatch(hasColumnAnnotation("home.zip")),
+        is("<" + Customer.class + "> has no field home.zip"));
+    assertThat(
+        mismatch(hasColumnAnnotation("home.number")),
+        is("<" + Customer.class + "> has no field home.number"));
+    assertThat(
+        mismatch(hasColumnAnnotation("country.code")),
+        is("<" + Customer.class + "> cannot navigate country.code, country is not embedded"));
+    assertThat(
+        mismatch(hasColumnAnnotation("id.number")),
+        is("field id.number is not annotated with @Column"));
+    assertThat(
+        mismatch(
+            hasColumnAnnotation(
+                "billing.postcode", AnnotationMap.from(Column.class).set("name", "postcode"))),
+        is("field billing.postcode has name was \"billing_postcode\""));
+    assertThat(Customer.class, not(hasColumnAnnotation("home.location.longitude")));
+  }
+
+  @Test
+  void shouldCompilePathsOnce() {
+    assertThat(
+        AttributePath.compile("home.postcode"),
+        sameInstance(AttributePath.compile("home.postcode")));
+    EntityMetadata metadata = EntityMetadata.of(Customer.class);
+    assertThat(
+        AttributePath.compile("home.postcode").resolve(metadata),
+        sameInstance(AttributePath.compile("home.postcode").resolve(metadata)));
+    assertThrows(IllegalArgumentException.class, () -> hasColumnAnnotation("home..postcode"));
+    assertThrows(IllegalArgumentException.class, () -> hasColumnAnnotation("home."));
+  }
+
+  private static String mismatch(Matcher<Class<Customer>> matcher) {
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(Customer.class, description);
+    return description.toString();
+  }
+}
@@ -0,0 +1,250 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasConsistentAssociations;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class BidirectionalAssociationMatcherTest {
+
+  @Entity
+  private static class Order {
+
+    @Id private Long id;
+
+    @OneToMany(mappedBy = "order")
+    private List<Line> lines;
+
+    @ManyToMany private Set<Tag> tags;
+
+    @OneToMany
+    @JoinColumn(name = "order_id")
+    private List<Note> notes;
+
+    @OneToOne(mappedBy = "delivery.order")
+    private Shipment shipment;
+  }
+
+  @Entity
+  private static class Line {
+
+    @Id private Long id;
+
+    @ManyToOne private Order order;
+  }
+
+  @Entity
+  private static class Tag {
+
+    @Id private Long id;
+
+    @ManyToMany(mappedBy = "tags")
+    private Set<Order> orders;
+  }
+
+  @Entity
+  private static class Note {
+
+    @Id private Long id;
+  }
+
+  @Embeddable
+  private static class Delivery {
+
+    @OneToOne private Order order;
+  }
+
+  @Entity
+  private static class Shipment {
+
+    @Id private Long id;
+
+    @Embedded private Delivery delivery;
+  }
+
+  @Entity
+  private static class Invoice {
+
+    @Id private Long id;
+
+    @OneToMany(mappedBy = "invoise")
+    private List<Line> misspelt;
+
+    @OneToMany(mappedBy = "order")
+    private List<Line> wrongTarget;
+
+    @OneToMany(mappedBy = "invoice")
+    private List<Entry> wrongKind;
+
+    @ManyToMany(mappedBy = "invoices")
+    private Set<Entry> unowned;
+
+    @SuppressWarnings("rawtypes")
+    @OneToMany
+    private List raw;
+
+    @OneToMany private List<Note> notes;
+
+    @OneToMany
+    @JoinColumn(name = "invoice_id")
+    private List<Payment> payments;
+
+    @ManyToOne private Delivery delivery;
+  }
+
+  @Entity
+  private static class Entry {
+
+    @Id private Long id;
+
+    @OneToOne private Invoice invoice;
+
+    @ManyToMany(mappedBy = "unowned")
+    private Set<Invoice> invoices;
+  }
+
+  @Entity
+  private static class Payment {
+
+    @Id private Long id;
+
+    @ManyToOne private Invoice invoice;
+  }
+
+  @Entity
+  private static class Account {
+
+    @Id private Long id;
+
+    @OneToMany
+    @JoinColumn(name = "account_id")
+    private List<Posting> postings;
+  }
+
+  @Entity
+  private static class Posting {
+
+    @Id private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "account_id", insertable = false, updatable = false)
+    private Account account;
+  }
+
+  @Entity
+  private static class Person {
+
+    @Id private Long id;
+
+    @OneToOne private Passport passport;
+  }
+
+  @Entity
+  private static class Passport {
+
+    @Id private Long id;
+
+    @OneToOne private Person holder;
+  }
+
+  @Entity
+  private static class Seat {
+
+    @Id private Long id;
+
+    @OneToOne
+    @JoinColumn(name = "booking_id")
+    private Ticket ticket;
+  }
+
+  @Entity
+  private static class Ticket {
+
+    @Id private Long id;
+
+    @OneToOne
+    @JoinColumn(name = "booking_id")
+    private Seat seat;
+  }
+
+  @Test
+  void shouldMatchConsistentAssociations() {
+    assertThat(Order.class, hasConsistentAssociations());
+    assertThat(Line.class, hasConsistentAssociations());
+    assertThat(Tag.class, hasConsistentAssociations());
+    assertThat(Shipment.class, hasConsistentAssociations());
+    assertThat(Payment.class, hasConsistentAssociations());
+  }
+
+  @Test
+  void shouldNotReportOwningSidesWithSeparateOrReadOnlyJoinColumns() {
+    assertThat(Account.class, hasConsistentAssociations());
+    assertThat(Posting.class, hasConsistentAssociations());
+    assertThat(Person.class, hasConsistentAssociations());
+    assertThat(Passport.class, hasConsistentAssociations());
+  }
+
+  @Test
+  void shouldReportOneToOneOwnedFromBothSidesThroughTheSameColumn() {
+    StringDescription description = new StringDescription();
+    hasConsistentAssociations().describeMismatch(Seat.class, description);
+    assertThat(
+        description.toString(),
+        is(
+            "<"
+                + Seat.class
+                + "> has inconsistent associations:"
+                + "\n  Seat.ticket: Ticket.seat also owns the relationship, declare mappedBy on"
+                + " one side"));
+  }
+
+  @Test
+  void shouldReportInconsistentAssociations() {
+    Matcher<Class<Invoice>> matcher = hasConsistentAssociations();
+    assertThat(Invoice.class, not(matcher));
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(Invoice.class, description);
+    assertThat(
+        description.toString(),
+        is(
+            "<"
+                + Invoice.class
+                + "> has inconsistent associations:"
+                + "\n  Invoice.misspelt: mappedBy \"invoise\" names no association of Line"
+                + "\n  Invoice.wrongTarget: Line.order targets Order, not Invoice"
+                + "\n  Invoice.wrongKind: Entry.invoice is @OneToOne, expected @ManyToOne"
+                + "\n  Invoice.unowned: Entry.invoices also declares mappedBy, so neither side owns"
+                + " it"
+                + "\n  Invoice.raw: cannot resolve the target entity from the field type"
+                + "\n  Invoice.notes: unidirectional one-to-many without @JoinColumn maps a join"
+                + " table"
+                + "\n  Invoice.payments: Payment.invoice also owns the relationship, declare"
+                + " mappedBy = \"invoice\""
+                + "\n  Invoice.delivery: target "
+                + Delivery.class.getName()
+                + " is not an entity"));
+    assertThat(Entry.class, not(hasConsistentAssociations()));
+  }
+
+  @Test
+  void shouldDescribeItself() {
+    assertThat(
+        StringDescription.toString(hasConsistentAssociations()),
+        is("entity whose bidirectional associations are mapped consistently"));
+  }
+}
@@ -0,0 +1,119 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasCacheableAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.isCachedUnder;
+import static iterator.test.matchers.jpa.JpaMatchers.satisfiesCachePolicy;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.Cacheable;
+import javax.persistence.Entity;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.SharedCacheMode;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class CachePolicyTest {
+
+  @MappedSuperclass
+  @Cacheable
+  private static class ReferenceData {}
+
+  @Entity
+  private static class Country extends ReferenceData {}
+
+  @Entity
+  @Cacheable(false)
+  private static class Currency extends ReferenceData {}
+
+  @Entity
+  private static class Order {}
+
+  private static final List<Class<?>> ENTITIES =
+      Arrays.asList(Country.class, Currency.class, Order.class);
+
+  @Test
+  void shouldInheritCacheableFromMappedSuperclasses() {
+    assertThat(Country.class, hasCacheableAnnotation());
+    assertThat(
+        Currency.class,
+        hasCacheableAnnotation(AnnotationMap.from(Cacheable.class).set("value", false)));
+    assertThat(Order.class, not(hasCacheableAnnotation()));
+  }
+
+  @Test
+  void shouldApplySharedCacheModes() {
+    assertThat(Country.class, isCachedUnder(SharedCacheMode.ENABLE_SELECTIVE));
+    assertThat(Country.class, isCachedUnder(SharedCacheMode.UNSPECIFIED));
+    assertThat(Order.class, not(isCachedUnder(SharedCacheMode.ENABLE_SELECTIVE)));
+    assertThat(Order.class, isCachedUnder(SharedCacheMode.DISABLE_SELECTIVE));
+    assertThat(Currency.class, not(isCachedUnder(SharedCacheMode.DISABLE_SELECTIVE)));
+    assertThat(Currency.class, isCachedUnder(SharedCacheMode.ALL));
+    assertThat(Country.class, not(isCachedUnder(SharedCacheMode.NONE)));
+  }
+
+  @Test
+  void shouldSatisfyPolicy() {
+    assertThat(
+        ENTITIES,
+        satisfiesCachePolicy(
+            CachePolicy.under(SharedCacheMode.ENABLE_SELECTIVE)
+                .cached(Country.class)
+                .otherwiseNotCached()));
+  }
+
+  @Test
+  void shouldReportPolicyViolations() {
+    Matcher<Iterable<? extends Class<?>>> matcher =
+        satisfiesCachePolicy(
+            CachePolicy.under(SharedCacheMode.DISABLE_SELECTIVE)
+                .cached(Currency.class)
+                .notCached(Order.class));
+    assertThat(matcher.matches(ENTITIES), is(false));
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(ENTITIES, description);
+    assertThat(
+        description.toString(),
+        is(
+            "2 entities violate the policy:"
+                + "\n  "
+                + Currency.class.getName()
+                + " must be cached but is not"
+                + "\n  "
+                + Order.class.getName()
+                + " must not be cached but is"));
+  }
+
+  @Test
+  void shouldReportNamedEntitiesThatWereNotChecked() {
+    Matcher<Iterable<? extends Class<?>>> matcher =
+        satisfiesCachePolicy(
+            CachePolicy.under(SharedCacheMode.ENABLE_SELECTIVE)
+                .cached(Country.class)
+                .notCached(Order.class));
+    List<Class<?>> entities = Arrays.asList(Country.class, Currency.class);
+    assertThat(matcher.matches(entities), is(false));
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(entities, description);
+    assertThat(
+        description.toString(),
+        is(
+            "1 entities violate the policy:"
+                + "\n  "
+                + Order.class.getName()
+                + " is named by the policy but was not checked"));
+  }
+
+  @Test
+  void shouldRejectContradictoryPolicies() {
+    CachePolicy policy = CachePolicy.under(SharedCacheMode.ALL).cached(Order.class);
+    assertThrows(IllegalArgumentException.class, () -> policy.notCached(Order.class));
+    assertThrows(IllegalArgumentException.class, () -> CachePolicy.under(null));
+  }
+}
@@ -0,0 +1,176 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityListenersAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityMapping;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEnumeratedAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasManyToManyAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasTableAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.inClassFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.jpa.scan.Invoice;
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToMany;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.Table;
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClassFileTest {
+
+  private static ClassFile classFile(Class<?> type) throws Exception {
+    return ClassFile.read(Paths.get(type.getResource(type.getSimpleName() + ".class").toURI()));
+  }
+
+  @Test
+  void shouldReadNamesAndFields() throws Exception {
+    ClassFile classFile = classFile(Invoice.class);
+    assertThat(classFile.getName(), is(Invoice.class.getName()));
+    assertThat(classFile.getSuperclassName(), is(Object.class.getName()));
+    assertThat(classFile.getFieldNames(), contains("id"));
+  }
+
+  @Test
+  void shouldMatchTypeAnnotations() throws Exception {
+    ClassFile classFile = classFile(JpaMatchersTest.class);
+    assertThat(
+        classFile,
+        inClassFile(hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "quix"))));
+    assertThat(classFile, not(inClassFile(hasTableAnnotation())));
+    assertThat(
+        classFile,
+        inClassFile(
+            hasEntityListenersAnnotation(
+                new Class<?>[] {String.class, Integer.class, Boolean.class})));
+    assertThat(
+        classFile, not(inClassFile(hasEntityListenersAnnotation(new Class<?>[] {String.class}))));
+  }
+
+  @Test
+  void shouldMatchFieldAnnotations() throws Exception {
+    ClassFile classFile = classFile(JpaMatchersTest.class);
+    assertThat(
+        classFile,
+        inClassFile(
+            hasColumnAnnotation(
+                "columnAnnotation", AnnotationMap.from(Column.class).set("name", "foo"))));
+    assertThat(classFile, inClassFile(hasColumnAnnotation("columnAnnotationWithDefaults")));
+    assertThat(
+        classFile, inClassFile(hasEnumeratedAnnotation("enumeratedAnnotation", EnumType.STRING)));
+    assertThat(
+        classFile,
+        inClassFile(
+            hasManyToManyAnnotation(
+                "manyToManyAnnotation",
+                AnnotationMap.from(ManyToMany.class).set("fetch", FetchType.EAGER))));
+    assertThat(
+        classFile,
+        not(inClassFile(hasEnumeratedAnnotation("enumeratedAnnotation", EnumType.ORDINAL))));
+    assertThat(classFile, not(inClassFile(hasColumnAnnotation("missing"))));
+  }
+
+  @Test
+  void shouldMatchEntityMapping() throws Exception {
+    assertThat(
+        classFile(Invoice.class),
+        inClassFile(
+            hasEntityMapping()
+                .entity()
+                .table(AnnotationMap.from(Table.class).set("name", "invoices"))));
+  }
+
+  @Test
+  void shouldDescribeMismatch() throws Exception {
+    StringDescription description = new StringDescription();
+    inClassFile(hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "bills")))
+        .describeMismatch(classFile(Invoice.class), description);
+    assertThat(description.toString(), containsString("name was invoices"));
+  }
+
+  @Test
+  void shouldReadClassesWithoutInitialisingThem() throws Exception {
+    Path root =
+        Paths.get(Invoice.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    List<ClassFile> classFiles =
+        ClassFile.readAll(root.resolve("iterator/test/matchers/jpa/scan")).stream()
+            .filter(classFile -> classFile.isAnnotatedWith(Entity.class))
+            .collect(Collectors.toList());
+    assertThat(
+        classFiles.stream().map(ClassFile::getName).collect(Collectors.toList()),
+        hasItem("iterator.test.matchers.jpa.scan.Ledger"));
+    for (ClassFile classFile : classFiles) {
+      assertThat(classFile, inClassFile(hasEntityAnnotation()));
+    }
+  }
+
+  @Test
+  void shouldReadClassesFromJar(@TempDir Path directory) throws Exception {
+    Path jar = directory.resolve("domain.jar");
+    try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new JarEntry("iterator/test/matchers/jpa/scan/Invoice.class"));
+      try (InputStream input = Invoice.class.getResourceAsStream("Invoice.class")) {
+        input.transferTo(output);
+      }
+      output.closeEntry();
+    }
+    List<ClassFile> classFiles = ClassFile.readAll(jar);
+    assertThat(classFiles.size(), is(1));
+    assertThat(classFiles.get(0), inClassFile(hasEntityAnnotation()));
+  }
+
+  @MappedSuperclass
+  private static class Base {
+
+    @Column private Long id;
+  }
+
+  @Entity
+  private static class Child extends Base {}
+
+  @Test
+  void shouldOnlySeeFieldsDeclaredByTheClassFile() throws Exception {
+    ClassFile child =
+        ClassFile.read(Paths.get(Child.class.getResource("ClassFileTest$Child.class").toURI()));
+    ClassFile base =
+        ClassFile.read(Paths.get(Base.class.getResource("ClassFileTest$Base.class").toURI()));
+    assertThat(Child.class, hasColumnAnnotation("id"));
+    assertThat(child, not(inClassFile(hasColumnAnnotation("id"))));
+    assertThat(base, inClassFile(hasColumnAnnotation("id")));
+    StringDescription description = new StringDescription();
+    inClassFile(hasColumnAnnotation("id")).describeMismatch(child, description);
+    assertThat(
+        description.toString(),
+        is(
+            Child.class.getName()
+                + " has no field id (fields inherited from "
+                + Base.class.getName()
+                + " are not in its class file)"));
+  }
+
+  @Test
+  void shouldRejectOtherMatchers() {
+    assertThrows(IllegalArgumentException.class, () -> inClassFile(CoreMatchers.anything()));
+  }
+}
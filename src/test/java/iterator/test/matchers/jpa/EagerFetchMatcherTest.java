@@ -0,0 +1,116 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasEagerFetchDepthAtMost;
+import static iterator.test.matchers.jpa.JpaMatchers.hasNoEagerCollections;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Set;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class EagerFetchMatcherTest {
+
+  @Entity
+  private static class Order {
+
+    @ManyToOne private Customer customer;
+
+    @OneToMany(mappedBy = "order")
+    private List<Line> lines;
+  }
+
+  @Entity
+  private static class Line {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Order order;
+  }
+
+  @Entity
+  private static class Customer {
+
+    @OneToOne private Account account;
+
+    @OneToMany(fetch = FetchType.EAGER)
+    private Set<Address> addresses;
+
+    @ManyToOne private Customer referrer;
+  }
+
+  @Entity
+  private static class Account {
+
+    @ManyToOne private Bank bank;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    private Set<String> aliases;
+  }
+
+  @Entity
+  private static class Bank {}
+
+  @Entity
+  private static class Address {}
+
+  @Test
+  void shouldMeasureEagerFetchDepth() {
+    assertThat(Order.class, hasEagerFetchDepthAtMost(3));
+    assertThat(Order.class, not(hasEagerFetchDepthAtMost(2)));
+    assertThat(Line.class, hasEagerFetchDepthAtMost(0));
+    assertThat(Bank.class, hasEagerFetchDepthAtMost(0));
+  }
+
+  @Test
+  void shouldNotFollowCyclesForever() {
+    assertThat(Customer.class, hasEagerFetchDepthAtMost(2));
+  }
+
+  @Test
+  void shouldReportPathsLongerThanMaximum() {
+    assertThat(
+        mismatch(hasEagerFetchDepthAtMost(2), Order.class),
+        is(
+            "<"
+                + Order.class
+                + "> has eager fetch paths longer than 2:"
+                + "\n  Order.customer -> Customer.account -> Account.bank"
+                + "\n  Order.customer -> Customer.account -> Account.aliases"));
+  }
+
+  @Test
+  void shouldRejectNegativeDepth() {
+    assertThrows(IllegalArgumentException.class, () -> hasEagerFetchDepthAtMost(-1));
+  }
+
+  @Test
+  void shouldFindEagerCollectionsTransitively() {
+    assertThat(Line.class, hasNoEagerCollections());
+    assertThat(Bank.class, hasNoEagerCollections());
+    assertThat(
+        mismatch(hasNoEagerCollections(), Order.class),
+        is(
+            "<"
+                + Order.class
+                + "> eagerly fetches collections through:"
+                + "\n  Order.customer -> Customer.addresses"
+                + "\n  Order.customer -> Customer.account -> Account.aliases"));
+  }
+
+  private static String mismatch(Matcher<?> matcher, Class<?> type) {
+    assertThat(matcher.matches(type), is(false));
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(type, description);
+    return description.toString();
+  }
+}
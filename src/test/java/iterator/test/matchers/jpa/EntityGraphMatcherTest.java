@@ -0,0 +1,172 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasNamedEntityGraph;
+import static iterator.test.matchers.jpa.JpaMatchers.hasValidNamedEntityGraphs;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
+import javax.persistence.OneToMany;
+import javax.persistence.Transient;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class EntityGraphMatcherTest {
+
+  @Entity
+  @NamedEntityGraphs({
+    @NamedEntityGraph(
+        name = "order.detail",
+        attributeNodes = {
+          @NamedAttributeNode("number"),
+          @NamedAttributeNode(value = "lines", subgraph = "lines"),
+          @NamedAttributeNode(value = "byCode", keySubgraph = "code"),
+          @NamedAttributeNode(value = "address", subgraph = "address")
+        },
+        subgraphs = {
+          @NamedSubgraph(
+              name = "lines",
+              attributeNodes = {@NamedAttributeNode(value = "product", subgraph = "product")}),
+          @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("name")),
+          @NamedSubgraph(name = "code", attributeNodes = @NamedAttributeNode("value")),
+          @NamedSubgraph(name = "address", attributeNodes = @NamedAttributeNode("postcode"))
+        },
+        subclassSubgraphs =
+            @NamedSubgraph(
+                name = "rush",
+                type = RushOrder.class,
+                attributeNodes = @NamedAttributeNode("deadline"))),
+    @NamedEntityGraph(attributeNodes = @NamedAttributeNode("number"))
+  })
+  private static class Order {
+
+    private String number;
+
+    @OneToMany private List<Line> lines;
+
+    @OneToMany private Map<Code, Line> byCode;
+
+    @Embedded private Address address;
+  }
+
+  @Entity
+  private static class RushOrder extends Order {
+
+    private String deadline;
+  }
+
+  @Entity
+  private static class Line {
+
+    @ManyToOne private Product product;
+  }
+
+  @Entity
+  private static class Product {
+
+    private String name;
+  }
+
+  @Embeddable
+  private static class Code {
+
+    private String value;
+  }
+
+  @Embeddable
+  private static class Address {
+
+    private String postcode;
+  }
+
+  @Entity
+  @NamedEntityGraph(
+      name = "broken",
+      attributeNodes = {
+        @NamedAttributeNode("numbr"),
+        @NamedAttributeNode("cached"),
+        @NamedAttributeNode(value = "number", subgraph = "number"),
+        @NamedAttributeNode(value = "lines", subgraph = "missing"),
+        @NamedAttributeNode(value = "order", subgraph = "order")
+      },
+      subgraphs = {
+        @NamedSubgraph(name = "number", attributeNodes = @NamedAttributeNode("x")),
+        @NamedSubgraph(
+            name = "order",
+            attributeNodes = {
+              @NamedAttributeNode(value = "lines", subgraph = "lines"),
+              @NamedAttributeNode("price")
+            }),
+        @NamedSubgraph(
+            name = "lines",
+            attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+        @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("nme"))
+      })
+  private static class Broken {
+
+    private String number;
+
+    @Transient private String cached;
+
+    @OneToMany private List<Line> lines;
+
+    @ManyToOne private Order order;
+  }
+
+  @Test
+  void shouldMatchNamedGraphs() {
+    assertThat(Order.class, hasNamedEntityGraph("order.detail", "lines", "number"));
+    assertThat(Order.class, hasNamedEntityGraph("Order", "number"));
+    assertThat(Order.class, not(hasNamedEntityGraph("order.detail", "customer")));
+    assertThat(Order.class, not(hasNamedEntityGraph("order.summary")));
+  }
+
+  @Test
+  void shouldDescribeMissingNodes() {
+    assertThat(
+        mismatch(hasNamedEntityGraph("order.detail", "customer", "lines"), Order.class),
+        is("graph \"order.detail\" has no attribute nodes [\"customer\"]"));
+  }
+
+  @Test
+  void shouldResolveGraphsRecursively() {
+    assertThat(Order.class, hasValidNamedEntityGraphs());
+    assertThat(Line.class, hasValidNamedEntityGraphs());
+  }
+
+  @Test
+  void shouldReportUnresolvedNodesAndSubgraphs() {
+    assertThat(
+        mismatch(hasValidNamedEntityGraphs(), Broken.class),
+        is(
+            "<"
+                + Broken.class
+                + "> has unresolved entity graphs:"
+                + "\n  graph broken: numbr is not a persistent attribute of Broken"
+                + "\n  graph broken: cached is not a persistent attribute of Broken"
+                + "\n  graph broken: number names subgraph number but is not an association or"
+                + " embeddable"
+                + "\n  graph broken: lines names subgraph missing, which is not declared"
+                + "\n  graph broken: order.lines.product.nme is not a persistent attribute of"
+                + " Product"
+                + "\n  graph broken: order.price is not a persistent attribute of Order"));
+  }
+
+  private static String mismatch(Matcher<?> matcher, Class<?> type) {
+    assertThat(matcher.matches(type), is(false));
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(type, description);
+    return description.toString();
+  }
+}
@@ -0,0 +1,78 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityMapping;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.not;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.util.List;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class EntityMappingSpecTest {
+
+  @Entity(name = "customer")
+  @Table(name = "customers")
+  private static class Customer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(name = "full_name")
+    private String name;
+
+    @OneToMany(mappedBy = "customer")
+    private List<Object> orders;
+  }
+
+  @Test
+  void shouldMatchEntityMapping() {
+    assertThat(
+        Customer.class,
+        hasEntityMapping()
+            .entity(AnnotationMap.from(Entity.class).set("name", "customer"))
+            .table(AnnotationMap.from(Table.class).set("name", "customers"))
+            .field(
+                "id",
+                AnnotationMap.from(Id.class),
+                AnnotationMap.from(GeneratedValue.class).set("strategy", GenerationType.SEQUENCE))
+            .field("name", AnnotationMap.from(Column.class).set("name", "full_name"))
+            .field("orders", AnnotationMap.from(OneToMany.class).set("mappedBy", "customer")));
+  }
+
+  @Test
+  void shouldNotMatchEntityMapping() {
+    assertThat(
+        Customer.class,
+        not(hasEntityMapping().table(AnnotationMap.from(Table.class).set("name", "clients"))));
+  }
+
+  @Test
+  void shouldReportEveryMismatch() {
+    EntityMappingSpec spec =
+        hasEntityMapping()
+            .table(AnnotationMap.from(Table.class).set("name", "clients"))
+            .field("id", AnnotationMap.from(Column.class))
+            .field("name", AnnotationMap.from(Column.class).set("name", "full_name"))
+            .field("missing", AnnotationMap.from(Column.class));
+    StringDescription description = new StringDescription();
+    spec.describeMismatch(Customer.class, description);
+    assertThat(
+        description.toString(),
+        allOf(
+            containsString("name was \"customers\""),
+            containsString("field id is not annotated with @Column"),
+            containsString("has no field missing"),
+            not(containsString("field name"))));
+  }
+}
@@ -0,0 +1,178 @@
+package iterator.test.matchers.jpa;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.persistence.Column;
+import javax.persistence.DiscriminatorColumn;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.ExcludeSuperclassListeners;
+import javax.persistence.Id;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import org.junit.jupiter.api.Test;
+
+class EntityMetadataTest {
+
+  @Entity
+  @Table(name = "foo")
+  private static class Foo {
+
+    @Id private Long id;
+
+    @Column(name = "bar")
+    private String bar;
+  }
+
+  @MappedSuperclass
+  @EntityListeners(Object.class)
+  private static class Identified {
+
+    @Id private Long id;
+
+    @Column(name = "created_by")
+    private String createdBy;
+  }
+
+  private static class Unmapped extends Identified {
+
+    private String ignored;
+  }
+
+  @MappedSuperclass
+  private static class Versioned extends Unmapped {
+
+    @Version private int version;
+
+    @Column(name = "versioned_by")
+    private String createdBy;
+  }
+
+  @Entity
+  @Table(name = "parties")
+  @DiscriminatorColumn(name = "kind")
+  private static class Party extends Versioned {
+
+    private String name;
+  }
+
+  @Entity
+  @ExcludeSuperclassListeners
+  private static class Person extends Party {
+
+    private String surname;
+  }
+
+  @Entity
+  @Table(name = "roots")
+  @Inheritance(strategy = InheritanceType.JOINED)
+  private static class Root {
+
+    @Id private Long id;
+  }
+
+  @Entity
+  private static class Leaf extends Root {}
+
+  @Test
+  void shouldResolveMetadataOncePerClass() {
+    assertThat(EntityMetadata.of(Foo.class), sameInstance(EntityMetadata.of(Foo.class)));
+  }
+
+  @Test
+  void shouldIndexDeclaredFields() {
+    assertThat(EntityMetadata.of(Foo.class).getFields().keySet(), contains("id", "bar"));
+  }
+
+  @Test
+  void shouldIndexTypeAnnotations() {
+    assertThat(EntityMetadata.of(Foo.class).getTypeAnnotation(Table.class).name(), is("foo"));
+  }
+
+  @Test
+  void shouldIndexFieldAnnotations() {
+    EntityMetadata metadata = EntityMetadata.of(Foo.class);
+    assertThat(metadata.getFieldAnnotation("id", Id.class), notNullValue());
+    assertThat(metadata.getFieldAnnotation("bar", Column.class).name(), is("bar"));
+    assertThat(metadata.getFieldAnnotation("bar", Id.class), nullValue());
+    assertThat(metadata.getFieldAnnotation("baz", Column.class), nullValue());
+  }
+
+  @Test
+  void shouldShareMetadataAcrossThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Callable<EntityMetadata> lookup = () -> EntityMetadata.of(Foo.class);
+      List<Future<EntityMetadata>> results =
+          executor.invokeAll(
+              IntStream.range(0, 64).mapToObj(i -> lookup).collect(Collectors.toList()));
+      for (Future<EntityMetadata> result : results) {
+        assertThat(result.get(), sameInstance(EntityMetadata.of(Foo.class)));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldResolveFieldsThroughMappedSuperclasses() {
+    assertThat(
+        EntityMetadata.of(Person.class).getFields().keySet(),
+        contains("surname", "name", "version", "createdBy", "id"));
+  }
+
+  @Test
+  void shouldLetSubclassFieldsShadowInheritedFields() {
+    EntityMetadata metadata = EntityMetadata.of(Party.class);
+    assertThat(metadata.getFieldAnnotation("createdBy", Column.class).name(), is("versioned_by"));
+    assertThat(metadata.getFieldAnnotation("id", Id.class), notNullValue());
+    assertThat(metadata.hasField("ignored"), is(false));
+  }
+
+  @Test
+  void shouldInheritHierarchyScopedTypeAnnotations() {
+    EntityMetadata metadata = EntityMetadata.of(Person.class);
+    assertThat(metadata.getTypeAnnotation(Table.class).name(), is("parties"));
+    assertThat(metadata.getTypeAnnotation(DiscriminatorColumn.class).name(), is("kind"));
+    assertThat(metadata.getTypeAnnotation(MappedSuperclass.class), nullValue());
+    assertThat(
+        EntityMetadata.of(Party.class).getTypeAnnotation(EntityListeners.class), notNullValue());
+  }
+
+  @Test
+  void shouldNotInheritExcludedListeners() {
+    assertThat(
+        EntityMetadata.of(Person.class).getTypeAnnotation(EntityListeners.class), nullValue());
+  }
+
+  @Test
+  void shouldNotInheritTableOutsideSingleTableHierarchies() {
+    EntityMetadata metadata = EntityMetadata.of(Leaf.class);
+    assertThat(
+        metadata.getTypeAnnotation(Inheritance.class).strategy(), is(InheritanceType.JOINED));
+    assertThat(metadata.getTypeAnnotation(Table.class), nullValue());
+    assertThat(metadata.hasField("id"), is(true));
+  }
+
+  @Test
+  void shouldShareInheritedFieldInstances() {
+    assertThat(
+        EntityMetadata.of(Person.class).getFields().get("id"),
+        sameInstance(EntityMetadata.of(Identified.class).getFields().get("id")));
+  }
+}
@@ -0,0 +1,143 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.allEntitiesIn;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasGeneratedValueAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasTableAnnotation;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.jpa.scan.Invoice;
+import iterator.test.matchers.jpa.scan.Ledger;
+import iterator.test.matchers.jpa.scan.Money;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Collectors;
+import javax.persistence.Entity;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EntityScanTest {
+
+  private static final String PACKAGE = "iterator.test.matchers.jpa.scan";
+
+  @Test
+  void shouldDiscoverEntitiesInPackage() {
+    assertThat(allEntitiesIn(PACKAGE).classes(), containsInAnyOrder(Invoice.class, Ledger.class));
+  }
+
+  @Test
+  void shouldDiscoverEntitiesUnderClassPathRoot() throws URISyntaxException {
+    Path root =
+        Paths.get(Invoice.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    assertThat(
+        allEntitiesIn(root).classes().stream()
+            .filter(type -> type.getPackage().getName().equals(PACKAGE))
+            .collect(Collectors.toList()),
+        containsInAnyOrder(Invoice.class, Ledger.class));
+  }
+
+  @Test
+  void shouldDiscoverClassesWithOtherAnnotations() {
+    assertThat(
+        allEntitiesIn(PACKAGE).annotatedWith(Entity.class, Deprecated.class).classes(),
+        containsInAnyOrder(Invoice.class, Ledger.class));
+  }
+
+  @Test
+  void shouldVerifyEveryEntity() {
+    VerificationReport report =
+        allEntitiesIn(PACKAGE)
+            .withParallelism(2)
+            .verify(hasEntityAnnotation(), hasGeneratedValueAnnotation("id"));
+    assertThat(report.isSuccessful(), is(false));
+    assertThat(report.getResults().size(), is(2));
+    assertThat(
+        report.getFailures().stream().map(ClassVerification::getType).collect(Collectors.toList()),
+        contains(Ledger.class));
+    assertThat(report.getFailures().get(0).getFailures().size(), is(1));
+    assertThat(report.toString(), containsString("2 classes verified"));
+  }
+
+  @Test
+  void shouldPassVerification() {
+    allEntitiesIn(PACKAGE).verify(hasEntityAnnotation()).assertSuccessful();
+  }
+
+  @Test
+  void shouldFailAssertion() {
+    VerificationReport report = allEntitiesIn(PACKAGE).verify(hasTableAnnotation());
+    AssertionError error = assertThrows(AssertionError.class, report::assertSuccessful);
+    assertThat(error.getMessage(), containsString(Ledger.class.getName()));
+  }
+
+  @Test
+  void shouldNotInitialiseScannedClasses() {
+    assertThat(allEntitiesIn(PACKAGE).classes(), hasItem(Ledger.class));
+  }
+
+  @Test
+  void shouldIgnoreClassesWithoutAnnotation() {
+    assertThat(allEntitiesIn(PACKAGE).classes(), not(hasItem(Money.class)));
+  }
+
+  @Test
+  void shouldReportAnnotatedClassesThatFailToLoad(@TempDir Path directory) throws Exception {
+    Path sources = Files.createDirectories(directory.resolve("src/shop"));
+    Path classes = Files.createDirectories(directory.resolve("classes"));
+    Path base = write(sources.resolve("Base.java"), "public class Base {}");
+    Path broken =
+        write(
+            sources.resolve("Broken.java"),
+            "@javax.persistence.Entity public class Broken extends Base {}");
+    Path plain = write(sources.resolve("Plain.java"), "public class Plain extends Base {}");
+    int status =
+        ToolProvider.getSystemJavaCompiler()
+            .run(
+                null,
+                null,
+                null,
+                "-proc:none",
+                "-classpath",
+                Paths.get(Entity.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .toString(),
+                "-d",
+                classes.toString(),
+                base.toString(),
+                broken.toString(),
+                plain.toString());
+    assertThat(status, is(0));
+    Files.delete(classes.resolve("shop/Base.class"));
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+      EntityScan scan = allEntitiesIn(classes).using(loader);
+      assertThat(scan.classes().isEmpty(), is(true));
+      VerificationReport report = scan.verify(hasEntityAnnotation());
+      assertThat(report.isSuccessful(), is(false));
+      assertThat(
+          report.getResults().stream().map(ClassVerification::getName).collect(Collectors.toList()),
+          contains("shop.Broken"));
+      assertThat(report.getFailures().get(0).getType(), is(nullValue()));
+      assertThat(
+          report.getFailures().get(0).getFailures().get(0),
+          containsString("could not be loaded: java.lang.NoClassDefFoundError: shop/Base"));
+    }
+  }
+
+  private static Path write(Path file, String source) throws Exception {
+    return Files.write(file, ("package shop;\n" + source + "\n").getBytes(UTF_8));
+  }
+}
@@ -0,0 +1,97 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.allEntitiesIn;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasGeneratedValueAnnotation;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.jpa.scan.Invoice;
+import iterator.test.matchers.jpa.scan.Ledger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hamcrest.CustomMatcher;
+import org.hamcrest.Matcher;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+class EntityTestsTest {
+
+  private static final String PACKAGE = "iterator.test.matchers.jpa.scan";
+
+  @TestFactory
+  Stream<DynamicContainer> everyEntityIsAnEntity() {
+    return EntityTests.of(allEntitiesIn(PACKAGE), hasEntityAnnotation());
+  }
+
+  @Test
+  void shouldGenerateOneTestPerClassAndRule() {
+    List<DynamicContainer> containers =
+        EntityTests.of(
+                allEntitiesIn(PACKAGE).withParallelism(2),
+                hasEntityAnnotation(),
+                hasGeneratedValueAnnotation("id"))
+            .collect(Collectors.toList());
+    assertThat(
+        containers.stream().map(DynamicNode::getDisplayName).collect(Collectors.toList()),
+        is(Arrays.asList(Invoice.class.getName(), Ledger.class.getName())));
+    assertThat(
+        containers.get(0).getTestSourceUri().get().toString(),
+        is("class:" + Invoice.class.getName()));
+    for (DynamicContainer container : containers) {
+      List<DynamicTest> tests =
+          container.getChildren().map(DynamicTest.class::cast).collect(Collectors.toList());
+      assertThat(tests.size(), is(2));
+      assertThat(tests.get(0).getDisplayName(), startsWith("class annotated with @"));
+    }
+  }
+
+  @Test
+  void shouldFailTestsWithTheMismatch() throws Throwable {
+    List<DynamicTest> tests =
+        EntityTests.of(allEntitiesIn(PACKAGE), hasGeneratedValueAnnotation("id"))
+            .flatMap(DynamicContainer::getChildren)
+            .map(DynamicTest.class::cast)
+            .collect(Collectors.toList());
+    tests.get(0).getExecutable().execute();
+    AssertionError error =
+        assertThrows(AssertionError.class, () -> tests.get(1).getExecutable().execute());
+    assertThat(error.getMessage(), startsWith("Expected: "));
+  }
+
+  @Test
+  void shouldFailOnlyThePairWhoseRuleThrows() throws Throwable {
+    Matcher<Class<?>> throwing =
+        new CustomMatcher<Class<?>>("a rule that throws for ledgers") {
+          @Override
+          public boolean matches(Object item) {
+            if (item == Ledger.class) {
+              throw new IllegalStateException("boom");
+            }
+            return true;
+          }
+        };
+    List<DynamicTest> tests =
+        EntityTests.of(allEntitiesIn(PACKAGE), hasEntityAnnotation(), throwing)
+            .flatMap(DynamicContainer::getChildren)
+            .map(DynamicTest.class::cast)
+            .collect(Collectors.toList());
+    assertThat(tests.size(), is(4));
+    tests.get(0).getExecutable().execute();
+    tests.get(1).getExecutable().execute();
+    tests.get(2).getExecutable().execute();
+    AssertionError error =
+        assertThrows(AssertionError.class, () -> tests.get(3).getExecutable().execute());
+    assertThat(error.getMessage(), containsString("threw java.lang.IllegalStateException: boom"));
+    assertThat(error.getCause(), instanceOf(IllegalStateException.class));
+  }
+}
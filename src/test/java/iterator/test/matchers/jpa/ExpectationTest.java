@@ -0,0 +1,174 @@
+package iterator.test.matchers.jpa;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import javax.persistence.Column;
+import javax.persistence.ConstraintMode;
+import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+@Table(
+    name = "foo",
+    indexes = {@Index(columnList = "bar"), @Index(columnList = "baz", unique = true)})
+@EntityListeners({String.class, Integer.class})
+@ExpectationTest.Numeric(l = 1L << 40, s = 7, b = -3, c = 'x', f = Float.NaN, d = 0.5)
+class ExpectationTest {
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface Numeric {
+    long l();
+
+    short s();
+
+    byte b();
+
+    char c();
+
+    float f();
+
+    double d();
+  }
+
+  @Column(name = "foo", length = 512, nullable = false)
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "bar", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+  private String field;
+
+  @Test
+  void shouldCompareIntAndBooleanAttributes() throws Exception {
+    Column column = ExpectationTest.class.getDeclaredField("field").getAnnotation(Column.class);
+    AnnotationMap<Column> expected = AnnotationMap.from(Column.class).set("name", "foo");
+    assertThat(
+        Expectation.of(expected.set("length", 512).set("nullable", false)).matches(column),
+        is(true));
+    assertThat(Expectation.of(expected.set("length", 255)).matches(column), is(false));
+    assertThat(
+        Expectation.of(expected.set("length", 512).set("nullable", true)).matches(column),
+        is(false));
+  }
+
+  @Test
+  void shouldCompareOtherPrimitiveAttributes() {
+    Numeric numeric = ExpectationTest.class.getAnnotation(Numeric.class);
+    AnnotationMap<Numeric> expected =
+        AnnotationMap.from(Numeric.class)
+            .set("l", 1L << 40)
+            .set("s", (short) 7)
+            .set("b", (byte) -3)
+            .set("c", 'x')
+            .set("f", Float.NaN)
+            .set("d", 0.5);
+    assertThat(Expectation.of(expected).matches(numeric), is(true));
+    assertThat(Expectation.of(expected.set("l", 1L)).matches(numeric), is(false));
+    assertThat(Expectation.of(expected.set("s", (short) 8)).matches(numeric), is(false));
+    assertThat(Expectation.of(expected.set("b", (byte) 3)).matches(numeric), is(false));
+    assertThat(Expectation.of(expected.set("c", 'y')).matches(numeric), is(false));
+    assertThat(Expectation.of(expected.set("f", 0f)).matches(numeric), is(false));
+    assertThat(Expectation.of(expected.set("d", -0.5)).matches(numeric), is(false));
+  }
+
+  @Test
+  void shouldCompareEnumAttributes() throws Exception {
+    ManyToOne manyToOne =
+        ExpectationTest.class.getDeclaredField("field").getAnnotation(ManyToOne.class);
+    assertThat(
+        Expectation.of(AnnotationMap.from(ManyToOne.class).set("fetch", FetchType.LAZY))
+            .matches(manyToOne),
+        is(true));
+    assertThat(
+        Expectation.of(AnnotationMap.from(ManyToOne.class).set("fetch", FetchType.EAGER))
+            .matches(manyToOne),
+        is(false));
+  }
+
+  @Test
+  void shouldCompareClassArrayAttributes() {
+    EntityListeners listeners = ExpectationTest.class.getAnnotation(EntityListeners.class);
+    AnnotationMap<EntityListeners> expected = AnnotationMap.from(EntityListeners.class);
+    assertThat(
+        Expectation.of(expected.set("value", new Class<?>[] {String.class, Integer.class}))
+            .matches(listeners),
+        is(true));
+    assertThat(
+        Expectation.of(expected.set("value", new Class<?>[] {Integer.class, String.class}))
+            .matches(listeners),
+        is(false));
+  }
+
+  @Test
+  void shouldCompareNestedAnnotationAttributes() throws Exception {
+    JoinColumn joinColumn =
+        ExpectationTest.class.getDeclaredField("field").getAnnotation(JoinColumn.class);
+    AnnotationMap<JoinColumn> expected = AnnotationMap.from(JoinColumn.class).set("name", "bar");
+    assertThat(
+        Expectation.of(
+                expected.set(
+                    "foreignKey",
+                    AnnotationMap.from(ForeignKey.class)
+                        .set("value", ConstraintMode.NO_CONSTRAINT)))
+            .matches(joinColumn),
+        is(true));
+    assertThat(
+        Expectation.of(
+                expected.set(
+                    "foreignKey",
+                    AnnotationMap.from(ForeignKey.class).set("value", ConstraintMode.CONSTRAINT)))
+            .matches(joinColumn),
+        is(false));
+  }
+
+  @Test
+  void shouldCompareNestedAnnotationArrayAttributes() {
+    Table table = ExpectationTest.class.getAnnotation(Table.class);
+    AnnotationMap<Table> expected = AnnotationMap.from(Table.class).set("name", "foo");
+    assertThat(
+        Expectation.of(
+                expected.set(
+                    "indexes",
+                    new Object[] {
+                      AnnotationMap.from(Index.class).set("columnList", "bar"),
+                      AnnotationMap.from(Index.class).set("columnList", "baz").set("unique", true)
+                    }))
+            .matches(table),
+        is(true));
+    assertThat(
+        Expectation.of(
+                expected.set(
+                    "indexes",
+                    new Object[] {AnnotationMap.from(Index.class).set("columnList", "bar")}))
+            .matches(table),
+        is(false));
+  }
+
+  @Test
+  void shouldDescribeMismatchedAttributes() throws Exception {
+    Column column = ExpectationTest.class.getDeclaredField("field").getAnnotation(Column.class);
+    StringDescription description = new StringDescription();
+    Expectation.of(
+            AnnotationMap.from(Column.class)
+                .set("name", "bar")
+                .set("length", 512)
+                .set("nullable", false))
+        .describeMismatch(column, description);
+    assertThat(description.toString(), is("name was \"foo\""));
+  }
+
+  @Test
+  void shouldRejectUnknownAttributes() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Expectation.of(AnnotationMap.from(Column.class).set("colour", "red")));
+  }
+}
@@ -0,0 +1,122 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasIndexedForeignKeys;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinColumns;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapsId;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class ForeignKeyIndexMatcherTest {
+
+  @Entity
+  private static class Customer {
+
+    @Id
+    @Column(name = "customer_no")
+    private Long id;
+  }
+
+  @Entity
+  private static class Region {
+
+    @Id private String code;
+
+    @Id private String country;
+  }
+
+  @Entity
+  @Table(
+      indexes = {@Index(columnList = "customer_customer_no DESC"), @Index(columnList = "note, x")},
+      uniqueConstraints = @UniqueConstraint(columnNames = {"REGION_CODE", "region_country"}))
+  private static class Indexed {
+
+    @Id private Long id;
+
+    @ManyToOne private Customer customer;
+
+    @ManyToOne
+    @JoinColumns({
+      @JoinColumn(name = "region_country", referencedColumnName = "country"),
+      @JoinColumn(name = "region_code", referencedColumnName = "code")
+    })
+    private Region region;
+
+    @OneToOne
+    @JoinColumn(name = "\"Note\"", unique = true)
+    private Customer note;
+
+    @OneToOne @MapsId private Customer owner;
+
+    @ManyToMany
+    @JoinTable(
+        name = "indexed_tags",
+        indexes = {
+          @Index(columnList = "indexed_id,tags_customer_no"),
+          @Index(columnList = "tags_customer_no")
+        })
+    private Set<Customer> tags;
+  }
+
+  @Entity
+  @Table(indexes = @Index(columnList = "id, customer_customer_no"))
+  private static class Unindexed {
+
+    @Id private Long id;
+
+    @ManyToOne private Customer customer;
+
+    @ManyToOne private Region region;
+
+    @OneToMany
+    @JoinColumn(name = "unindexed_id")
+    private List<Customer> customers;
+
+    @ManyToMany
+    @JoinTable(indexes = @Index(columnList = "Unindexed_id"))
+    private Set<Customer> tags;
+  }
+
+  @Test
+  void shouldAcceptForeignKeysLeadingAnIndex() {
+    assertThat(Indexed.class, hasIndexedForeignKeys());
+  }
+
+  @Test
+  void shouldIgnoreEntitiesWithoutAssociations() {
+    assertThat(Customer.class, hasIndexedForeignKeys());
+  }
+
+  @Test
+  void shouldReportUnindexedForeignKeys() {
+    assertThat(hasIndexedForeignKeys().matches(Unindexed.class), is(false));
+    StringDescription description = new StringDescription();
+    hasIndexedForeignKeys().describeMismatch(Unindexed.class, description);
+    assertThat(
+        description.toString(),
+        is(
+            "<"
+                + Unindexed.class
+                + "> has unindexed foreign keys:"
+                + "\n  Unindexed.customer: customer_customer_no"
+                + "\n  Unindexed.region: cannot determine the referenced primary key column"
+                + "\n  Unindexed.customers: Customer unindexed_id"
+                + "\n  Unindexed.tags: join table Unindexed_Customer tags_customer_no"));
+  }
+}
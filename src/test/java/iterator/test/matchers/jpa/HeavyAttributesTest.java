@@ -0,0 +1,99 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasNoEagerColumnsWiderThan;
+import static iterator.test.matchers.jpa.JpaMatchers.hasNoEagerLobs;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Lob;
+import javax.persistence.Transient;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class HeavyAttributesTest {
+
+  @Entity
+  private static class Document {
+
+    private static final String CONSTANT = "x";
+
+    @Lob private String body;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    private byte[] attachment;
+
+    @Column(length = 4000)
+    private String summary;
+
+    @Column(length = 4000)
+    @Basic(fetch = FetchType.LAZY)
+    private char[] notes;
+
+    @Column(length = 4000)
+    private Integer count;
+
+    @Transient
+    @Column(length = 4000)
+    private String preview;
+
+    private String title;
+  }
+
+  @Entity
+  private static class Light {
+
+    private String name;
+  }
+
+  @Test
+  void shouldSummariseHeavyAttributes() {
+    assertThat(
+        HeavyAttributes.of(Document.class, 1000).toString(),
+        is(
+            "Document: body (@Lob, eager), attachment (@Lob, lazy), summary (length 4000, eager),"
+                + " notes (length 4000, lazy)"));
+    assertThat(HeavyAttributes.of(Document.class, 1000).getEagerAttributes().size(), is(2));
+    assertThat(HeavyAttributes.of(Light.class, 1000).toString(), is("Light: none"));
+  }
+
+  @Test
+  void shouldSummarisePersistenceUnit() {
+    assertThat(
+        HeavyAttributes.summarise(Arrays.asList(Light.class, Document.class), 200),
+        is(
+            "Light: name (length 255, eager)"
+                + "\nDocument: body (@Lob, eager), attachment (@Lob, lazy),"
+                + " summary (length 4000, eager), notes (length 4000, lazy),"
+                + " title (length 255, eager)"));
+    assertThat(
+        HeavyAttributes.summarise(Arrays.asList(Light.class, Document.class), 255),
+        is(HeavyAttributes.of(Document.class, 255).toString()));
+  }
+
+  @Test
+  void shouldMatchEagerLobs() {
+    assertThat(Light.class, hasNoEagerLobs());
+    assertThat(Document.class, not(hasNoEagerLobs()));
+    StringDescription description = new StringDescription();
+    hasNoEagerLobs().describeMismatch(Document.class, description);
+    assertThat(
+        description.toString(), is("<" + Document.class + "> eagerly fetches body (@Lob, eager)"));
+  }
+
+  @Test
+  void shouldMatchEagerWideColumns() {
+    assertThat(Document.class, hasNoEagerColumnsWiderThan(4000));
+    assertThat(Document.class, not(hasNoEagerColumnsWiderThan(3999)));
+    assertThat(Light.class, hasNoEagerColumnsWiderThan(255));
+    assertThat(Light.class, not(hasNoEagerColumnsWiderThan(254)));
+    assertThrows(IllegalArgumentException.class, () -> hasNoEagerColumnsWiderThan(-1));
+  }
+}
@@ -0,0 +1,172 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasBatchInsertFriendlyIdGeneration;
+import static iterator.test.matchers.jpa.JpaMatchers.hasIdAllocationSizeAtLeast;
+import static iterator.test.matchers.jpa.JpaMatchers.hasIdGeneration;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.jpa.IdGeneration.Strategy;
+import javax.persistence.Embeddable;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.TableGenerator;
+import javax.persistence.TableGenerators;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class IdGenerationTest {
+
+  @MappedSuperclass
+  @SequenceGenerator(name = "pooled", sequenceName = "pooled_seq", allocationSize = 100)
+  private static class Pooled {
+
+    @Id
+    @GeneratedValue(generator = "pooled")
+    private Long id;
+  }
+
+  @Entity
+  private static class Inherited extends Pooled {}
+
+  @Entity
+  private static class Identity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+  }
+
+  @Entity
+  private static class Auto {
+
+    @Id @GeneratedValue private Long id;
+  }
+
+  @Entity
+  private static class SingleRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "single")
+    @SequenceGenerator(name = "single", allocationSize = 1)
+    private Long id;
+  }
+
+  @Entity
+  @TableGenerators({
+    @TableGenerator(name = "other"),
+    @TableGenerator(name = "tabled", allocationSize = 20)
+  })
+  private static class Tabled {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tabled")
+    private Long id;
+  }
+
+  @Entity
+  private static class DefaultSequence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+  }
+
+  @Entity
+  private static class DefaultTable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "undeclared")
+    private Long id;
+  }
+
+  @Embeddable
+  private static class Key {}
+
+  @Entity
+  private static class Composite {
+
+    @EmbeddedId private Key key;
+  }
+
+  @Entity
+  private static class Assigned {
+
+    @Id private String code;
+  }
+
+  @Entity
+  private static class Unidentified {}
+
+  @Test
+  void shouldResolveGeneratorsFromMappedSuperclasses() {
+    IdGeneration generation = IdGeneration.of(Inherited.class);
+    assertThat(generation.getStrategy(), is(Strategy.SEQUENCE));
+    assertThat(generation.getGenerator(), is("pooled"));
+    assertThat(generation.getAllocationSize(), is(100));
+    assertThat(generation.toString(), is("SEQUENCE(pooled, allocationSize=100) on id"));
+  }
+
+  @Test
+  void shouldClassifyIdGeneration() {
+    assertThat(IdGeneration.of(Identity.class).getStrategy(), is(Strategy.IDENTITY));
+    assertThat(IdGeneration.of(Auto.class).getStrategy(), is(Strategy.AUTO));
+    assertThat(IdGeneration.of(SingleRow.class).getAllocationSize(), is(1));
+    assertThat(IdGeneration.of(Tabled.class).getStrategy(), is(Strategy.TABLE));
+    assertThat(IdGeneration.of(Tabled.class).getAllocationSize(), is(20));
+    assertThat(IdGeneration.of(DefaultSequence.class).getAllocationSize(), is(50));
+    assertThat(
+        IdGeneration.of(DefaultSequence.class).toString(), is("SEQUENCE(allocationSize=50) on id"));
+    assertThat(IdGeneration.of(DefaultTable.class).getAllocationSize(), is(50));
+    assertThat(IdGeneration.of(Composite.class).getStrategy(), is(Strategy.ASSIGNED));
+    assertThat(IdGeneration.of(Assigned.class).getStrategy(), is(Strategy.ASSIGNED));
+    assertThat(IdGeneration.of(Unidentified.class), nullValue());
+  }
+
+  @Test
+  void shouldMatchBatchInsertFriendlyIdGeneration() {
+    assertThat(Inherited.class, hasBatchInsertFriendlyIdGeneration());
+    assertThat(Assigned.class, hasBatchInsertFriendlyIdGeneration());
+    assertThat(Identity.class, not(hasBatchInsertFriendlyIdGeneration()));
+    assertThat(Auto.class, not(hasBatchInsertFriendlyIdGeneration()));
+    assertThat(Unidentified.class, not(hasBatchInsertFriendlyIdGeneration()));
+  }
+
+  @Test
+  void shouldMatchMinimumAllocationSize() {
+    assertThat(Inherited.class, hasIdAllocationSizeAtLeast(50));
+    assertThat(Tabled.class, hasIdAllocationSizeAtLeast(20));
+    assertThat(Assigned.class, hasIdAllocationSizeAtLeast(50));
+    assertThat(SingleRow.class, not(hasIdAllocationSizeAtLeast(2)));
+    assertThat(DefaultSequence.class, hasIdAllocationSizeAtLeast(50));
+    assertThat(DefaultTable.class, not(hasIdAllocationSizeAtLeast(51)));
+    assertThat(Identity.class, not(hasIdAllocationSizeAtLeast(1)));
+    assertThrows(IllegalArgumentException.class, () -> hasIdAllocationSizeAtLeast(0));
+  }
+
+  @Test
+  void shouldMatchStrategy() {
+    assertThat(Identity.class, hasIdGeneration(Strategy.IDENTITY));
+    assertThat(Inherited.class, not(hasIdGeneration(Strategy.IDENTITY)));
+  }
+
+  @Test
+  void shouldDescribeMismatch() {
+    StringDescription description = new StringDescription();
+    hasIdAllocationSizeAtLeast(2).describeMismatch(SingleRow.class, description);
+    assertThat(
+        description.toString(),
+        is(
+            "<"
+                + SingleRow.class
+                + "> generates ids with SEQUENCE(single, allocationSize=1) on id"));
+  }
+}
@@ -0,0 +1,209 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasNoSchemaAffectingChangesSince;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.Entity;
+import javax.tools.ToolProvider;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappingDiffTest {
+
+  private static final String ORDER =
+      "package shop;\n"
+          + "import javax.persistence.*;\n"
+          + "@Entity @Table(name = \"orders\")\n"
+          + "@NamedQuery(name = \"Order.all\", query = \"%s\")\n"
+          + "public class Order {\n"
+          + "  @Id Long id;\n"
+          + "  @Column(length = %d) String number;\n"
+          + "  @OneToMany(%s) java.util.List<Line> lines;\n"
+          + "}\n";
+
+  private static final String LINE =
+      "package shop;\n"
+          + "import javax.persistence.*;\n"
+          + "@Entity public class Line extends Base {\n"
+          + "  %s\n"
+          + "}\n";
+
+  private static final String BASE =
+      "package shop;\n"
+          + "import javax.persistence.*;\n"
+          + "@MappedSuperclass public class Base {\n"
+          + "  @Id @GeneratedValue(strategy = GenerationType.SEQUENCE) Long id;\n"
+          + "  @Version int version;\n"
+          + "}\n";
+
+  @TempDir Path directory;
+
+  @Test
+  void shouldRenderClassFilesAsReflectionDoes() throws Exception {
+    Path classes = compile("classes", "SELECT o FROM Order o", 20, "", "");
+    Path empty = Files.createDirectories(directory.resolve("empty"));
+    List<String> fromClassFiles =
+        MappingDiff.between(empty, classes).getChanges().stream()
+            .map(MappingChange::getAfter)
+            .filter(
+                entry ->
+                    !entry.contains("\tfield(") && !entry.contains("\t@javax.persistence.Basic("))
+            .collect(Collectors.toList());
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader())) {
+      List<String> fromReflection =
+          MappingSnapshot.of(
+                  Arrays.asList(
+                      loader.loadClass("shop.Order"),
+                      loader.loadClass("shop.Line"),
+                      loader.loadClass("shop.Base")))
+              .getEntries();
+      assertThat(fromClassFiles, is(fromReflection));
+    }
+  }
+
+  @Test
+  void shouldClassifySchemaAffectingChanges() throws Exception {
+    Path baseline = compile("baseline", "SELECT o FROM Order o", 20, "", "");
+    Path current =
+        compile(
+            "current",
+            "SELECT o FROM Order o ORDER BY o.number",
+            40,
+            "fetch = FetchType.EAGER, cascade = CascadeType.ALL",
+            "@Column(nullable = false) int quantity;");
+    MappingDiff diff = MappingDiff.between(baseline, current);
+    assertThat(
+        diff.getChanges().stream()
+            .map(
+                change ->
+                    change.getKind() + " " + change.getKey() + " " + change.isSchemaAffecting())
+            .collect(Collectors.toList()),
+        is(
+            Arrays.asList(
+                "ADDED shop.Line#quantity\t@javax.persistence.Basic true",
+                "ADDED shop.Line#quantity\t@javax.persistence.Column true",
+                "ADDED shop.Line#quantity\tfield true",
+                "CHANGED shop.Order\t@javax.persistence.NamedQuery false",
+                "CHANGED shop.Order#lines\t@javax.persistence.OneToMany false",
+                "CHANGED shop.Order#number\t@javax.persistence.Column true")));
+    assertThat(diff.hasSchemaAffectingChanges(), is(true));
+    assertThat(diff.getSchemaAffectingChanges().size(), is(4));
+  }
+
+  @Test
+  void shouldMatchWhenOnlyNonSchemaAttributesChange() throws Exception {
+    Path baseline = compile("baseline", "SELECT o FROM Order o", 20, "", "");
+    Path current =
+        compile(
+            "current", "SELECT o FROM Order o WHERE o.id > 0", 20, "fetch = FetchType.EAGER", "");
+    Path widened = compile("widened", "SELECT o FROM Order o", 30, "", "");
+    assertThat(current, hasNoSchemaAffectingChangesSince(baseline));
+    assertThat(baseline, hasNoSchemaAffectingChangesSince(baseline));
+    assertThat(widened, not(hasNoSchemaAffectingChangesSince(baseline)));
+    StringDescription description = new StringDescription();
+    hasNoSchemaAffectingChangesSince(baseline).describeMismatch(widened, description);
+    assertThat(
+        description.toString(),
+        is(
+            "1 schema affecting changes:"
+                + "\n  ~ shop.Order#number\t@javax.persistence.Column(columnDefinition=\"\","
+                + " insertable=true, length=20, name=\"\", nullable=true, precision=0, scale=0,"
+                + " table=\"\", unique=false, updatable=true)"
+                + "\n    -> shop.Order#number\t@javax.persistence.Column(columnDefinition=\"\","
+                + " insertable=true, length=30, name=\"\", nullable=true, precision=0, scale=0,"
+                + " table=\"\", unique=false, updatable=true)"));
+  }
+
+  @Test
+  void shouldTreatPlainAndRetypedFieldsAsSchemaAffecting() throws Exception {
+    Path baseline =
+        compile("baseline", "@Entity public class Person { @Id Long id; String name; }");
+    Path current =
+        compile(
+            "current",
+            "@Entity public class Person {"
+                + " @Id Long id; Integer name; String nickname; transient String cache; }");
+    MappingDiff diff = MappingDiff.between(baseline, current);
+    assertThat(
+        diff.getChanges().stream()
+            .map(
+                change ->
+                    change.getKind() + " " + change.getKey() + " " + change.isSchemaAffecting())
+            .collect(Collectors.toList()),
+        is(
+            Arrays.asList(
+                "ADDED shop.Person#cache\tfield false",
+                "CHANGED shop.Person#name\tfield true",
+                "ADDED shop.Person#nickname\t@javax.persistence.Basic true",
+                "ADDED shop.Person#nickname\tfield true")));
+    assertThat(
+        diff.getChanges().get(1).getAfter(),
+        is("shop.Person#name\tfield(type=java.lang.Integer, transient=false)"));
+    assertThat(current, not(hasNoSchemaAffectingChangesSince(baseline)));
+  }
+
+  @Test
+  void shouldNotReportAnExplicitBasicReplacingTheImpliedOne() throws Exception {
+    Path baseline =
+        compile("baseline", "@Entity public class Person { @Id Long id; String name; }");
+    Path current =
+        compile("current", "@Entity public class Person { @Id Long id; @Basic String name; }");
+    assertThat(MappingDiff.between(baseline, current).getChanges().isEmpty(), is(true));
+  }
+
+  private Path compile(String name, String person) throws Exception {
+    Path sources = Files.createDirectories(directory.resolve(name + "-src/shop"));
+    Path classes = Files.createDirectories(directory.resolve(name));
+    Path source =
+        write(
+            sources.resolve("Person.java"),
+            "package shop;\nimport javax.persistence.*;\n" + person + "\n");
+    assertThat(javac(classes, source), is(0));
+    return classes;
+  }
+
+  private Path compile(String name, String query, int length, String lines, String lineFields)
+      throws Exception {
+    Path sources = Files.createDirectories(directory.resolve(name + "-src/shop"));
+    Path classes = Files.createDirectories(directory.resolve(name));
+    Path order = write(sources.resolve("Order.java"), String.format(ORDER, query, length, lines));
+    Path line = write(sources.resolve("Line.java"), String.format(LINE, lineFields));
+    Path base = write(sources.resolve("Base.java"), BASE);
+    assertThat(javac(classes, order, line, base), is(0));
+    return classes;
+  }
+
+  private static int javac(Path classes, Path... sources) throws Exception {
+    List<String> arguments = new ArrayList<>();
+    arguments.add("-proc:none");
+    arguments.add("-classpath");
+    arguments.add(
+        Paths.get(Entity.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+            .toString());
+    arguments.add("-d");
+    arguments.add(classes.toString());
+    for (Path source : sources) {
+      arguments.add(source.toString());
+    }
+    return ToolProvider.getSystemJavaCompiler()
+        .run(null, null, null, arguments.toArray(new String[0]));
+  }
+
+  private static Path write(Path file, String source) throws Exception {
+    return Files.write(file, source.getBytes(UTF_8));
+  }
+}
@@ -0,0 +1,146 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.matchesMappingSnapshot;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+
+import iterator.test.matchers.jpa.scan.Invoice;
+import iterator.test.matchers.jpa.scan.Ledger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappingSnapshotTest {
+
+  private static final List<Class<?>> CLASSES = Arrays.asList(Ledger.class, Invoice.class);
+
+  private static class AuditListener {}
+
+  @MappedSuperclass
+  @EntityListeners(AuditListener.class)
+  private static class Audited {
+
+    @Column(name = "created_at")
+    private Long created;
+  }
+
+  @Entity
+  private static class Note extends Audited {
+
+    @Id private Long id;
+  }
+
+  @TempDir Path directory;
+
+  @Test
+  void shouldRenderSortedEntriesWithDefaults() {
+    List<String> entries = MappingSnapshot.of(CLASSES).getEntries();
+    assertThat(
+        entries.get(0), is(Invoice.class.getName() + "\t@javax.persistence.Entity(name=\"\")"));
+    assertThat(
+        entries,
+        hasItem(
+            Invoice.class.getName()
+                + "\t@javax.persistence.Table(catalog=\"\", indexes={}, name=\"invoices\","
+                + " schema=\"\", uniqueConstraints={})"));
+    assertThat(
+        entries,
+        hasItem(
+            Invoice.class.getName()
+                + "#id\t@javax.persistence.GeneratedValue(generator=\"\", strategy=AUTO)"));
+    assertThat(
+        entries.get(entries.size() - 1),
+        is(Ledger.class.getName() + "#id\t@javax.persistence.Id()"));
+  }
+
+  @Test
+  void shouldRecordInheritedFieldsAndTypeAnnotationsUnderTheClass() {
+    List<String> keys =
+        MappingSnapshot.of(Arrays.asList(Note.class)).getEntries().stream()
+            .map(MappingSnapshot::key)
+            .collect(Collectors.toList());
+    assertThat(
+        keys,
+        contains(
+            Note.class.getName() + "\t@javax.persistence.Entity",
+            Note.class.getName() + "\t@javax.persistence.EntityListeners",
+            Note.class.getName() + "#created\t@javax.persistence.Column",
+            Note.class.getName() + "#id\t@javax.persistence.Id"));
+  }
+
+  @Test
+  void shouldMatchSnapshot() {
+    Path snapshot = directory.resolve("mapping.snapshot");
+    MappingSnapshot.of(CLASSES).write(snapshot);
+    assertThat(CLASSES, matchesMappingSnapshot(snapshot));
+  }
+
+  @Test
+  void shouldReportOnlyChangedEntries() throws Exception {
+    Path snapshot = directory.resolve("mapping.snapshot");
+    MappingSnapshot.of(CLASSES).write(snapshot);
+    String content = new String(Files.readAllBytes(snapshot), UTF_8);
+    Files.write(
+        snapshot,
+        content
+            .replace("name=\"invoices\"", "name=\"bills\"")
+            .replace(Ledger.class.getName() + "#id\t@javax.persistence.Id()\n", "")
+            .getBytes(UTF_8));
+    List<MappingChange> changes = MappingSnapshot.of(CLASSES).diff(snapshot);
+    assertThat(changes.size(), is(2));
+    assertThat(changes.get(0).getKind(), is(MappingChange.Kind.CHANGED));
+    assertThat(changes.get(0).getKey(), is(Invoice.class.getName() + "\t@javax.persistence.Table"));
+    assertThat(changes.get(1).getKind(), is(MappingChange.Kind.ADDED));
+    StringDescription description = new StringDescription();
+    matchesMappingSnapshot(snapshot).describeMismatch(CLASSES, description);
+    assertThat(description.toString(), containsString("2 entries differ"));
+    assertThat(CLASSES, not(matchesMappingSnapshot(snapshot)));
+  }
+
+  @Test
+  void shouldReportRemovedEntries() {
+    Path snapshot = directory.resolve("mapping.snapshot");
+    MappingSnapshot.of(CLASSES).write(snapshot);
+    List<MappingChange> changes = MappingSnapshot.of(Arrays.asList(Invoice.class)).diff(snapshot);
+    assertThat(
+        changes.stream().allMatch(change -> change.getKind() == MappingChange.Kind.REMOVED),
+        is(true));
+    assertThat(changes.size(), is(2));
+  }
+
+  @Test
+  void shouldNotMatchMissingSnapshot() {
+    assertThat(CLASSES, not(matchesMappingSnapshot(directory.resolve("missing.snapshot"))));
+  }
+
+  @Test
+  void shouldRecordSnapshotWhenUpdating() throws Exception {
+    Path snapshot = directory.resolve("nested/mapping.snapshot");
+    System.setProperty(MappingSnapshotMatcher.UPDATE_PROPERTY, "true");
+    try {
+      assertThat(CLASSES, matchesMappingSnapshot(snapshot));
+    } finally {
+      System.clearProperty(MappingSnapshotMatcher.UPDATE_PROPERTY);
+    }
+    List<String> lines = Files.readAllLines(snapshot, UTF_8);
+    assertThat(lines.get(0), is(MappingSnapshot.HEADER));
+    assertThat(
+        lines.subList(1, lines.size()),
+        contains(MappingSnapshot.of(CLASSES).getEntries().toArray()));
+  }
+}
@@ -0,0 +1,98 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityListenersAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityMapping;
+import static iterator.test.matchers.jpa.JpaMatchers.hasManyToOneAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasTableAnnotation;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import org.hamcrest.Matcher;
+import org.junit.jupiter.api.Test;
+
+class MatcherAllocationTest {
+
+  private static final int WARM_UP = 20_000;
+
+  private static final int MEASURED = 100_000;
+
+  @Entity
+  @Table(
+      name = "foo",
+      indexes = {@Index(columnList = "bar"), @Index(columnList = "baz", unique = true)})
+  @EntityListeners({String.class, Integer.class})
+  private static class Foo {
+
+    @Column(name = "bar", length = 512)
+    private String bar;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Foo parent;
+  }
+
+  @Test
+  void shouldNotAllocateWhenMatching() {
+    com.sun.management.ThreadMXBean threads = threadMXBean();
+    List<Matcher<?>> matchers =
+        Arrays.asList(
+            hasColumnAnnotation(
+                "bar", AnnotationMap.from(Column.class).set("name", "bar").set("length", 512)),
+            hasManyToOneAnnotation(
+                "parent", AnnotationMap.from(ManyToOne.class).set("fetch", FetchType.LAZY)),
+            hasTableAnnotation(
+                AnnotationMap.from(Table.class)
+                    .set("name", "foo")
+                    .set(
+                        "indexes",
+                        new AnnotationMap<?>[] {
+                          AnnotationMap.from(Index.class).set("columnList", "bar"),
+                          AnnotationMap.from(Index.class)
+                              .set("columnList", "baz")
+                              .set("unique", true)
+                        })),
+            hasEntityListenersAnnotation(new Class<?>[] {String.class, Integer.class}),
+            hasEntityMapping()
+                .entity()
+                .field("parent", AnnotationMap.from(ManyToOne.class).set("fetch", FetchType.LAZY)));
+    assertThat(matchAll(matchers, WARM_UP), is(false));
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    boolean anyMismatch = matchAll(matchers, MEASURED);
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+    assertThat(anyMismatch, is(false));
+    assertThat(allocated / (double) (MEASURED * matchers.size()), lessThan(0.01));
+  }
+
+  private static boolean matchAll(List<Matcher<?>> matchers, int iterations) {
+    boolean anyMismatch = false;
+    for (int i = 0; i < iterations; i++) {
+      for (int j = 0; j < matchers.size(); j++) {
+        anyMismatch |= !matchers.get(j).matches(Foo.class);
+      }
+    }
+    return anyMismatch;
+  }
+
+  private static com.sun.management.ThreadMXBean threadMXBean() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(allocations.isThreadAllocatedMemorySupported());
+    allocations.setThreadAllocatedMemoryEnabled(true);
+    return allocations;
+  }
+}
@@ -0,0 +1,56 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityAnnotation;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MatcherEvaluationEventTest {
+
+  @Entity
+  private static class Foo {
+
+    @Column private String bar;
+  }
+
+  @Test
+  void shouldRecordEvaluations(@TempDir Path directory) throws Exception {
+    Path file = directory.resolve("matchers.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("iterator.jpa.MatcherEvaluation");
+      recording.start();
+      hasEntityAnnotation().matches(Foo.class);
+      hasColumnAnnotation("bar").matches(Foo.class);
+      recording.stop();
+      recording.dump(file);
+    }
+    assertThat(MatcherEvaluationEvent.isRecording(), is(false));
+    List<RecordedEvent> events =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(
+                event -> event.getEventType().getName().equals("iterator.jpa.MatcherEvaluation"))
+            .collect(Collectors.toList());
+    assertThat(events.size(), is(2));
+    RecordedEvent type = events.get(0);
+    assertThat(type.getString("annotationType"), is(Entity.class.getName()));
+    assertThat(type.getClass("targetClass").getName(), is(Foo.class.getName()));
+    assertThat(type.getString("fieldName"), nullValue());
+    assertThat(type.getBoolean("matched"), is(true));
+    RecordedEvent field = events.get(1);
+    assertThat(field.getString("annotationType"), is(Column.class.getName()));
+    assertThat(field.getString("fieldName"), is("bar"));
+    assertThat(field.getBoolean("metadataCached"), is(true));
+  }
+}
@@ -0,0 +1,85 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityMapping;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.util.List;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MatcherMetricsTest {
+
+  @Entity
+  private static class Foo {
+
+    @Column(name = "bar")
+    private String bar;
+  }
+
+  @AfterEach
+  void disable() {
+    MatcherMetrics.disable();
+  }
+
+  @Test
+  void shouldBeDisabledByDefault() {
+    assertThat(MatcherMetrics.active(), nullValue());
+  }
+
+  @Test
+  void shouldSummariseEvaluationsPerAnnotationType() {
+    MatcherMetrics metrics = MatcherMetrics.enable();
+    for (int i = 0; i < 10; i++) {
+      hasEntityAnnotation().matches(Foo.class);
+      hasColumnAnnotation("bar", AnnotationMap.from(Column.class).set("name", "baz"))
+          .matches(Foo.class);
+    }
+    hasEntityMapping().entity().field("bar").matches(Foo.class);
+    List<MatcherMetrics.Summary> summaries = metrics.getSummaries();
+    assertThat(summaries.size(), is(2));
+    MatcherMetrics.Summary entity = summary(summaries, Entity.class);
+    assertThat(entity.getCount(), is(11L));
+    assertThat(entity.getMismatches(), is(0L));
+    assertThat(summary(summaries, Column.class).getMismatches(), is(10L));
+    assertThat(entity.getPercentile(0.5), lessThanOrEqualTo(entity.getPercentile(0.99)));
+    assertThat(entity.getPercentile(0.99), lessThanOrEqualTo(entity.getMax()));
+    assertThat(entity.getTotal(), greaterThanOrEqualTo(entity.getMax()));
+    assertThat(metrics.toString(), containsString("@Entity: 11 evaluations, 0 mismatches"));
+  }
+
+  @Test
+  void shouldReset() {
+    MatcherMetrics metrics = MatcherMetrics.enable();
+    hasEntityAnnotation().matches(Foo.class);
+    metrics.reset();
+    assertThat(metrics.getSummaries(), is(empty()));
+  }
+
+  @Test
+  void shouldRejectInvalidPercentiles() {
+    MatcherMetrics metrics = MatcherMetrics.enable();
+    hasEntityAnnotation().matches(Foo.class);
+    MatcherMetrics.Summary summary = metrics.getSummaries().get(0);
+    assertThrows(IllegalArgumentException.class, () -> summary.getPercentile(1.5));
+  }
+
+  private static MatcherMetrics.Summary summary(
+      List<MatcherMetrics.Summary> summaries, Class<?> annotationType) {
+    return summaries.stream()
+        .filter(summary -> summary.getAnnotationType() == annotationType)
+        .findFirst()
+        .orElseThrow(AssertionError::new);
+  }
+}
@@ -0,0 +1,250 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasValidNamedQueries;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.OneToMany;
+import javax.persistence.QueryHint;
+import javax.persistence.Transient;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class NamedQueryMatcherTest {
+
+  enum Status {
+    OPEN,
+    CLOSED
+  }
+
+  @Entity(name = "PurchaseOrder")
+  @NamedQueries({
+    @NamedQuery(
+        name = "PurchaseOrder.byCustomer",
+        query =
+            "select o from PurchaseOrder o join fetch o.lines l"
+                + " where o.customer.name = :name and o.address.postcode like '%from x.y%'"),
+    @NamedQuery(
+        name = "PurchaseOrder.lines",
+        query = "SELECT l FROM PurchaseOrder AS o JOIN o.lines l WHERE SIZE(o.lines) > ?1"),
+    @NamedQuery(
+        name = "PurchaseOrder.graph",
+        query = "SELECT o FROM PurchaseOrder o LEFT OUTER JOIN o.lines l WHERE l.quantity > 1",
+        hints = @QueryHint(name = "javax.persistence.loadgraph", value = "order.lines")),
+    @NamedQuery(
+        name = "PurchaseOrder.summary",
+        query =
+            "SELECT NEW iterator.test.matchers.jpa.Summary(o.number, COUNT(l))"
+                + " FROM PurchaseOrder o, IN(o.lines) l"
+                + " WHERE o.status = iterator.test.matchers.jpa.NamedQueryMatcherTest.Status.OPEN"
+                + " AND TRIM(FROM o.number) <> ''"
+                + " AND EXISTS (SELECT c FROM Customer c WHERE c = o.customer)"
+                + " GROUP BY o.number"),
+    @NamedQuery(
+        name = "PurchaseOrder.close",
+        query = "UPDATE PurchaseOrder o SET o.status = :status WHERE o.number = :number")
+  })
+  private static class Order {
+
+    private String number;
+
+    private Status status;
+
+    @ManyToOne private Customer customer;
+
+    @OneToMany private List<Line> lines;
+
+    @Embedded private Address address;
+  }
+
+  @Entity
+  private static class Line {
+
+    private int quantity;
+
+    @ManyToOne private Product product;
+  }
+
+  @Entity
+  private static class SpecialLine extends Line {
+
+    private String note;
+  }
+
+  @Entity
+  private static class Customer {
+
+    private String name;
+  }
+
+  @Entity
+  private static class Product {
+
+    private String name;
+  }
+
+  @Embeddable
+  private static class Address {
+
+    private String postcode;
+  }
+
+  @Entity
+  @NamedQuery(name = "Audit.all", query = "SELECT a FROM Audit a ORDER BY a.createdAt")
+  private static class Audit {
+
+    private String createdAt;
+  }
+
+  @Entity
+  @NamedQueries({
+    @NamedQuery(name = "entity", query = "SELECT o FROM Order o"),
+    @NamedQuery(name = "variable", query = "SELECT o FROM Broken b WHERE x.number = 1"),
+    @NamedQuery(
+        name = "attribute",
+        query = "SELECT b FROM Broken b WHERE b.numbr = 1 OR b.cached = 2"),
+    @NamedQuery(name = "basic", query = "SELECT b FROM Broken b WHERE b.number.value = 1"),
+    @NamedQuery(
+        name = "collection",
+        query = "SELECT b FROM Broken b WHERE b.lines.product.name = 'x'"),
+    @NamedQuery(
+        name = "join",
+        query = "SELECT b FROM Broken b JOIN b.lines l WHERE l.quantity > 1"),
+    @NamedQuery(name = "alias", query = "SELECT b FROM Broken WHERE 1 = 1"),
+    @NamedQuery(name = "empty", query = " ")
+  })
+  private static class Broken {
+
+    private String number;
+
+    @Transient private String cached;
+
+    @OneToMany private List<Line> lines;
+
+    @ManyToOne private Audit audit;
+  }
+
+  @Test
+  void shouldResolveEntitiesAndPaths() {
+    assertThat(Order.class, hasValidNamedQueries());
+  }
+
+  @Test
+  void shouldResolveEntitiesGivenExplicitly() {
+    assertThat(hasValidNamedQueries().matches(Audit.class), is(true));
+    assertThat(hasValidNamedQueries(Order.class).matches(Audit.class), is(true));
+  }
+
+  @Test
+  void shouldReportUnresolvedQueries() {
+    assertThat(
+        mismatch(hasValidNamedQueries(), Broken.class),
+        is(
+            "<"
+                + Broken.class
+                + "> has invalid named queries:"
+                + "\n  query entity: unknown entity Order"
+                + "\n  query variable: unknown identification variable x in x.number"
+                + "\n  query attribute: b.numbr: numbr is not a persistent attribute of Broken"
+                + "\n  query attribute: b.cached: cached is not a persistent attribute of Broken"
+                + "\n  query basic: b.number.value: number is not an association or embeddable"
+                + "\n  query collection: b.lines.product.name navigates through the collection"
+                + " lines"
+                + "\n  query join: JOIN b.lines joins a collection without FETCH or a fetch or"
+                + " load graph hint"
+                + "\n  query alias: expected an identification variable after Broken"
+                + "\n  query empty: the query is empty"));
+  }
+
+  @Test
+  void shouldValidateManyQueriesQuickly() {
+    JpqlValidator validator =
+        new JpqlValidator(singletonMap("PurchaseOrder", Order.class), getClass().getClassLoader());
+    String query =
+        "SELECT o FROM PurchaseOrder o JOIN FETCH o.lines l"
+            + " WHERE o.customer.name = :name AND l.product.name LIKE :product"
+            + " ORDER BY o.number";
+    validator.validate("warm up", query, false);
+    long start = System.nanoTime();
+    for (int i = 0; i < 1000; i++) {
+      assertThat(validator.validate("query " + i, query, false).isEmpty(), is(true));
+    }
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000, is(true));
+  }
+
+  @Test
+  void shouldMatchVariablesCaseInsensitivelyAndResolveTreatJoins() {
+    Map<String, Class<?>> entities = new HashMap<>();
+    entities.put("PurchaseOrder", Order.class);
+    entities.put("SpecialLine", SpecialLine.class);
+    entities.put("Customer", Customer.class);
+    JpqlValidator validator = new JpqlValidator(entities, getClass().getClassLoader());
+    assertThat(
+        validator.validate("q", "SELECT O FROM PurchaseOrder o WHERE O.number = '1'", false),
+        is(empty()));
+    assertThat(
+        validator.validate(
+            "q",
+            "SELECT o FROM PurchaseOrder o JOIN FETCH TREAT(o.lines AS SpecialLine) s"
+                + " WHERE S.note = 'x'",
+            false),
+        is(empty()));
+    assertThat(
+        validator.validate(
+            "q", "SELECT o, S FROM PurchaseOrder o JOIN TREAT(o.lines AS SpecialLine) s", false),
+        is(empty()));
+    assertThat(
+        validator.validate(
+            "q",
+            "SELECT o FROM PurchaseOrder o JOIN TREAT(o.lines AS Customer) c"
+                + " LEFT JOIN FETCH TREAT(o.lines AS SpecialLine) s WHERE s.notes = 'x'",
+            false),
+        contains(
+            "q: TREAT(o.lines AS Customer): Customer is not a subtype of Line",
+            "q: JOIN TREAT(o.lines AS Customer) joins a collection without FETCH or a fetch or"
+                + " load graph hint",
+            "q: s.notes: notes is not a persistent attribute of SpecialLine"));
+  }
+
+  @Test
+  void shouldDeclareCollectionMembersOfCorrelatedSubqueries() {
+    JpqlValidator validator =
+        new JpqlValidator(singletonMap("PurchaseOrder", Order.class), getClass().getClassLoader());
+    assertThat(
+        validator.validate(
+            "q",
+            "SELECT o FROM PurchaseOrder o"
+                + " WHERE EXISTS (SELECT l FROM o.lines l WHERE l.quantity > 1)"
+                + " AND TRIM(FROM o.number) <> ''",
+            false),
+        is(empty()));
+    assertThat(
+        validator.validate(
+            "q",
+            "SELECT o FROM PurchaseOrder o"
+                + " WHERE EXISTS (SELECT l FROM o.lines AS l WHERE l.quantty > 1)",
+            false),
+        contains("q: l.quantty: quantty is not a persistent attribute of Line"));
+  }
+
+  private static String mismatch(Matcher<?> matcher, Class<?> type) {
+    assertThat(matcher.matches(type), is(false));
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(type, description);
+    return description.toString();
+  }
+}
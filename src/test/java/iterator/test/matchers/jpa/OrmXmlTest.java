@@ -0,0 +1,249 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasCacheableAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityMapping;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEnumeratedAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasGeneratedValueAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasJoinColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasLobAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasManyToOneAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasNoEagerLobs;
+import static iterator.test.matchers.jpa.JpaMatchers.hasTableAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.withOrmXml;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import javax.persistence.CascadeType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.Lob;
+import javax.persistence.ManyToOne;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrmXmlTest {
+
+  private static final String ORM_XML =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<entity-mappings xmlns=\"http://xmlns.jcp.org/xml/ns/persistence/orm\""
+          + " version=\"2.2\">\n"
+          + "  <package>iterator.test.matchers.jpa</package>\n"
+          + "  <mapped-superclass class=\"OrmXmlTest$Base\">\n"
+          + "    <attributes>\n"
+          + "      <version name=\"revision\"/>\n"
+          + "    </attributes>\n"
+          + "  </mapped-superclass>\n"
+          + "  <entity class=\"OrmXmlTest$Customer\" name=\"Client\" cacheable=\"true\">\n"
+          + "    <table name=\"clients\"/>\n"
+          + "    <attributes>\n"
+          + "      <basic name=\"name\">\n"
+          + "        <column name=\"full_name\" length=\"120\"/>\n"
+          + "      </basic>\n"
+          + "      <many-to-one name=\"region\" fetch=\"LAZY\""
+          + " target-entity=\"OrmXmlTest$Region\">\n"
+          + "        <join-column name=\"region_ref\"/>\n"
+          + "        <cascade><cascade-persist/><cascade-merge/></cascade>\n"
+          + "      </many-to-one>\n"
+          + "      <basic name=\"notes\" fetch=\"LAZY\"><lob/></basic>\n"
+          + "    </attributes>\n"
+          + "  </entity>\n"
+          + "  <entity class=\"OrmXmlTest$Legacy\" metadata-complete=\"true\">\n"
+          + "    <attributes>\n"
+          + "      <id name=\"id\"><generated-value strategy=\"SEQUENCE\"/></id>\n"
+          + "      <basic name=\"status\"><enumerated>STRING</enumerated></basic>\n"
+          + "    </attributes>\n"
+          + "  </entity>\n"
+          + "</entity-mappings>\n";
+
+  enum Status {
+    ACTIVE,
+    RETIRED
+  }
+
+  @MappedSuperclass
+  private static class Base {
+
+    private int revision;
+  }
+
+  @Entity
+  private static class Customer extends Base {
+
+    @Id private Long id;
+
+    @Column(length = 50)
+    private String name;
+
+    @Lob private String notes;
+
+    @ManyToOne private Region region;
+  }
+
+  @Entity
+  private static class Region {
+
+    @Id private Long id;
+  }
+
+  @Table(name = "ignored")
+  private static class Legacy {
+
+    private Long id;
+
+    @Column(length = 10)
+    private Status status;
+  }
+
+  @TempDir Path directory;
+
+  private Path ormXml;
+
+  @BeforeEach
+  void writeOrmXml() throws Exception {
+    ormXml = Files.write(directory.resolve("orm.xml"), ORM_XML.getBytes(UTF_8));
+  }
+
+  @Test
+  void shouldOverrideAnnotationsWithXml() {
+    assertThat(
+        Customer.class,
+        withOrmXml(
+            ormXml, hasEntityAnnotation(AnnotationMap.from(Entity.class).set("name", "Client"))));
+    assertThat(
+        Customer.class,
+        withOrmXml(
+            ormXml, hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "clients"))));
+    assertThat(Customer.class, not(hasTableAnnotation()));
+    assertThat(Customer.class, withOrmXml(ormXml, hasCacheableAnnotation()));
+    assertThat(
+        Customer.class,
+        withOrmXml(
+            ormXml,
+            hasColumnAnnotation(
+                "name",
+                AnnotationMap.from(Column.class).set("name", "full_name").set("length", 120))));
+    assertThat(
+        Customer.class,
+        withOrmXml(
+            ormXml,
+            hasManyToOneAnnotation(
+                "region",
+                AnnotationMap.from(ManyToOne.class)
+                    .set("fetch", FetchType.LAZY)
+                    .set("targetEntity", Region.class)
+                    .set("cascade", new CascadeType[] {CascadeType.PERSIST, CascadeType.MERGE}))));
+    assertThat(
+        Customer.class,
+        withOrmXml(
+            ormXml,
+            hasJoinColumnAnnotation(
+                "region", AnnotationMap.from(JoinColumn.class).set("name", "region_ref"))));
+    assertThat(Customer.class, withOrmXml(ormXml, hasLobAnnotation("notes")));
+  }
+
+  @Test
+  void shouldApplyMappedSuperclassMappingsToInheritedFields() {
+    EntityMetadata metadata = OrmXml.read(ormXml).effective(Customer.class);
+    assertThat(metadata.getFieldAnnotation("revision", Version.class), is(notNullValue()));
+    assertThat(
+        EntityMetadata.of(Customer.class).getFieldAnnotation("revision", Version.class),
+        is(nullValue()));
+  }
+
+  @Test
+  void shouldIgnoreAnnotationsOfMetadataCompleteClasses() {
+    assertThat(Legacy.class, withOrmXml(ormXml, hasEntityAnnotation()));
+    assertThat(Legacy.class, not(withOrmXml(ormXml, hasTableAnnotation())));
+    assertThat(
+        Legacy.class,
+        withOrmXml(
+            ormXml,
+            hasGeneratedValueAnnotation(
+                "id",
+                AnnotationMap.from(GeneratedValue.class)
+                    .set("strategy", GenerationType.SEQUENCE))));
+    assertThat(
+        Legacy.class, withOrmXml(ormXml, hasEnumeratedAnnotation("status", EnumType.STRING)));
+    assertThat(Legacy.class, not(withOrmXml(ormXml, hasColumnAnnotation("status"))));
+  }
+
+  @Test
+  void shouldEvaluateMappingSpecs() {
+    assertThat(
+        Customer.class,
+        withOrmXml(
+            ormXml,
+            hasEntityMapping()
+                .entity(AnnotationMap.from(Entity.class).set("name", "Client"))
+                .field(
+                    "name",
+                    AnnotationMap.from(Column.class).set("name", "full_name").set("length", 120))));
+  }
+
+  @Test
+  void shouldDescribeMismatchesAgainstTheEffectiveMapping() {
+    StringDescription description = new StringDescription();
+    withOrmXml(ormXml, hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "customers")))
+        .describeMismatch(Customer.class, description);
+    assertThat(description.toString().contains("clients"), is(true));
+  }
+
+  @Test
+  void shouldReadEachFileOnceUntilItChanges() throws Exception {
+    OrmXml first = OrmXml.read(ormXml);
+    assertThat(OrmXml.read(ormXml), is(sameInstance(first)));
+    assertThat(first.isMapped(Customer.class), is(true));
+    assertThat(first.getMappedClassNames().size(), is(3));
+    Files.write(ormXml, ORM_XML.replace("clients", "customers").getBytes(UTF_8));
+    Files.setLastModifiedTime(ormXml, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+    assertThat(OrmXml.read(ormXml), is(not(sameInstance(first))));
+  }
+
+  @Test
+  void shouldSkipTopLevelElementsThatMapNoClass() throws Exception {
+    Path withGenerator =
+        Files.write(
+            directory.resolve("generator-orm.xml"),
+            ORM_XML
+                .replace(
+                    "  <mapped-superclass",
+                    "  <sequence-generator name=\"customer_seq\" allocation-size=\"50\"/>\n"
+                        + "  <mapped-superclass")
+                .getBytes(UTF_8));
+    OrmXml mappings = OrmXml.read(withGenerator);
+    assertThat(mappings.getMappedClassNames().size(), is(3));
+    assertThat(
+        Customer.class,
+        withOrmXml(
+            withGenerator,
+            hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "clients"))));
+  }
+
+  @Test
+  void shouldOnlyAdaptAnnotationMatchers() {
+    assertThrows(IllegalArgumentException.class, () -> withOrmXml(ormXml, hasNoEagerLobs()));
+  }
+}
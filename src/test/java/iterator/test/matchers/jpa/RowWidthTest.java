@@ -0,0 +1,233 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasEstimatedRowWidthAtMost;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.AttributeOverride;
+import javax.persistence.Column;
+import javax.persistence.DiscriminatorColumn;
+import javax.persistence.DiscriminatorType;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.Lob;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class RowWidthTest {
+
+  enum Status {
+    OPEN,
+    CANCELLED
+  }
+
+  @Entity
+  @Table(name = "orders")
+  private static class Order {
+
+    @Id private long id;
+
+    @Column(length = 20)
+    private String number;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private Status priority;
+
+    @Temporal(TemporalType.DATE)
+    private Date placed;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal total;
+
+    @Lob private String notes;
+
+    @ManyToOne private Customer customer;
+
+    @OneToMany(mappedBy = "order")
+    private List<Line> lines;
+
+    @Embedded
+    @AttributeOverride(name = "postcode", column = @Column(name = "delivery_postcode"))
+    private Address address;
+
+    @Transient private String cached;
+  }
+
+  @Entity
+  private static class Customer {
+
+    @Id private int id;
+  }
+
+  @Entity
+  private static class Line {
+
+    @Id private long id;
+
+    @ManyToOne private Order order;
+  }
+
+  @Embeddable
+  private static class Address {
+
+    @Column(length = 8)
+    private String postcode;
+
+    private LocalDate since;
+  }
+
+  @Entity
+  @Inheritance
+  private static class Payment {
+
+    @Id private long id;
+
+    private boolean settled;
+  }
+
+  @Entity
+  private static class CardPayment extends Payment {
+
+    @Column(length = 4)
+    private String lastDigits;
+  }
+
+  @Entity
+  private static class CashPayment extends Payment {
+
+    private short till;
+  }
+
+  @Entity
+  @Inheritance(strategy = InheritanceType.JOINED)
+  @DiscriminatorColumn(name = "kind", discriminatorType = DiscriminatorType.CHAR)
+  private static class Account {
+
+    @Id private long id;
+
+    @Column(length = 100)
+    private String holder;
+  }
+
+  @Entity
+  private static class SavingsAccount extends Account {
+
+    private double rate;
+  }
+
+  @Test
+  void shouldEstimateColumnWidths() {
+    RowWidth row = RowWidth.of(Order.class);
+    assertThat(row.getTable(), is("orders"));
+    assertThat(
+        row.getColumns().stream().map(RowWidth.Column::toString).collect(Collectors.toList()),
+        is(
+            Arrays.asList(
+                "id (8 bytes)",
+                "number (up to 22 bytes)",
+                "status (up to 11 bytes)",
+                "priority (4 bytes)",
+                "placed (4 bytes)",
+                "total (6 bytes)",
+                "notes (16 bytes)",
+                "customer_id (4 bytes)",
+                "delivery_postcode (up to 10 bytes)",
+                "since (4 bytes)")));
+    assertThat(row.getFixedBytes(), is(46));
+    assertThat(row.getVariableBytes(), is(43));
+    assertThat(row.toString(), is("orders: 10 columns, 46 fixed + 43 variable = 89 bytes"));
+  }
+
+  @Test
+  void shouldMergeSingleTableHierarchies() {
+    assertThat(columns(RowWidth.of(CardPayment.class)), is("DTYPE, lastDigits, id, settled"));
+    assertThat(RowWidth.of(CardPayment.class).getTable(), is("Payment"));
+    List<RowWidth> tables =
+        RowWidth.tables(Arrays.asList(Payment.class, CardPayment.class, CashPayment.class));
+    assertThat(tables.size(), is(1));
+    assertThat(columns(tables.get(0)), is("DTYPE, id, settled, lastDigits, till"));
+  }
+
+  @Test
+  void shouldMatchRowWidthOfSingleTableHierarchies() {
+    List<Class<?>> hierarchy = Arrays.asList(Payment.class, CardPayment.class, CashPayment.class);
+    RowWidth root = RowWidth.of(Payment.class);
+    RowWidth merged = RowWidth.of(Payment.class, hierarchy);
+    assertThat(columns(merged), is("DTYPE, id, settled, lastDigits, till"));
+    assertThat(merged.getMaxBytes() > root.getMaxBytes(), is(true));
+    assertThat(Payment.class, hasEstimatedRowWidthAtMost(root.getMaxBytes()));
+    assertThat(Payment.class, not(hasEstimatedRowWidthAtMost(root.getMaxBytes(), hierarchy)));
+    assertThat(Payment.class, hasEstimatedRowWidthAtMost(merged.getMaxBytes(), hierarchy));
+    assertThat(
+        columns(RowWidth.of(Account.class, Arrays.asList(SavingsAccount.class))),
+        is("kind, id, holder"));
+  }
+
+  @Test
+  void shouldSplitJoinedHierarchies() {
+    assertThat(columns(RowWidth.of(Account.class)), is("kind, id, holder"));
+    assertThat(columns(RowWidth.of(SavingsAccount.class)), is("rate, id"));
+    assertThat(
+        RowWidth.report(Arrays.asList(SavingsAccount.class, Account.class, String.class)),
+        is(
+            "Account: 3 columns, 9 fixed + 102 variable = 111 bytes"
+                + "\nSavingsAccount: 2 columns, 16 fixed + 0 variable = 16 bytes"));
+  }
+
+  @Test
+  void shouldMatchRowWidth() {
+    assertThat(Order.class, hasEstimatedRowWidthAtMost(89));
+    assertThat(Order.class, not(hasEstimatedRowWidthAtMost(88)));
+  }
+
+  @Test
+  void shouldDescribeWidestColumnsFirst() {
+    assertThat(
+        mismatch(hasEstimatedRowWidthAtMost(100), Account.class),
+        is(
+            "<"
+                + Account.class
+                + "> maps to Account: 3 columns, 9 fixed + 102 variable = 111 bytes:"
+                + "\n  holder (up to 102 bytes)"
+                + "\n  id (8 bytes)"
+                + "\n  kind (1 bytes)"));
+    assertThat(
+        mismatch(hasEstimatedRowWidthAtMost(100), String.class),
+        is("<" + String.class + "> is not an entity"));
+  }
+
+  private static String columns(RowWidth row) {
+    return row.getColumns().stream()
+        .map(RowWidth.Column::getName)
+        .collect(Collectors.joining(", "));
+  }
+
+  private static String mismatch(Matcher<?> matcher, Class<?> type) {
+    assertThat(matcher.matches(type), is(false));
+    StringDescription description = new StringDescription();
+    matcher.describeMismatch(type, description);
+    return description.toString();
+  }
+}
@@ -0,0 +1,166 @@
+package iterator.test.matchers.jpa;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityMapping;
+import static iterator.test.matchers.jpa.JpaMatchers.hasGeneratedValueAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasTableAnnotation;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+
+import iterator.test.matchers.jpa.scan.Invoice;
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.tools.ToolProvider;
+import org.hamcrest.Matcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VerificationCacheTest {
+
+  @TempDir Path directory;
+
+  @AfterEach
+  void disableCache() {
+    VerificationCache.disable();
+  }
+
+  @Test
+  void shouldBeDisabledByDefault() {
+    assertThat(VerificationCache.active(), nullValue());
+  }
+
+  @Test
+  void shouldSkipMatchesRecordedByEarlierRuns() {
+    Path file = directory.resolve("cache");
+    Matcher<Class<Invoice>> matcher =
+        hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "invoices"));
+    VerificationCache first = VerificationCache.enable(file);
+    assertThat(Invoice.class, matcher);
+    assertThat(first.getMisses(), is(1L));
+    assertThat(first.getHits(), is(0L));
+    VerificationCache second = VerificationCache.enable(file);
+    assertThat(Invoice.class, matcher);
+    assertThat(
+        Invoice.class, hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "invoices")));
+    assertThat(second.getHits(), is(2L));
+    assertThat(second.getHitRate(), is(1.0));
+  }
+
+  @Test
+  void shouldWriteEachMatchBeforeTheCacheIsClosed() throws Exception {
+    Path file = directory.resolve("cache");
+    VerificationCache.enable(file);
+    assertThat(Invoice.class, hasGeneratedValueAnnotation("id"));
+    assertThat(Files.readAllLines(file, UTF_8).size(), is(2));
+  }
+
+  @Test
+  void shouldNotRecordMismatches() {
+    Path file = directory.resolve("cache");
+    VerificationCache.enable(file);
+    assertThat(Invoice.class, not(hasTableAnnotation()));
+    VerificationCache second = VerificationCache.enable(file);
+    assertThat(Invoice.class, not(hasTableAnnotation()));
+    assertThat(second.getHits(), is(0L));
+    assertThat(second.getMisses(), is(1L));
+  }
+
+  @Test
+  void shouldKeyEntriesByExpectation() {
+    Path file = directory.resolve("cache");
+    VerificationCache.enable(file);
+    assertThat(Invoice.class, hasGeneratedValueAnnotation("id"));
+    VerificationCache second = VerificationCache.enable(file);
+    assertThat(Invoice.class, hasEntityMapping().field("id", AnnotationMap.from(Id.class)));
+    assertThat(second.getHits(), is(0L));
+  }
+
+  @Test
+  void shouldCompactToUsedEntries() {
+    Path file = directory.resolve("cache");
+    VerificationCache.enable(file);
+    assertThat(Invoice.class, hasGeneratedValueAnnotation("id"));
+    assertThat(Invoice.class, hasEntityMapping().entity());
+    VerificationCache second = VerificationCache.enable(file);
+    assertThat(Invoice.class, hasGeneratedValueAnnotation("id"));
+    second.compact();
+    VerificationCache third = VerificationCache.enable(file);
+    assertThat(Invoice.class, hasGeneratedValueAnnotation("id"));
+    assertThat(Invoice.class, hasEntityMapping().entity());
+    assertThat(third.getHits(), is(1L));
+    assertThat(third.getMisses(), is(1L));
+  }
+
+  @Test
+  void shouldMissWhenAnEmbeddableAlongAPathChanges() throws Exception {
+    Path file = directory.resolve("cache");
+    Matcher<Class<Object>> matcher =
+        hasColumnAnnotation("home.street", AnnotationMap.from(Column.class).set("name", "street"));
+    Path before = compile("before", "street");
+    Path after = compile("after", "road");
+    Files.copy(
+        before.resolve("shop/Customer.class"),
+        Files.createDirectories(after.resolve("shop")).resolve("Customer.class"),
+        StandardCopyOption.REPLACE_EXISTING);
+    try (URLClassLoader first = loader(before);
+        URLClassLoader second = loader(after)) {
+      VerificationCache.enable(file);
+      assertThat(matcher.matches(first.loadClass("shop.Customer")), is(true));
+      VerificationCache cache = VerificationCache.enable(file);
+      assertThat(matcher.matches(second.loadClass("shop.Customer")), is(false));
+      assertThat(cache.getHits(), is(0L));
+    }
+  }
+
+  private Path compile(String name, String column) throws Exception {
+    Path sources = Files.createDirectories(directory.resolve(name + "-src/shop"));
+    Path classes = Files.createDirectories(directory.resolve(name));
+    Path customer =
+        Files.write(
+            sources.resolve("Customer.java"),
+            ("package shop;\nimport javax.persistence.*;\n"
+                    + "@Entity public class Customer { @Id Long id; @Embedded Address home; }\n")
+                .getBytes(UTF_8));
+    Path address =
+        Files.write(
+            sources.resolve("Address.java"),
+            ("package shop;\nimport javax.persistence.*;\n"
+                    + "@Embeddable public class Address { @Column(name = \""
+                    + column
+                    + "\") String street; }\n")
+                .getBytes(UTF_8));
+    int status =
+        ToolProvider.getSystemJavaCompiler()
+            .run(
+                null,
+                null,
+                null,
+                "-proc:none",
+                "-classpath",
+                Paths.get(Entity.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .toString(),
+                "-d",
+                classes.toString(),
+                customer.toString(),
+                address.toString());
+    assertThat(status, is(0));
+    return classes;
+  }
+
+  private URLClassLoader loader(Path classes) throws Exception {
+    return new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader());
+  }
+}
@@ -0,0 +1,188 @@
+package iterator.test.matchers.jpa.processor;
+
+import static iterator.test.matchers.jpa.JpaMatchers.hasColumnAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEntityAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasEnumeratedAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasGeneratedValueAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasManyToManyAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.hasTableAnnotation;
+import static iterator.test.matchers.jpa.JpaMatchers.inClassFile;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import iterator.test.matchers.jpa.ClassFile;
+import iterator.test.matchers.type.annotation.AnnotationMap;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.ManyToMany;
+import javax.persistence.Table;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.hamcrest.Matcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EntityMappingProcessorTest {
+
+  private static final String ORDER =
+      "package shop;\n"
+          + "import javax.persistence.*;\n"
+          + "@Entity @Table(name = \"orders\", indexes = @Index(columnList = \"order_number\"))\n"
+          + "public class Order extends Base {\n"
+          + "  static final long serialVersionUID = 1L;\n"
+          + "  @Column(name = \"order_number\", length = 20, nullable = false)\n"
+          + "  String orderNumber;\n"
+          + "  @Enumerated(EnumType.STRING) Status status;\n"
+          + "  @ManyToMany(targetEntity = Order.class, fetch = FetchType.EAGER)\n"
+          + "  java.util.Set<Order> related;\n"
+          + "  @Transient private transient int[] cache;\n"
+          + "  public enum Status { OPEN }\n"
+          + "  @Embeddable public static class Address { String street; }\n"
+          + "}\n";
+
+  private static final String BASE =
+      "package shop;\n"
+          + "import javax.persistence.*;\n"
+          + "@MappedSuperclass public abstract class Base {\n"
+          + "  @Id @GeneratedValue(strategy = GenerationType.SEQUENCE) Long id;\n"
+          + "}\n";
+
+  @TempDir Path directory;
+
+  private URLClassLoader loader;
+
+  private ClassFile generated;
+
+  private ClassFile compiled;
+
+  @BeforeEach
+  void compile() throws Exception {
+    Path sources = Files.createDirectories(directory.resolve("src/shop"));
+    Path classes = Files.createDirectories(directory.resolve("classes"));
+    Files.write(sources.resolve("Order.java"), ORDER.getBytes(UTF_8));
+    Files.write(sources.resolve("Base.java"), BASE.getBytes(UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, UTF_8)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              files,
+              null,
+              Arrays.asList(
+                  "-classpath",
+                  location(Entity.class) + File.pathSeparator + location(ClassFile.class),
+                  "-d",
+                  classes.toString()),
+              null,
+              files.getJavaFileObjects(
+                  sources.resolve("Order.java"), sources.resolve("Base.java")));
+      task.setProcessors(Collections.singletonList(new EntityMappingProcessor()));
+      assertThat(task.call(), is(true));
+    }
+    loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader());
+    generated = (ClassFile) constant("shop.Order_Mapping", "CLASS_FILE");
+    compiled = ClassFile.read(classes.resolve("shop/Order.class"));
+  }
+
+  @Test
+  void shouldGenerateFieldNameConstants() throws Exception {
+    assertThat(constant("shop.Order_Mapping", "ORDER_NUMBER"), is("orderNumber"));
+    assertThat(constant("shop.Order_Mapping", "STATUS"), is("status"));
+    assertThat(constant("shop.Base_Mapping", "ID"), is("id"));
+    assertThat(constant("shop.Order_Address_Mapping", "STREET"), is("street"));
+  }
+
+  @Test
+  void shouldPrecomputeTheClassFile() {
+    assertThat(generated.getName(), is(compiled.getName()));
+    assertThat(generated.getSuperclassName(), is("shop.Base"));
+    assertThat(generated.getFieldNames(), is(compiled.getFieldNames()));
+    assertThat(generated.isAnnotatedWith(Entity.class), is(true));
+  }
+
+  @Test
+  void shouldMatchAsTheCompiledClassFileDoes() {
+    List<Matcher<?>> matchers =
+        Arrays.asList(
+            hasEntityAnnotation(),
+            hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "orders")),
+            hasTableAnnotation(AnnotationMap.from(Table.class).set("name", "bills")),
+            hasColumnAnnotation(
+                "orderNumber",
+                AnnotationMap.from(Column.class)
+                    .set("name", "order_number")
+                    .set("length", 20)
+                    .set("nullable", false)),
+            hasColumnAnnotation("orderNumber", AnnotationMap.from(Column.class).set("length", 30)),
+            hasColumnAnnotation("status"),
+            hasEnumeratedAnnotation("status", EnumType.STRING),
+            hasEnumeratedAnnotation("status", EnumType.ORDINAL),
+            hasManyToManyAnnotation(
+                "related", AnnotationMap.from(ManyToMany.class).set("targetEntity", Object.class)),
+            hasGeneratedValueAnnotation("id"));
+    for (Matcher<?> matcher : matchers) {
+      assertThat(
+          matcher.toString(),
+          inClassFile(matcher).matches(generated),
+          is(inClassFile(matcher).matches(compiled)));
+    }
+    assertThat(generated, inClassFile(hasEnumeratedAnnotation("status", EnumType.STRING)));
+    assertThat(generated, not(inClassFile(hasColumnAnnotation("missing"))));
+  }
+
+  @Test
+  void shouldRecordNestedAnnotationsAndClassLiterals() throws Exception {
+    ClassFile base = (ClassFile) constant("shop.Base_Mapping", "CLASS_FILE");
+    assertThat(
+        base,
+        inClassFile(
+            hasGeneratedValueAnnotation(
+                "id",
+                AnnotationMap.from(GeneratedValue.class)
+                    .set("strategy", GenerationType.SEQUENCE))));
+    assertThat(
+        generated,
+        inClassFile(
+            hasManyToManyAnnotation(
+                "related",
+                AnnotationMap.from(ManyToMany.class)
+                    .set("targetEntity", classOf("shop.Order"))
+                    .set("fetch", FetchType.EAGER))));
+  }
+
+  @Test
+  void shouldConvertFieldNamesToConstantNames() {
+    assertThat(EntityMappingProcessor.constantName("id"), is("ID"));
+    assertThat(EntityMappingProcessor.constantName("orderNumber"), is("ORDER_NUMBER"));
+    assertThat(EntityMappingProcessor.constantName("homeURL"), is("HOME_URL"));
+  }
+
+  private Object constant(String className, String name) throws Exception {
+    return loader.loadClass(className).getField(name).get(null);
+  }
+
+  private Class<?> classOf(String className) throws Exception {
+    return loader.loadClass(className);
+  }
+
+  private static String location(Class<?> type) throws Exception {
+    return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+  }
+}
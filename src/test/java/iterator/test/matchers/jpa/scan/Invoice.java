@@ -0,0 +1,13 @@
+package iterator.test.matchers.jpa.scan;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "invoices")
+public class Invoice {
+
+  @Id @GeneratedValue private Long id;
+}
@@ -0,0 +1,16 @@
+package iterator.test.matchers.jpa.scan;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+@Entity
+public class Ledger {
+
+  static {
+    if (Boolean.TRUE) {
+      throw new IllegalStateException("Ledger must not be initialised by a scan");
+    }
+  }
+
+  @Id private Long id;
+}
@@ -0,0 +1,6 @@
+package iterator.test.matchers.jpa.scan;
+
+public class Money {
+
+  private long amount;
+}